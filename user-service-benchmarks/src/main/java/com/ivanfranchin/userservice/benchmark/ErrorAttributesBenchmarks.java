@@ -0,0 +1,124 @@
+package com.ivanfranchin.userservice.benchmark;
+
+import com.ivanfranchin.userservice.config.ErrorAttributesConfig;
+import com.ivanfranchin.userservice.user.exception.UserNotFoundException;
+import jakarta.servlet.RequestDispatcher;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.error.ErrorAttributeOptions;
+import org.springframework.boot.web.error.ErrorAttributeOptions.Include;
+import org.springframework.boot.webmvc.error.DefaultErrorAttributes;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Builds the error response body the way the error controller does, for an exception with a mapped
+ * error code and for one that falls back to the HTTP status reason phrase. The {@code Baseline}
+ * benchmarks run the previous implementation, which always went through {@link
+ * DefaultErrorAttributes}, looked the error codes up by class name and turned the reason phrase
+ * into an error code with a regular expression, and threw exceptions with a formatted message and a
+ * stack trace. The stack of a benchmark is much shorter than the one of a request, so the cost of
+ * filling it in is understated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorAttributesBenchmarks {
+
+  private ErrorAttributesConfig errorAttributes;
+  private BaselineErrorAttributes baselineErrorAttributes;
+  private ErrorAttributeOptions errorAttributeOptions;
+  private WebRequest userNotFoundRequest;
+  private WebRequest internalServerErrorRequest;
+  private Long id = 1L;
+
+  @Setup
+  public void setUp() {
+    errorAttributes = new ErrorAttributesConfig();
+    baselineErrorAttributes = new BaselineErrorAttributes();
+    errorAttributeOptions = ErrorAttributeOptions.defaults();
+    userNotFoundRequest =
+        errorRequest(404, new UserNotFoundException("User with id '1' doesn't exist."));
+    internalServerErrorRequest = errorRequest(500, new IllegalStateException("Unexpected"));
+  }
+
+  @Benchmark
+  public Map<String, Object> getErrorAttributesWhenUserNotFound() {
+    return errorAttributes.getErrorAttributes(userNotFoundRequest, errorAttributeOptions);
+  }
+
+  @Benchmark
+  public Map<String, Object> getErrorAttributesWhenInternalServerError() {
+    return errorAttributes.getErrorAttributes(internalServerErrorRequest, errorAttributeOptions);
+  }
+
+  @Benchmark
+  public Map<String, Object> getErrorAttributesWhenUserNotFoundBaseline() {
+    return baselineErrorAttributes.getErrorAttributes(userNotFoundRequest, errorAttributeOptions);
+  }
+
+  @Benchmark
+  public Map<String, Object> getErrorAttributesWhenInternalServerErrorBaseline() {
+    return baselineErrorAttributes.getErrorAttributes(
+        internalServerErrorRequest, errorAttributeOptions);
+  }
+
+  @Benchmark
+  public RuntimeException createUserNotFoundException() {
+    return new UserNotFoundException("User with id '" + id + "' doesn't exist.");
+  }
+
+  @Benchmark
+  public RuntimeException createUserNotFoundExceptionBaseline() {
+    return new RuntimeException("User with id '%s' doesn't exist.".formatted(id));
+  }
+
+  private static WebRequest errorRequest(int status, Exception exception) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+    request.setAttribute(RequestDispatcher.ERROR_STATUS_CODE, status);
+    request.setAttribute(RequestDispatcher.ERROR_EXCEPTION, exception);
+    request.setAttribute(RequestDispatcher.ERROR_REQUEST_URI, "/api/users/1");
+    return new ServletWebRequest(request);
+  }
+
+  private static class BaselineErrorAttributes extends DefaultErrorAttributes {
+
+    private static final Map<String, String> ERROR_CODE_MAP = new HashMap<>();
+
+    static {
+      ERROR_CODE_MAP.put(UserNotFoundException.class.getName(), "UserNotFound");
+    }
+
+    @Override
+    public Map<String, Object> getErrorAttributes(
+        WebRequest webRequest, ErrorAttributeOptions errorAttributeOptions) {
+      Throwable error = getError(webRequest);
+      String exceptionClassName = error != null ? error.getClass().getName() : null;
+      Map<String, Object> errorAttributes =
+          super.getErrorAttributes(
+              webRequest, errorAttributeOptions.including(Include.MESSAGE, Include.BINDING_ERRORS));
+      String errorCode = ERROR_CODE_MAP.get(exceptionClassName);
+      if (errorCode == null) {
+        String statusError = (String) errorAttributes.get("error");
+        errorCode = statusError.replaceAll("\\s+", "");
+      }
+      errorAttributes.put("errorCode", errorCode);
+      return errorAttributes;
+    }
+  }
+}
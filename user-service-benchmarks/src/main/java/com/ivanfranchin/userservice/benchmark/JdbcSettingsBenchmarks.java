@@ -0,0 +1,184 @@
+package com.ivanfranchin.userservice.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the Connector/J defaults with the {@code production} profile on a running MySQL, for the
+ * two statements whose cost depends the most on the driver settings: a lookup by id in a read-only
+ * transaction, the way Spring runs {@code findById}, and a batched insert of users. The database is
+ * set with the {@code jdbc.url}, {@code jdbc.username} and {@code jdbc.password} system properties,
+ * and defaults to the one of the docker compose file. The rows are written to a table of their own,
+ * which is dropped at the end.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JdbcSettingsBenchmarks {
+
+  private static final String DATA_SOURCE_PROPERTIES =
+      "spring.datasource.hikari.data-source-properties.";
+  private static final int SEEDED_USERS = 10_000;
+  private static final int BATCH_SIZE = 100;
+
+  private static final String CREATE_TABLE_SQL =
+      """
+      create table if not exists jdbc_benchmark_users (
+        id bigint not null auto_increment primary key,
+        username varchar(255) not null unique,
+        email varchar(255) not null unique,
+        birthday date not null,
+        created_on datetime(6) not null,
+        updated_on datetime(6) not null)""";
+  private static final String INSERT_SQL =
+      "insert into jdbc_benchmark_users (username, email, birthday, created_on, updated_on)"
+          + " values (?, ?, ?, ?, ?)";
+  private static final String FIND_BY_ID_SQL =
+      "select id, username, email, birthday, created_on, updated_on from jdbc_benchmark_users"
+          + " where id = ?";
+
+  @Param({"defaults", "production"})
+  private String settings;
+
+  private HikariDataSource dataSource;
+  private final AtomicLong sequence = new AtomicLong();
+
+  @Setup
+  public void setUp() throws IOException, SQLException {
+    HikariConfig hikariConfig = new HikariConfig();
+    hikariConfig.setJdbcUrl(
+        System.getProperty(
+            "jdbc.url",
+            "jdbc:mysql://localhost:3306/userdb?characterEncoding=UTF-8&serverTimezone=UTC"));
+    hikariConfig.setUsername(System.getProperty("jdbc.username", "root"));
+    hikariConfig.setPassword(System.getProperty("jdbc.password", "secret"));
+    hikariConfig.setMaximumPoolSize(4);
+    if ("production".equals(settings)) {
+      hikariConfig.setDataSourceProperties(productionDataSourceProperties());
+    }
+    dataSource = new HikariDataSource(hikariConfig);
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("drop table if exists jdbc_benchmark_users");
+      statement.execute(CREATE_TABLE_SQL);
+    }
+    insertUsers(SEEDED_USERS);
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("drop table jdbc_benchmark_users");
+    }
+    dataSource.close();
+  }
+
+  // Keeps the table at its seeded size, so every iteration inserts into the same index depth
+  @TearDown(Level.Iteration)
+  public void deleteInsertedUsers() throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("delete from jdbc_benchmark_users where id > " + SEEDED_USERS);
+    }
+  }
+
+  // What a @Transactional(readOnly = true) findById sends: the read-only flag and the autocommit
+  // changes around the query, which useLocalSessionState and elideSetAutoCommits can skip
+  @Benchmark
+  public String findById() throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setReadOnly(true);
+      connection.setAutoCommit(false);
+      String username;
+      try (PreparedStatement statement = connection.prepareStatement(FIND_BY_ID_SQL)) {
+        statement.setLong(1, ThreadLocalRandom.current().nextLong(1, SEEDED_USERS + 1));
+        try (ResultSet resultSet = statement.executeQuery()) {
+          username = resultSet.next() ? resultSet.getString("username") : null;
+        }
+      }
+      connection.commit();
+      connection.setAutoCommit(true);
+      connection.setReadOnly(false);
+      return username;
+    }
+  }
+
+  @Benchmark
+  public int[] insertBatch() throws SQLException {
+    return insertUsers(BATCH_SIZE);
+  }
+
+  private int[] insertUsers(int count) throws SQLException {
+    Timestamp now = Timestamp.from(Instant.now());
+    Date birthday = Date.valueOf(LocalDate.parse("2018-01-01"));
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      int[] counts;
+      try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+        for (int i = 0; i < count; i++) {
+          long n = sequence.incrementAndGet();
+          statement.setString(1, "user" + n);
+          statement.setString(2, "user" + n + "@test");
+          statement.setDate(3, birthday);
+          statement.setTimestamp(4, now);
+          statement.setTimestamp(5, now);
+          statement.addBatch();
+        }
+        counts = statement.executeBatch();
+      }
+      connection.commit();
+      connection.setAutoCommit(true);
+      return counts;
+    }
+  }
+
+  // The Connector/J settings of the production profile shipped in the user-service jar
+  private static Properties productionDataSourceProperties() throws IOException {
+    Properties profile = new Properties();
+    try (InputStream inputStream =
+        JdbcSettingsBenchmarks.class.getResourceAsStream("/application-production.properties")) {
+      profile.load(inputStream);
+    }
+    Properties dataSourceProperties = new Properties();
+    profile.stringPropertyNames().stream()
+        .filter(name -> name.startsWith(DATA_SOURCE_PROPERTIES))
+        .forEach(
+            name ->
+                dataSourceProperties.setProperty(
+                    name.substring(DATA_SOURCE_PROPERTIES.length()), profile.getProperty(name)));
+    return dataSourceProperties;
+  }
+}
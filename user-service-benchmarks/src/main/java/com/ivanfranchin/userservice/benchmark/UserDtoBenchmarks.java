@@ -0,0 +1,64 @@
+package com.ivanfranchin.userservice.benchmark;
+
+import com.ivanfranchin.userservice.user.dto.CreateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UpdateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.model.User;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserDtoBenchmarks {
+
+  private User user;
+  private CreateUserRequest createUserRequest;
+  private UpdateUserRequest updateUserRequest;
+
+  @Setup
+  public void setUp() {
+    user = new User("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
+    user.setId(1L);
+    user.setCreatedOn(Instant.now());
+    user.setUpdatedOn(Instant.now());
+    createUserRequest = new CreateUserRequest("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
+    updateUserRequest = new UpdateUserRequest("ivan2", null, LocalDate.parse("2018-02-02"));
+  }
+
+  @Benchmark
+  public UserResponse userResponseFrom() {
+    return UserResponse.from(user);
+  }
+
+  @Benchmark
+  public User createUserRequestToDomain() {
+    return createUserRequest.toDomain(User::new);
+  }
+
+  @Benchmark
+  public boolean updateUserRequestHasChanges() {
+    return updateUserRequest.hasChanges(user);
+  }
+
+  @Benchmark
+  public User updateUserRequestApplyTo() {
+    User target = new User(user.getUsername(), user.getEmail(), user.getBirthday());
+    updateUserRequest.applyTo(target);
+    return target;
+  }
+}
@@ -0,0 +1,117 @@
+package com.ivanfranchin.userservice.benchmark;
+
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Compares the formats {@code /api/users} can answer with, for a {@code List<UserResponse>}: the
+ * time to encode and decode it, as it is and gzipped the way Tomcat compresses the larger
+ * responses. The size of each payload is logged once per trial, before the warm-up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserFormatBenchmarks {
+
+  private static final Logger log = LoggerFactory.getLogger(UserFormatBenchmarks.class);
+
+  @Param({"json", "cbor", "smile"})
+  private String format;
+
+  @Param({"100", "1000"})
+  private int size;
+
+  private List<UserResponse> users;
+  private ObjectWriter writer;
+  private ObjectReader reader;
+  private byte[] encoded;
+  private byte[] gzipped;
+
+  @Setup
+  public void setUp() throws IOException {
+    users =
+        LongStream.rangeClosed(1, size)
+            .mapToObj(
+                id ->
+                    new UserResponse(
+                        id, "user" + id, "user" + id + "@test", LocalDate.parse("2018-01-01")))
+            .toList();
+    ObjectMapper mapper =
+        switch (format) {
+          case "json" -> JsonMapper.builder().build();
+          case "cbor" -> CBORMapper.builder().build();
+          case "smile" -> SmileMapper.builder().build();
+          default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+    JavaType type = mapper.getTypeFactory().constructCollectionType(List.class, UserResponse.class);
+    writer = mapper.writerFor(type);
+    reader = mapper.readerFor(type);
+    encoded = writer.writeValueAsBytes(users);
+    gzipped = gzip(encoded);
+    log.info(
+        "{} of {} users: {} bytes, {} bytes gzipped", format, size, encoded.length, gzipped.length);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return writer.writeValueAsBytes(users);
+  }
+
+  @Benchmark
+  public List<UserResponse> decode() {
+    return reader.readValue(encoded);
+  }
+
+  @Benchmark
+  public byte[] encodeGzipped() throws IOException {
+    return gzip(writer.writeValueAsBytes(users));
+  }
+
+  @Benchmark
+  public List<UserResponse> decodeGzipped() throws IOException {
+    try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+      return reader.readValue(inputStream);
+    }
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(bytes.length / 2);
+    try (OutputStream outputStream = new GZIPOutputStream(byteArrayOutputStream)) {
+      outputStream.write(bytes);
+    }
+    return byteArrayOutputStream.toByteArray();
+  }
+}
@@ -0,0 +1,66 @@
+package com.ivanfranchin.userservice.benchmark;
+
+import com.ivanfranchin.userservice.user.UserJsonCache;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserJsonBenchmarks {
+
+  @Param({"1", "100", "1000"})
+  private int size;
+
+  private List<UserResponse> users;
+  private ObjectWriter writer;
+  private UserJsonCache userJsonCache;
+
+  @Setup
+  public void setUp() {
+    users =
+        LongStream.rangeClosed(1, size)
+            .mapToObj(
+                id ->
+                    new UserResponse(
+                        id, "user" + id, "user" + id + "@test", LocalDate.parse("2018-01-01")))
+            .toList();
+    JsonMapper jsonMapper = JsonMapper.builder().build();
+    writer =
+        jsonMapper.writerFor(
+            jsonMapper.getTypeFactory().constructCollectionType(List.class, UserResponse.class));
+    userJsonCache = new UserJsonCache(jsonMapper, "maximumSize=10000");
+    // the lists only read the cache, it's the reads of single users that fill it
+    users.forEach(userJsonCache::toJson);
+  }
+
+  @Benchmark
+  public byte[] serializeUsers() {
+    return writer.writeValueAsBytes(users);
+  }
+
+  // Every user is already cached, so this is the cost of the lookups, the comparisons and the copy
+  @Benchmark
+  public byte[] writeCachedUsers() {
+    return userJsonCache.toJsonArray(users);
+  }
+}
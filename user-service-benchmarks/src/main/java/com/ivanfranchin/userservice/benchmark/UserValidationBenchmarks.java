@@ -0,0 +1,68 @@
+package com.ivanfranchin.userservice.benchmark;
+
+import com.ivanfranchin.userservice.user.dto.CreateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UpdateUserRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserValidationBenchmarks {
+
+  private ValidatorFactory validatorFactory;
+  private Validator validator;
+  private CreateUserRequest validCreateUserRequest;
+  private CreateUserRequest invalidCreateUserRequest;
+  private UpdateUserRequest updateUserRequest;
+
+  @Setup
+  public void setUp() {
+    validatorFactory = Validation.buildDefaultValidatorFactory();
+    validator = validatorFactory.getValidator();
+    validCreateUserRequest =
+        new CreateUserRequest("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
+    // Violations are more expensive than a clean pass, because each one interpolates its message
+    invalidCreateUserRequest = new CreateUserRequest("", "ivan", LocalDate.now().plusDays(1));
+    updateUserRequest = new UpdateUserRequest("ivan2", "ivan2@test", LocalDate.parse("2018-02-02"));
+  }
+
+  @TearDown
+  public void tearDown() {
+    validatorFactory.close();
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<CreateUserRequest>> validateValidCreateUserRequest() {
+    return validator.validate(validCreateUserRequest);
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<CreateUserRequest>> validateInvalidCreateUserRequest() {
+    return validator.validate(invalidCreateUserRequest);
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<UpdateUserRequest>> validateUpdateUserRequest() {
+    return validator.validate(updateUserRequest);
+  }
+}
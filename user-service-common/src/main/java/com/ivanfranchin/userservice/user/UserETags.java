@@ -0,0 +1,44 @@
+package com.ivanfranchin.userservice.user;
+
+import com.ivanfranchin.userservice.user.exception.UserPreconditionFailedException;
+import com.ivanfranchin.userservice.user.model.UserView;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.springframework.http.ETag;
+
+/** The {@code ETag} of a user and the matching of the {@code If-Match} header of an update. */
+public final class UserETags {
+
+  private UserETags() {}
+
+  // The ETag is the id and the updatedOn in microseconds, the column precision. updatedOn only
+  // moves when a value changes, so the ETag is the same for as long as the response body is.
+  public static String of(UserView user) {
+    return user.getId() + "-" + ChronoUnit.MICROS.between(Instant.EPOCH, user.getUpdatedOn());
+  }
+
+  /**
+   * Returns the updatedOn of the first strong ETag of this user in the If-Match header, or null for
+   * "*", which matches any version. Neither matches a user that doesn't exist: the update then
+   * fails with a {@link UserPreconditionFailedException} rather than a not found.
+   *
+   * @throws UserPreconditionFailedException if none of the ETags is one of this user
+   */
+  public static Instant getExpectedUpdatedOn(Long id, String ifMatch) {
+    String prefix = id + "-";
+    for (ETag eTag : ETag.parse(ifMatch)) {
+      if (eTag.isWildcard()) {
+        return null;
+      }
+      if (!eTag.weak() && eTag.tag().startsWith(prefix)) {
+        try {
+          long micros = Long.parseLong(eTag.tag().substring(prefix.length()));
+          return Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+        } catch (NumberFormatException ignored) {
+          // not one of ours, it can't match
+        }
+      }
+    }
+    throw new UserPreconditionFailedException(id);
+  }
+}
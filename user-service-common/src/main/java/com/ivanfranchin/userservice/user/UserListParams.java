@@ -0,0 +1,31 @@
+package com.ivanfranchin.userservice.user;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The query parameters that pick what {@code GET /api/users} lists. Each list is only mapped to the
+ * requests without the parameters of the others, so a request that combines them reaches the plain
+ * list, which rejects it here instead of answering only one of them.
+ */
+public final class UserListParams {
+
+  private static final List<String> NAMES =
+      List.of("ids", "usernames", "limit", "username", "stream");
+
+  private UserListParams() {}
+
+  /**
+   * @throws ResponseStatusException with a 400 if more than one of the parameters is given
+   */
+  public static void requireAtMostOne(Collection<String> paramNames) {
+    List<String> given = NAMES.stream().filter(paramNames::contains).toList();
+    if (given.size() > 1) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST,
+          "The parameters " + String.join(", ", given) + " can't be combined");
+    }
+  }
+}
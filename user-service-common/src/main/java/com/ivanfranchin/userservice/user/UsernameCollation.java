@@ -0,0 +1,38 @@
+package com.ivanfranchin.userservice.user;
+
+import java.text.Collator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compares usernames like the {@code utf8mb4_0900_ai_ci} collation of the {@code users} table,
+ * ignoring case and accents, so that the users a query found can be matched back to the usernames
+ * that were asked for: {@code username in ('Alice')} finds {@code alice}.
+ *
+ * <p>A new {@link Collator} is taken for each map or set, since its comparisons are synchronized.
+ */
+public final class UsernameCollation {
+
+  private UsernameCollation() {}
+
+  public static boolean equals(String username, String otherUsername) {
+    return collator().equals(username, otherUsername);
+  }
+
+  public static <V> Map<String, V> newMap() {
+    return new TreeMap<>(collator());
+  }
+
+  public static Set<String> newSet() {
+    return new TreeSet<>(collator());
+  }
+
+  private static Collator collator() {
+    Collator collator = Collator.getInstance(Locale.ROOT);
+    collator.setStrength(Collator.PRIMARY);
+    return collator;
+  }
+}
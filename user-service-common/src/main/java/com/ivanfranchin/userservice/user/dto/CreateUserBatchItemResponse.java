@@ -0,0 +1,16 @@
+package com.ivanfranchin.userservice.user.dto;
+
+import org.springframework.http.HttpStatus;
+
+public record CreateUserBatchItemResponse(
+    int index, int status, UserResponse user, String errorCode, String message) {
+
+  public static CreateUserBatchItemResponse created(int index, UserResponse user) {
+    return new CreateUserBatchItemResponse(index, HttpStatus.CREATED.value(), user, null, null);
+  }
+
+  public static CreateUserBatchItemResponse failed(
+      int index, int status, String errorCode, String message) {
+    return new CreateUserBatchItemResponse(index, status, null, errorCode, message);
+  }
+}
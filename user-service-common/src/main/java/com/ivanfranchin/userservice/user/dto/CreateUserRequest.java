@@ -1,7 +1,8 @@
 package com.ivanfranchin.userservice.user.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
-import com.ivanfranchin.userservice.user.model.User;
+import com.ivanfranchin.userservice.user.model.UserFactory;
+import com.ivanfranchin.userservice.user.model.UserView;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -17,7 +18,7 @@ public record CreateUserRequest(
         @NotNull @Past @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
         LocalDate birthday) {
 
-  public User toDomain() {
-    return new User(username, email, birthday);
+  public <U extends UserView> U toDomain(UserFactory<U> userFactory) {
+    return userFactory.create(username, email, birthday);
   }
 }
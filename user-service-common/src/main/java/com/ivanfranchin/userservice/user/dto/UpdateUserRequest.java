@@ -2,7 +2,8 @@ package com.ivanfranchin.userservice.user.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonFormat.Shape;
-import com.ivanfranchin.userservice.user.model.User;
+import com.ivanfranchin.userservice.user.model.UpdatableUser;
+import com.ivanfranchin.userservice.user.model.UserView;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Past;
@@ -15,13 +16,13 @@ public record UpdateUserRequest(
     @Schema(example = "2002-02-02") @Past @JsonFormat(shape = Shape.STRING, pattern = "yyyy-MM-dd")
         LocalDate birthday) {
 
-  public boolean hasChanges(User user) {
+  public boolean hasChanges(UserView user) {
     return (username() != null && !username().equals(user.getUsername()))
         || (email() != null && !email().equals(user.getEmail()))
         || (birthday() != null && !birthday().equals(user.getBirthday()));
   }
 
-  public void applyTo(User user) {
+  public void applyTo(UpdatableUser user) {
     if (username() != null) {
       user.setUsername(username());
     }
@@ -0,0 +1,4 @@
+package com.ivanfranchin.userservice.user.dto;
+
+/** Whether the username and the email are free, {@code null} for the ones not asked about. */
+public record UserAvailabilityResponse(Boolean usernameAvailable, Boolean emailAvailable) {}
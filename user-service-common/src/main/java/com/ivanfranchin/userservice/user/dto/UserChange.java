@@ -0,0 +1,13 @@
+package com.ivanfranchin.userservice.user.dto;
+
+import java.time.Instant;
+
+/** A user created, updated or deleted at {@code changedOn}. A deleted user has no {@code user}. */
+public record UserChange(Long id, Type type, Instant changedOn, UserResponse user) {
+
+  public enum Type {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+}
@@ -0,0 +1,5 @@
+package com.ivanfranchin.userservice.user.dto;
+
+import java.util.List;
+
+public record UserChangesResponse(List<UserChange> changes, String nextCursor) {}
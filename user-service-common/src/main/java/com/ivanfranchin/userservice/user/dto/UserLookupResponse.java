@@ -0,0 +1,9 @@
+package com.ivanfranchin.userservice.user.dto;
+
+import java.util.List;
+
+/**
+ * The users found for a list of ids or usernames, in the order they were asked for, and the ids or
+ * usernames that have no user.
+ */
+public record UserLookupResponse<K>(List<UserResponse> users, List<K> missing) {}
@@ -0,0 +1,5 @@
+package com.ivanfranchin.userservice.user.dto;
+
+import java.util.List;
+
+public record UserPageResponse(List<UserResponse> users, Long nextCursor) {}
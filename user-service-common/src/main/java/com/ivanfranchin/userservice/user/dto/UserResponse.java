@@ -2,7 +2,7 @@ package com.ivanfranchin.userservice.user.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonFormat.Shape;
-import com.ivanfranchin.userservice.user.model.User;
+import com.ivanfranchin.userservice.user.model.UserView;
 import java.time.LocalDate;
 
 public record UserResponse(
@@ -11,7 +11,7 @@ public record UserResponse(
     String email,
     @JsonFormat(shape = Shape.STRING, pattern = "yyyy-MM-dd") LocalDate birthday) {
 
-  public static UserResponse from(User user) {
+  public static UserResponse from(UserView user) {
     return new UserResponse(user.getId(), user.getUsername(), user.getEmail(), user.getBirthday());
   }
 }
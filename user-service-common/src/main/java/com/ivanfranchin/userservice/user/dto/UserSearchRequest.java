@@ -0,0 +1,21 @@
+package com.ivanfranchin.userservice.user.dto;
+
+import jakarta.validation.constraints.Size;
+import java.time.Instant;
+import java.time.LocalDate;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+
+/**
+ * Filters of a user search, all optional and combined with AND. The ranges include {@code from} and
+ * exclude {@code to}.
+ */
+public record UserSearchRequest(
+    @Size(max = 100) String usernamePrefix,
+    @Size(max = 150) String emailPrefix,
+    @DateTimeFormat(iso = ISO.DATE) LocalDate birthdayFrom,
+    @DateTimeFormat(iso = ISO.DATE) LocalDate birthdayTo,
+    Instant createdFrom,
+    Instant createdTo,
+    Instant updatedFrom,
+    Instant updatedTo) {}
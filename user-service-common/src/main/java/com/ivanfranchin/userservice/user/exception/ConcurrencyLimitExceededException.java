@@ -0,0 +1,12 @@
+package com.ivanfranchin.userservice.user.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ConcurrencyLimitExceededException extends UserApiException {
+
+  public ConcurrencyLimitExceededException(String operation) {
+    super("Too many " + operation + " requests in progress, retry later.");
+  }
+}
@@ -0,0 +1,12 @@
+package com.ivanfranchin.userservice.user.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends UserApiException {
+
+  public InvalidCursorException() {
+    super("The cursor informed wasn't returned by this kind of request.");
+  }
+}
@@ -0,0 +1,86 @@
+package com.ivanfranchin.userservice.user.exception;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The {@code errorCode} of the error responses, shared by the {@code ErrorAttributesConfig} of
+ * user-service and user-service-reactive, so that clients handle the errors of both the same way.
+ */
+public final class UserApiErrors {
+
+  private static final Map<Class<?>, Template> TEMPLATE_MAP =
+      Map.of(
+          UserNotFoundException.class,
+          Template.of(UserNotFoundException.class, ErrorCode.USER_NOT_FOUND),
+          UserDataDuplicatedException.class,
+          Template.of(UserDataDuplicatedException.class, ErrorCode.USER_DATA_DUPLICATED),
+          UserPreconditionFailedException.class,
+          Template.of(UserPreconditionFailedException.class, ErrorCode.USER_PRECONDITION_FAILED),
+          InvalidCursorException.class,
+          Template.of(InvalidCursorException.class, ErrorCode.INVALID_CURSOR),
+          ConcurrencyLimitExceededException.class,
+          Template.of(
+              ConcurrencyLimitExceededException.class, ErrorCode.CONCURRENCY_LIMIT_EXCEEDED));
+
+  // The reason phrases without their spaces, e.g. "Not Found" gives "NotFound"
+  private static final Map<String, String> STATUS_ERROR_CODE_MAP =
+      Arrays.stream(HttpStatus.values())
+          .map(HttpStatus::getReasonPhrase)
+          .distinct()
+          .collect(Collectors.toUnmodifiableMap(Function.identity(), UserApiErrors::toCode));
+
+  private UserApiErrors() {}
+
+  /** Returns the template of an exception of the user API, or null for any other error. */
+  public static Template getTemplate(Throwable error) {
+    return TEMPLATE_MAP.get(error.getClass());
+  }
+
+  /** Returns the error code of any other error, from the reason phrase of its status. */
+  public static String getStatusErrorCode(String statusError) {
+    String errorCode = STATUS_ERROR_CODE_MAP.get(statusError);
+    return errorCode != null ? errorCode : toCode(statusError);
+  }
+
+  private static String toCode(String statusError) {
+    return statusError.replaceAll("\\s+", "");
+  }
+
+  /**
+   * The attributes of the error response of an exception of the user API that are the same every
+   * time it is thrown.
+   */
+  public record Template(int status, String error, String exception, String errorCode) {
+
+    static Template of(Class<? extends Throwable> exceptionClass, ErrorCode errorCode) {
+      ResponseStatus responseStatus =
+          AnnotatedElementUtils.findMergedAnnotation(exceptionClass, ResponseStatus.class);
+      HttpStatus status = responseStatus.code();
+      return new Template(
+          status.value(),
+          status.getReasonPhrase(),
+          exceptionClass.getName(),
+          errorCode.getDescription());
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor
+  private enum ErrorCode {
+    USER_NOT_FOUND("UserNotFound"),
+    USER_DATA_DUPLICATED("UserDataDuplicated"),
+    USER_PRECONDITION_FAILED("UserPreconditionFailed"),
+    INVALID_CURSOR("InvalidCursor"),
+    CONCURRENCY_LIMIT_EXCEEDED("ConcurrencyLimitExceeded");
+
+    private final String description;
+  }
+}
@@ -0,0 +1,13 @@
+package com.ivanfranchin.userservice.user.exception;
+
+/**
+ * An expected error of the user API, answered with the status of its {@code @ResponseStatus}. It is
+ * created without a stack trace, which nobody reads for these errors and which would cost more to
+ * fill in than the rest of the request, and it can't have suppressed exceptions.
+ */
+public abstract class UserApiException extends RuntimeException {
+
+  protected UserApiException(String message) {
+    super(message, null, false, false);
+  }
+}
@@ -4,7 +4,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 @ResponseStatus(HttpStatus.CONFLICT)
-public class UserDataDuplicatedException extends RuntimeException {
+public class UserDataDuplicatedException extends UserApiException {
 
   public UserDataDuplicatedException() {
     super("The username and/or email informed already exists.");
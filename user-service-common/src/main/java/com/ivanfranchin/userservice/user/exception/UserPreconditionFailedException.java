@@ -0,0 +1,12 @@
+package com.ivanfranchin.userservice.user.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class UserPreconditionFailedException extends UserApiException {
+
+  public UserPreconditionFailedException(Long id) {
+    super("User with id '" + id + "' doesn't match the version informed in If-Match.");
+  }
+}
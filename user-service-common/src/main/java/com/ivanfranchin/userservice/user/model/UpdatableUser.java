@@ -0,0 +1,16 @@
+package com.ivanfranchin.userservice.user.model;
+
+import java.time.LocalDate;
+
+/**
+ * A user whose fields an {@code UpdateUserRequest} can change, implemented by the {@code User}
+ * entity of user-service (JPA) and of user-service-reactive (R2DBC).
+ */
+public interface UpdatableUser extends UserView {
+
+  void setUsername(String username);
+
+  void setEmail(String email);
+
+  void setBirthday(LocalDate birthday);
+}
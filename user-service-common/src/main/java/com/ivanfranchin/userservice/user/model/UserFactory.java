@@ -0,0 +1,13 @@
+package com.ivanfranchin.userservice.user.model;
+
+import java.time.LocalDate;
+
+/**
+ * Creates the {@code User} entity of a service from the fields of a new user, e.g. {@code
+ * User::new}, so that a {@code CreateUserRequest} is mapped the same way in both services.
+ */
+@FunctionalInterface
+public interface UserFactory<U extends UserView> {
+
+  U create(String username, String email, LocalDate birthday);
+}
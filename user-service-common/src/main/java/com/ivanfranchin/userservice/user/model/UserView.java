@@ -0,0 +1,21 @@
+package com.ivanfranchin.userservice.user.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * The fields of a user that the responses and the ETag are built from, implemented by the {@code
+ * User} entity of user-service (JPA) and of user-service-reactive (R2DBC).
+ */
+public interface UserView {
+
+  Long getId();
+
+  String getUsername();
+
+  String getEmail();
+
+  LocalDate getBirthday();
+
+  Instant getUpdatedOn();
+}
@@ -0,0 +1,30 @@
+package com.ivanfranchin.userservice.reactive.config;
+
+import com.ivanfranchin.userservice.user.exception.UserApiErrors;
+import java.util.Map;
+import org.springframework.boot.web.error.ErrorAttributeOptions;
+import org.springframework.boot.web.error.ErrorAttributeOptions.Include;
+import org.springframework.boot.webflux.error.DefaultErrorAttributes;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+
+// The error codes of UserApiErrors, the same as user-service, so that clients handle the errors of
+// both variants the same way
+@Component
+public class ErrorAttributesConfig extends DefaultErrorAttributes {
+
+  @Override
+  public Map<String, Object> getErrorAttributes(
+      ServerRequest request, ErrorAttributeOptions errorAttributeOptions) {
+    Map<String, Object> errorAttributes =
+        super.getErrorAttributes(
+            request, errorAttributeOptions.including(Include.MESSAGE, Include.BINDING_ERRORS));
+    UserApiErrors.Template errorTemplate = UserApiErrors.getTemplate(getError(request));
+    String errorCode =
+        errorTemplate != null
+            ? errorTemplate.errorCode()
+            : UserApiErrors.getStatusErrorCode((String) errorAttributes.get("error"));
+    errorAttributes.put("errorCode", errorCode);
+    return errorAttributes;
+  }
+}
@@ -0,0 +1,6 @@
+package com.ivanfranchin.userservice.reactive.outbox;
+
+import com.ivanfranchin.userservice.reactive.outbox.model.OutboxEvent;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+public interface OutboxRepository extends R2dbcRepository<OutboxEvent, Long> {}
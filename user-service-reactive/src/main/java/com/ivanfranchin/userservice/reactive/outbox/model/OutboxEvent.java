@@ -0,0 +1,34 @@
+package com.ivanfranchin.userservice.reactive.outbox.model;
+
+import java.time.Instant;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * An event of the outbox_events table, in the format user-service writes and publishes. This
+ * application only writes them: a user-service instance drains the outbox of both.
+ */
+@Data
+@NoArgsConstructor
+@Table("outbox_events")
+public class OutboxEvent {
+
+  @Id private Long id;
+
+  private String type;
+
+  private Long aggregateId;
+
+  private String payload;
+
+  private Instant createdOn;
+
+  public OutboxEvent(String type, Long aggregateId, String payload, Instant createdOn) {
+    this.type = type;
+    this.aggregateId = aggregateId;
+    this.payload = payload;
+    this.createdOn = createdOn;
+  }
+}
@@ -0,0 +1,228 @@
+package com.ivanfranchin.userservice.reactive.user;
+
+import com.ivanfranchin.userservice.reactive.user.model.User;
+import com.ivanfranchin.userservice.user.UserETags;
+import com.ivanfranchin.userservice.user.UserListParams;
+import com.ivanfranchin.userservice.user.dto.CreateUserBatchItemResponse;
+import com.ivanfranchin.userservice.user.dto.CreateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UpdateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UserAvailabilityResponse;
+import com.ivanfranchin.userservice.user.dto.UserLookupResponse;
+import com.ivanfranchin.userservice.user.dto.UserPageResponse;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.exception.UserDataDuplicatedException;
+import com.ivanfranchin.userservice.user.exception.UserNotFoundException;
+import com.ivanfranchin.userservice.user.exception.UserPreconditionFailedException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@code /api/users} contract of user-service, on the same DTOs and error codes from
+ * user-service-common, without the search and the change feed.
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+
+  private static final int MAX_PAGE_SIZE = 1000;
+  private static final int MAX_BATCH_SIZE = 1000;
+  private static final int MAX_LOOKUP_SIZE = 1000;
+
+  private final UserService userService;
+  private final Validator validator;
+
+  // A Flux is written as a JSON array element by element, as the rows come in, so every list is
+  // streamed and ?stream=true is answered here as well. The lists below each take one of ids,
+  // usernames and limit, see UserListParams.
+  @GetMapping
+  public Flux<UserResponse> getUsers(
+      @RequestParam(required = false) String username, ServerWebExchange exchange) {
+    UserListParams.requireAtMostOne(exchange.getRequest().getQueryParams().keySet());
+    if (username != null) {
+      return userService.validateAndGetUserByUsername(username).map(UserResponse::from).flux();
+    }
+    return userService.getUsers();
+  }
+
+  // One call instead of a GET /{id} per user: the ids without user are listed as missing rather
+  // than answered with a 404
+  @GetMapping(params = {"ids", "!usernames", "!limit", "!username", "!stream"})
+  public Mono<UserLookupResponse<Long>> getUsersByIds(
+      @RequestParam @NotEmpty @Size(max = MAX_LOOKUP_SIZE) List<Long> ids) {
+    return userService.getUsersByIds(ids);
+  }
+
+  @GetMapping(params = {"usernames", "!ids", "!limit", "!username", "!stream"})
+  public Mono<UserLookupResponse<String>> getUsersByUsernames(
+      @RequestParam @NotEmpty @Size(max = MAX_LOOKUP_SIZE) List<String> usernames) {
+    return userService.getUsersByUsernames(usernames);
+  }
+
+  @GetMapping(params = {"limit", "!ids", "!usernames", "!username", "!stream"})
+  public Mono<UserPageResponse> getUsersPage(
+      @RequestParam @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+      @RequestParam(required = false) Long after) {
+    // Fetching one extra row tells whether there is a next page without a count query
+    return userService
+        .getUsers(after, limit + 1)
+        .collectList()
+        .map(
+            users -> {
+              List<UserResponse> page = users.size() > limit ? users.subList(0, limit) : users;
+              Long nextCursor = users.size() > limit ? page.getLast().id() : null;
+              return new UserPageResponse(page, nextCursor);
+            });
+  }
+
+  // A free name isn't a UserNotFoundException
+  @GetMapping("/availability")
+  public Mono<UserAvailabilityResponse> getAvailability(
+      @RequestParam(required = false) String username,
+      @RequestParam(required = false) String email) {
+    if (username == null && email == null) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "At least one of username and email must be informed");
+    }
+    Mono<Optional<Boolean>> usernameAvailable =
+        username != null
+            ? userService.isUsernameAvailable(username).map(Optional::of)
+            : Mono.just(Optional.empty());
+    Mono<Optional<Boolean>> emailAvailable =
+        email != null
+            ? userService.isEmailAvailable(email).map(Optional::of)
+            : Mono.just(Optional.empty());
+    return Mono.zip(usernameAvailable, emailAvailable)
+        .map(
+            available ->
+                new UserAvailabilityResponse(
+                    available.getT1().orElse(null), available.getT2().orElse(null)));
+  }
+
+  // With the ETag and Last-Modified set, Spring answers a matching If-None-Match or
+  // If-Modified-Since with a 304 and doesn't write the body
+  @GetMapping("/{id}")
+  public Mono<ResponseEntity<UserResponse>> getUserById(@PathVariable Long id) {
+    return userService
+        .validateAndGetUserById(id)
+        .map(
+            user ->
+                ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(UserETags.of(user))
+                    .lastModified(user.getUpdatedOn())
+                    .body(UserResponse.from(user)));
+  }
+
+  @ResponseStatus(HttpStatus.CREATED)
+  @PostMapping
+  public Mono<UserResponse> createUser(@Valid @RequestBody CreateUserRequest createUserRequest) {
+    return userService.saveUser(createUserRequest.toDomain(User::new)).map(UserResponse::from);
+  }
+
+  @PostMapping("/batch")
+  public Mono<List<CreateUserBatchItemResponse>> createUsers(
+      @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<CreateUserRequest> createUserRequests) {
+    CreateUserBatchItemResponse[] responses =
+        new CreateUserBatchItemResponse[createUserRequests.size()];
+    Map<Integer, User> usersByIndex = new LinkedHashMap<>();
+    for (int i = 0; i < createUserRequests.size(); i++) {
+      CreateUserRequest createUserRequest = createUserRequests.get(i);
+      String violations = getViolations(createUserRequest);
+      if (violations != null) {
+        responses[i] =
+            CreateUserBatchItemResponse.failed(
+                i, HttpStatus.BAD_REQUEST.value(), "BadRequest", violations);
+      } else {
+        usersByIndex.put(i, createUserRequest.toDomain(User::new));
+      }
+    }
+
+    return userService
+        .saveUsers(new ArrayList<>(usersByIndex.values()))
+        .map(
+            inserted -> {
+              usersByIndex.forEach(
+                  (i, user) ->
+                      responses[i] =
+                          user.getId() != null
+                              ? CreateUserBatchItemResponse.created(i, UserResponse.from(user))
+                              : CreateUserBatchItemResponse.failed(
+                                  i,
+                                  HttpStatus.CONFLICT.value(),
+                                  "UserDataDuplicated",
+                                  new UserDataDuplicatedException().getMessage()));
+              return Arrays.asList(responses);
+            });
+  }
+
+  @PatchMapping("/{id}")
+  public Mono<ResponseEntity<UserResponse>> updateUser(
+      @PathVariable Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @Valid @RequestBody UpdateUserRequest updateUserRequest) {
+    Instant expectedUpdatedOn =
+        ifMatch != null ? UserETags.getExpectedUpdatedOn(id, ifMatch) : null;
+    return userService
+        .updateUser(id, updateUserRequest, expectedUpdatedOn)
+        // Not even "*" matches a user that doesn't exist, the precondition fails (RFC 9110, 13.1.1)
+        .onErrorMap(
+            UserNotFoundException.class,
+            e -> ifMatch != null ? new UserPreconditionFailedException(id) : e)
+        .map(user -> ResponseEntity.ok().eTag(UserETags.of(user)).body(UserResponse.from(user)));
+  }
+
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  @DeleteMapping("/{id}")
+  public Mono<Void> deleteUser(@PathVariable Long id) {
+    return userService.deleteUser(id);
+  }
+
+  private String getViolations(CreateUserRequest createUserRequest) {
+    if (createUserRequest == null) {
+      return "must not be null";
+    }
+    Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(createUserRequest);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    return violations.stream()
+        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+}
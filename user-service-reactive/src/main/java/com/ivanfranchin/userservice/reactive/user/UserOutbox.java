@@ -0,0 +1,66 @@
+package com.ivanfranchin.userservice.reactive.user;
+
+import com.ivanfranchin.userservice.reactive.outbox.OutboxRepository;
+import com.ivanfranchin.userservice.reactive.outbox.model.OutboxEvent;
+import com.ivanfranchin.userservice.reactive.user.model.User;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Writes the user lifecycle events to the outbox, with the same types and payloads as user-service.
+ * It must be subscribed to in the transaction that makes the change, so that the event is committed
+ * or rolled back with it.
+ */
+@Component
+public class UserOutbox {
+
+  public static final String USER_CREATED = "UserCreated";
+  public static final String USER_UPDATED = "UserUpdated";
+  public static final String USER_DELETED = "UserDeleted";
+
+  private final OutboxRepository outboxRepository;
+  private final ObjectWriter userWriter;
+  private final JsonMapper jsonMapper;
+
+  public UserOutbox(OutboxRepository outboxRepository, JsonMapper jsonMapper) {
+    this.outboxRepository = outboxRepository;
+    this.userWriter = jsonMapper.writerFor(UserResponse.class);
+    this.jsonMapper = jsonMapper;
+  }
+
+  // Deferred to the subscription, when the users have been inserted and have their ids
+  public Mono<Void> created(List<User> users) {
+    return Mono.defer(
+        () -> {
+          Instant now = now();
+          return outboxRepository
+              .saveAll(users.stream().map(user -> event(USER_CREATED, user, now)).toList())
+              .then();
+        });
+  }
+
+  public Mono<Void> updated(User user) {
+    return outboxRepository.save(event(USER_UPDATED, user, now())).then();
+  }
+
+  public Mono<Void> deleted(Long id) {
+    String payload = jsonMapper.writeValueAsString(Map.of("id", id));
+    return outboxRepository.save(new OutboxEvent(USER_DELETED, id, payload, now())).then();
+  }
+
+  private OutboxEvent event(String type, User user, Instant createdOn) {
+    String payload = userWriter.writeValueAsString(UserResponse.from(user));
+    return new OutboxEvent(type, user.getId(), payload, createdOn);
+  }
+
+  private static Instant now() {
+    return Instant.now().truncatedTo(ChronoUnit.MICROS);
+  }
+}
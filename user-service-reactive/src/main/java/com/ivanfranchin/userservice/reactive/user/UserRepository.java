@@ -0,0 +1,40 @@
+package com.ivanfranchin.userservice.reactive.user;
+
+import com.ivanfranchin.userservice.reactive.user.model.User;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import java.util.Collection;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/** The non-blocking counterpart of the user-service UserRepository, with the same queries. */
+public interface UserRepository extends R2dbcRepository<User, Long>, UserWriteRepository {
+
+  Mono<User> findByUsername(String username);
+
+  Flux<User> findByUsernameIn(Collection<String> usernames);
+
+  @Query("select username from users where username in (:usernames)")
+  Flux<String> findExistingUsernames(Collection<String> usernames);
+
+  @Query("select email from users where email in (:emails)")
+  Flux<String> findExistingEmails(Collection<String> emails);
+
+  Mono<Boolean> existsByUsername(String username);
+
+  Mono<Boolean> existsByEmail(String email);
+
+  // The list reads build the responses straight from the rows, without an entity in between
+  @Query("select id, username, email, birthday from users")
+  Flux<UserResponse> findAllResponses();
+
+  @Query("select id, username, email, birthday from users where id > :id order by id limit :limit")
+  Flux<UserResponse> findResponsesByIdGreaterThan(Long id, int limit);
+
+  // Unlike deleteById, it tells whether there was a user to delete
+  @Modifying
+  @Query("delete from users where id = :id")
+  Mono<Long> deleteUserById(Long id);
+}
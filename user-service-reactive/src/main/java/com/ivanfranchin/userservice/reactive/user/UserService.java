@@ -0,0 +1,286 @@
+package com.ivanfranchin.userservice.reactive.user;
+
+import com.ivanfranchin.userservice.reactive.user.model.User;
+import com.ivanfranchin.userservice.user.UsernameCollation;
+import com.ivanfranchin.userservice.user.dto.UpdateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UserLookupResponse;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.exception.UserDataDuplicatedException;
+import com.ivanfranchin.userservice.user.exception.UserNotFoundException;
+import com.ivanfranchin.userservice.user.exception.UserPreconditionFailedException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The user-service UserService on R2DBC. The reads aren't transactional: each query takes a
+ * connection from the pool only while it runs. There is no user cache nor Bloom filters, every read
+ * and duplicate check goes to the database.
+ */
+@RequiredArgsConstructor
+@Service
+public class UserService {
+
+  // A power of two, like the IN lists user-service pads to
+  private static final int LOOKUP_CHUNK_SIZE = 512;
+
+  // The rows are requested from the driver in batches of this size as the response is written, so
+  // a slow client slows the query down instead of the rows piling up in memory
+  private static final int STREAM_BATCH_SIZE = 256;
+
+  private final UserRepository userRepository;
+  private final UserOutbox userOutbox;
+  private final TransactionalOperator transactionalOperator;
+
+  // A duplicated username or email is rejected by the unique indexes, which rolls the event back
+  @Transactional
+  public Mono<User> saveUser(User user) {
+    setCreatedOn(user);
+    return userRepository
+        .save(user)
+        .flatMap(savedUser -> userOutbox.created(List.of(savedUser)).thenReturn(savedUser))
+        .onErrorMap(DataIntegrityViolationException.class, e -> new UserDataDuplicatedException());
+  }
+
+  /**
+   * Inserts the users in one transaction. A user whose username or email already exists, in the
+   * table or earlier in the same list, is skipped. The users that were inserted get their id set,
+   * the skipped ones keep a {@code null} id.
+   */
+  public Mono<List<User>> saveUsers(List<User> users) {
+    return withoutDuplicates(users)
+        .flatMap(
+            candidates ->
+                insertAll(candidates)
+                    // A conflicting user was inserted concurrently, or the unique indexes compare
+                    // values differently than Java does. The transaction was rolled back, so insert
+                    // one by one to find out which users are the duplicated ones.
+                    .onErrorResume(
+                        DataIntegrityViolationException.class,
+                        e -> {
+                          candidates.forEach(user -> user.setId(null));
+                          return Flux.fromIterable(candidates)
+                              .concatMap(
+                                  user ->
+                                      insertAll(List.of(user))
+                                          .onErrorResume(
+                                              DataIntegrityViolationException.class,
+                                              ignored -> {
+                                                user.setId(null);
+                                                return Mono.empty();
+                                              }))
+                              .then();
+                        })
+                    .then(
+                        Mono.fromSupplier(
+                            () ->
+                                candidates.stream()
+                                    .filter(user -> user.getId() != null)
+                                    .toList())));
+  }
+
+  // Each attempt commits the users with their events, or rolls both back
+  private Mono<Void> insertAll(List<User> users) {
+    users.forEach(UserService::setCreatedOn);
+    return userRepository
+        .saveAll(users)
+        .then(userOutbox.created(users))
+        .as(transactionalOperator::transactional);
+  }
+
+  private Mono<List<User>> withoutDuplicates(List<User> users) {
+    Set<String> usernames = new HashSet<>();
+    Set<String> emails = new HashSet<>();
+    List<User> candidates = new ArrayList<>();
+    for (User user : users) {
+      if (!usernames.contains(user.getUsername()) && !emails.contains(user.getEmail())) {
+        usernames.add(user.getUsername());
+        emails.add(user.getEmail());
+        candidates.add(user);
+      }
+    }
+    if (candidates.isEmpty()) {
+      return Mono.just(candidates);
+    }
+    return Mono.zip(
+            userRepository.findExistingUsernames(usernames).collect(HashSet<String>::new, Set::add),
+            userRepository.findExistingEmails(emails).collect(HashSet<String>::new, Set::add))
+        .map(
+            existing ->
+                candidates.stream()
+                    .filter(
+                        user ->
+                            !existing.getT1().contains(user.getUsername())
+                                && !existing.getT2().contains(user.getEmail()))
+                    .toList());
+  }
+
+  /**
+   * Applies the non-null fields of the request with a single UPDATE and reads the user back in the
+   * same transaction. A request without fields is answered like a read. When {@code
+   * expectedUpdatedOn} is given, the user is only updated if it wasn't modified since then.
+   */
+  @Transactional
+  public Mono<User> updateUser(
+      Long id, UpdateUserRequest updateUserRequest, Instant expectedUpdatedOn) {
+    if (updateUserRequest.username() == null
+        && updateUserRequest.email() == null
+        && updateUserRequest.birthday() == null) {
+      return validateAndGetUserById(id)
+          .flatMap(
+              user ->
+                  expectedUpdatedOn != null && !expectedUpdatedOn.equals(user.getUpdatedOn())
+                      ? Mono.error(new UserPreconditionFailedException(id))
+                      : Mono.just(user));
+    }
+    return userRepository
+        .updateUser(
+            id,
+            updateUserRequest.username(),
+            updateUserRequest.email(),
+            updateUserRequest.birthday(),
+            expectedUpdatedOn)
+        .onErrorMap(DataIntegrityViolationException.class, e -> new UserDataDuplicatedException())
+        .flatMap(
+            updated ->
+                updated == 0
+                    ? notUpdated(id, expectedUpdatedOn)
+                    : userRepository.findById(id).switchIfEmpty(Mono.error(() -> userNotFound(id))))
+        .flatMap(user -> userOutbox.updated(user).thenReturn(user));
+  }
+
+  private Mono<User> notUpdated(Long id, Instant expectedUpdatedOn) {
+    if (expectedUpdatedOn == null) {
+      return Mono.error(userNotFound(id));
+    }
+    return userRepository
+        .existsById(id)
+        .flatMap(
+            exists ->
+                Mono.error(exists ? new UserPreconditionFailedException(id) : userNotFound(id)));
+  }
+
+  // The tombstone and the event are written in the same transaction as the delete, like in
+  // user-service, so that its change feed and outbox don't miss it
+  @Transactional
+  public Mono<Void> deleteUser(Long id) {
+    return userRepository
+        .deleteUserById(id)
+        .flatMap(
+            deleted ->
+                deleted == 0
+                    ? Mono.error(userNotFound(id))
+                    : userRepository
+                        .insertTombstone(id, Instant.now().truncatedTo(ChronoUnit.MICROS))
+                        .then(userOutbox.deleted(id)));
+  }
+
+  public Flux<UserResponse> getUsers() {
+    return userRepository.findAllResponses().limitRate(STREAM_BATCH_SIZE);
+  }
+
+  public Flux<UserResponse> getUsers(Long after, int limit) {
+    return userRepository.findResponsesByIdGreaterThan(after != null ? after : 0L, limit);
+  }
+
+  public Mono<Boolean> isUsernameAvailable(String username) {
+    return userRepository.existsByUsername(username).map(exists -> !exists);
+  }
+
+  public Mono<Boolean> isEmailAvailable(String email) {
+    return userRepository.existsByEmail(email).map(exists -> !exists);
+  }
+
+  public Mono<User> validateAndGetUserById(Long id) {
+    return userRepository.findById(id).switchIfEmpty(Mono.error(() -> userNotFound(id)));
+  }
+
+  public Mono<User> validateAndGetUserByUsername(String username) {
+    return userRepository
+        .findByUsername(username)
+        .switchIfEmpty(
+            Mono.error(
+                () ->
+                    new UserNotFoundException(
+                        "User with username '" + username + "' doesn't exist.")));
+  }
+
+  /**
+   * Returns the users with these ids in the order asked, each once, and the ids without user. They
+   * are read with one {@code IN} query per {@value #LOOKUP_CHUNK_SIZE} ids, one chunk after the
+   * other.
+   */
+  public Mono<UserLookupResponse<Long>> getUsersByIds(List<Long> ids) {
+    List<Long> distinctIds = ids.stream().distinct().toList();
+    return findInChunks(distinctIds, userRepository::findAllById, User::getId, HashMap::new)
+        .map(users -> toLookupResponse(distinctIds, users));
+  }
+
+  /**
+   * Like {@link #getUsersByIds}, for usernames. The users found are matched back to the usernames
+   * asked for with {@link UsernameCollation}, as the query matched them, and usernames that differ
+   * only in case or accents are kept once.
+   */
+  public Mono<UserLookupResponse<String>> getUsersByUsernames(List<String> usernames) {
+    Set<String> seen = UsernameCollation.newSet();
+    List<String> distinctUsernames = usernames.stream().filter(seen::add).toList();
+    return findInChunks(
+            distinctUsernames,
+            userRepository::findByUsernameIn,
+            User::getUsername,
+            UsernameCollation::newMap)
+        .map(users -> toLookupResponse(distinctUsernames, users));
+  }
+
+  private static <K> Mono<Map<K, User>> findInChunks(
+      List<K> keys,
+      Function<Collection<K>, Flux<User>> finder,
+      Function<User, K> keyOf,
+      Supplier<Map<K, User>> mapSupplier) {
+    return Flux.fromIterable(keys)
+        .buffer(LOOKUP_CHUNK_SIZE)
+        .concatMap(finder::apply)
+        .collectMap(keyOf, Function.identity(), mapSupplier);
+  }
+
+  private static <K> UserLookupResponse<K> toLookupResponse(List<K> keys, Map<K, User> users) {
+    List<UserResponse> found = new ArrayList<>(users.size());
+    List<K> missing = new ArrayList<>();
+    for (K key : keys) {
+      User user = users.get(key);
+      if (user != null) {
+        found.add(UserResponse.from(user));
+      } else {
+        missing.add(key);
+      }
+    }
+    return new UserLookupResponse<>(found, missing);
+  }
+
+  // Truncated to the column precision, so a saved user has the same timestamps as when it is read
+  // back, and so the same ETag
+  private static void setCreatedOn(User user) {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    user.setCreatedOn(now);
+    user.setUpdatedOn(now);
+  }
+
+  private static UserNotFoundException userNotFound(Long id) {
+    return new UserNotFoundException("User with id '" + id + "' doesn't exist.");
+  }
+}
@@ -0,0 +1,22 @@
+package com.ivanfranchin.userservice.reactive.user;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import reactor.core.publisher.Mono;
+
+public interface UserWriteRepository {
+
+  /**
+   * Sets the given non-null fields of the user in a single UPDATE, like user-service does: the
+   * {@code updatedOn} timestamp is only moved when one of the values actually changes, and when
+   * {@code expectedUpdatedOn} is given, the user is only updated if its {@code updatedOn} still has
+   * that value. At least one field must be non-null.
+   *
+   * @return the number of users matched, {@code 0} when the user doesn't exist or has a different
+   *     {@code updatedOn}
+   */
+  Mono<Long> updateUser(
+      Long id, String username, String email, LocalDate birthday, Instant expectedUpdatedOn);
+
+  Mono<Void> insertTombstone(Long id, Instant deletedOn);
+}
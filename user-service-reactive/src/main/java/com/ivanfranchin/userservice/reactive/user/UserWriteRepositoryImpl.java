@@ -0,0 +1,78 @@
+package com.ivanfranchin.userservice.reactive.user;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import reactor.core.publisher.Mono;
+
+// The same statements as the user-service UserUpdateRepositoryImpl and UserChangeRepositoryImpl:
+// updated_on is assigned first, since MySQL applies the assignments from left to right, and the
+// strings are compared as binary. r2dbc-mysql asks for the found rows like Connector/J does, so the
+// count is the number of matched rows here too.
+@RequiredArgsConstructor
+class UserWriteRepositoryImpl implements UserWriteRepository {
+
+  private static final String INSERT_TOMBSTONE_SQL =
+      "insert into user_tombstones (id, deleted_on) values (:id, :deletedOn)";
+
+  private final DatabaseClient databaseClient;
+
+  @Override
+  public Mono<Long> updateUser(
+      Long id, String username, String email, LocalDate birthday, Instant expectedUpdatedOn) {
+    List<String> changes = new ArrayList<>();
+    List<String> assignments = new ArrayList<>();
+    Map<String, Object> bindings = new LinkedHashMap<>();
+    if (username != null) {
+      changes.add("cast(username as binary) <> cast(:username as binary)");
+      assignments.add("username = :username");
+      bindings.put("username", username);
+    }
+    if (email != null) {
+      changes.add("cast(email as binary) <> cast(:email as binary)");
+      assignments.add("email = :email");
+      bindings.put("email", email);
+    }
+    if (birthday != null) {
+      changes.add("birthday <> :birthday");
+      assignments.add("birthday = :birthday");
+      bindings.put("birthday", birthday);
+    }
+    if (assignments.isEmpty()) {
+      return Mono.error(new IllegalArgumentException("At least one field must be informed"));
+    }
+
+    String sql =
+        "update users set updated_on = case when %s then :updatedOn else updated_on end, %s where id = :id%s"
+            .formatted(
+                String.join(" or ", changes),
+                String.join(", ", assignments),
+                expectedUpdatedOn != null ? " and updated_on = :expectedUpdatedOn" : "");
+    bindings.put("updatedOn", Instant.now().truncatedTo(ChronoUnit.MICROS));
+    bindings.put("id", id);
+    if (expectedUpdatedOn != null) {
+      bindings.put("expectedUpdatedOn", expectedUpdatedOn);
+    }
+    GenericExecuteSpec executeSpec = databaseClient.sql(sql);
+    for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+      executeSpec = executeSpec.bind(binding.getKey(), binding.getValue());
+    }
+    return executeSpec.fetch().rowsUpdated();
+  }
+
+  @Override
+  public Mono<Void> insertTombstone(Long id, Instant deletedOn) {
+    return databaseClient
+        .sql(INSERT_TOMBSTONE_SQL)
+        .bind("id", id)
+        .bind("deletedOn", deletedOn)
+        .then();
+  }
+}
@@ -0,0 +1,34 @@
+package com.ivanfranchin.userservice.reactive.user.model;
+
+import com.ivanfranchin.userservice.user.model.UpdatableUser;
+import java.time.Instant;
+import java.time.LocalDate;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+// The users table of the user-service migrations, its columns are the fields in snake case
+@Data
+@NoArgsConstructor
+@Table("users")
+public class User implements UpdatableUser {
+
+  @Id private Long id;
+
+  private String username;
+
+  private String email;
+
+  private LocalDate birthday;
+
+  private Instant createdOn;
+
+  private Instant updatedOn;
+
+  public User(String username, String email, LocalDate birthday) {
+    this.username = username;
+    this.email = email;
+    this.birthday = birthday;
+  }
+}
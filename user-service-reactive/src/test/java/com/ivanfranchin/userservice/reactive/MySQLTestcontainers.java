@@ -0,0 +1,15 @@
+package com.ivanfranchin.userservice.reactive;
+
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.mysql.MySQLContainer;
+
+// The container gives both the R2DBC connection of the application and the JDBC one of Flyway
+public interface MySQLTestcontainers {
+
+  @Container @ServiceConnection
+  MySQLContainer mySQLContainer =
+      new MySQLContainer("mysql:9.7.1")
+          .withUrlParam("characterEncoding", "UTF-8")
+          .withUrlParam("serverTimezone", "UTC");
+}
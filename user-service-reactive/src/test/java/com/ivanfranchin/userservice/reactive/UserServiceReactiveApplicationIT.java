@@ -0,0 +1,288 @@
+package com.ivanfranchin.userservice.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ivanfranchin.userservice.reactive.user.UserOutbox;
+import com.ivanfranchin.userservice.user.dto.CreateUserBatchItemResponse;
+import com.ivanfranchin.userservice.user.dto.CreateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UpdateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.testcontainers.context.ImportTestcontainers;
+import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@AutoConfigureWebTestClient
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ImportTestcontainers(MySQLTestcontainers.class)
+class UserServiceReactiveApplicationIT {
+
+  @Autowired private WebTestClient webTestClient;
+
+  @Autowired private DatabaseClient databaseClient;
+
+  @BeforeEach
+  void setUp() {
+    for (String table : List.of("users", "user_tombstones", "outbox_events")) {
+      databaseClient.sql("delete from " + table).then().block();
+    }
+  }
+
+  @Test
+  void testCreateAndGetUser() {
+    UserResponse user = createUser("ivan");
+
+    webTestClient
+        .get()
+        .uri(API_USERS_ID_URL, user.id())
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(UserResponse.class)
+        .isEqualTo(user);
+    assertThat(countOutboxEvents(UserOutbox.USER_CREATED)).isEqualTo(1);
+  }
+
+  @Test
+  void testCreateUserWhenDuplicated() {
+    createUser("ivan");
+
+    webTestClient
+        .post()
+        .uri(API_USERS_URL)
+        .bodyValue(createUserRequest("ivan"))
+        .exchange()
+        .expectStatus()
+        .isEqualTo(409)
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo(ERROR_CODE_USER_DATA_DUPLICATED);
+    assertThat(countOutboxEvents(UserOutbox.USER_CREATED)).isEqualTo(1);
+  }
+
+  @Test
+  void testGetUserByIdWhenNonExistent() {
+    webTestClient
+        .get()
+        .uri(API_USERS_ID_URL, 1L)
+        .exchange()
+        .expectStatus()
+        .isNotFound()
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo(ERROR_CODE_USER_NOT_FOUND);
+  }
+
+  @Test
+  void testGetUserByIdWhenETagMatches() {
+    UserResponse user = createUser("ivan");
+    String eTag =
+        webTestClient
+            .get()
+            .uri(API_USERS_ID_URL, user.id())
+            .exchange()
+            .returnResult(UserResponse.class)
+            .getResponseHeaders()
+            .getETag();
+
+    webTestClient
+        .get()
+        .uri(API_USERS_ID_URL, user.id())
+        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+        .exchange()
+        .expectStatus()
+        .isNotModified();
+  }
+
+  @Test
+  void testGetUsersStreamsAllTheUsers() {
+    createUsers(IntStream.range(0, 300).mapToObj(i -> createUserRequest("ivan" + i)).toList());
+
+    webTestClient
+        .get()
+        .uri(API_USERS_URL + "?stream=true")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBodyList(UserResponse.class)
+        .hasSize(300);
+  }
+
+  @Test
+  void testGetUsersPages() {
+    List<UserResponse> users =
+        createUsers(List.of(createUserRequest("ivan1"), createUserRequest("ivan2")));
+
+    webTestClient
+        .get()
+        .uri(API_USERS_URL + "?limit=1")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath("$.users[0].id")
+        .isEqualTo(users.getFirst().id().intValue())
+        .jsonPath("$.nextCursor")
+        .isEqualTo(users.getFirst().id().intValue());
+  }
+
+  @Test
+  void testGetUsersByUsernames() {
+    createUser("ivan");
+
+    webTestClient
+        .get()
+        .uri(API_USERS_URL + "?usernames=ivan,other")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath("$.users[0].username")
+        .isEqualTo("ivan")
+        .jsonPath("$.missing[0]")
+        .isEqualTo("other");
+  }
+
+  @Test
+  void testCreateUsersSkipsTheDuplicatedOnes() {
+    createUser("ivan1");
+
+    List<CreateUserBatchItemResponse> responses =
+        webTestClient
+            .post()
+            .uri(API_USERS_BATCH_URL)
+            .bodyValue(
+                List.of(
+                    createUserRequest("ivan1"),
+                    createUserRequest("ivan2"),
+                    createUserRequest("ivan2")))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(CreateUserBatchItemResponse.class)
+            .returnResult()
+            .getResponseBody();
+
+    assertThat(responses)
+        .extracting(CreateUserBatchItemResponse::status)
+        .containsExactly(409, 201, 409);
+    assertThat(countOutboxEvents(UserOutbox.USER_CREATED)).isEqualTo(2);
+  }
+
+  @Test
+  void testUpdateUserWithIfMatch() {
+    UserResponse user = createUser("ivan");
+    String eTag =
+        webTestClient
+            .get()
+            .uri(API_USERS_ID_URL, user.id())
+            .exchange()
+            .returnResult(UserResponse.class)
+            .getResponseHeaders()
+            .getETag();
+
+    // A case-only rename is a change, so it moves the ETag and the stale one no longer matches
+    webTestClient
+        .patch()
+        .uri(API_USERS_ID_URL, user.id())
+        .header(HttpHeaders.IF_MATCH, eTag)
+        .bodyValue(new UpdateUserRequest("Ivan", null, null))
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath("$.username")
+        .isEqualTo("Ivan");
+    webTestClient
+        .patch()
+        .uri(API_USERS_ID_URL, user.id())
+        .header(HttpHeaders.IF_MATCH, eTag)
+        .bodyValue(new UpdateUserRequest("ivan", null, null))
+        .exchange()
+        .expectStatus()
+        .isEqualTo(412)
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo(ERROR_CODE_USER_PRECONDITION_FAILED);
+    assertThat(countOutboxEvents(UserOutbox.USER_UPDATED)).isEqualTo(1);
+  }
+
+  @Test
+  void testDeleteUser() {
+    UserResponse user = createUser("ivan");
+
+    webTestClient.delete().uri(API_USERS_ID_URL, user.id()).exchange().expectStatus().isNoContent();
+    webTestClient.delete().uri(API_USERS_ID_URL, user.id()).exchange().expectStatus().isNotFound();
+
+    Long tombstones =
+        databaseClient
+            .sql("select count(*) from user_tombstones where id = :id")
+            .bind("id", user.id())
+            .mapValue(Long.class)
+            .one()
+            .block();
+    assertThat(tombstones).isEqualTo(1);
+    assertThat(countOutboxEvents(UserOutbox.USER_DELETED)).isEqualTo(1);
+  }
+
+  private UserResponse createUser(String username) {
+    return webTestClient
+        .post()
+        .uri(API_USERS_URL)
+        .bodyValue(createUserRequest(username))
+        .exchange()
+        .expectStatus()
+        .isCreated()
+        .expectBody(UserResponse.class)
+        .returnResult()
+        .getResponseBody();
+  }
+
+  private List<UserResponse> createUsers(List<CreateUserRequest> createUserRequests) {
+    return webTestClient
+        .post()
+        .uri(API_USERS_BATCH_URL)
+        .bodyValue(createUserRequests)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBodyList(CreateUserBatchItemResponse.class)
+        .returnResult()
+        .getResponseBody()
+        .stream()
+        .map(CreateUserBatchItemResponse::user)
+        .toList();
+  }
+
+  private long countOutboxEvents(String type) {
+    return databaseClient
+        .sql("select count(*) from outbox_events where type = :type")
+        .bind("type", type)
+        .mapValue(Long.class)
+        .one()
+        .block();
+  }
+
+  private static CreateUserRequest createUserRequest(String username) {
+    return new CreateUserRequest(username, username + "@test", LocalDate.parse("2018-01-01"));
+  }
+
+  private static final String API_USERS_URL = "/api/users";
+  private static final String API_USERS_ID_URL = "/api/users/{id}";
+  private static final String API_USERS_BATCH_URL = "/api/users/batch";
+
+  private static final String JSON_$_ERROR_CODE = "$.errorCode";
+
+  private static final String ERROR_CODE_USER_NOT_FOUND = "UserNotFound";
+  private static final String ERROR_CODE_USER_DATA_DUPLICATED = "UserDataDuplicated";
+  private static final String ERROR_CODE_USER_PRECONDITION_FAILED = "UserPreconditionFailed";
+}
@@ -0,0 +1,533 @@
+package com.ivanfranchin.userservice.reactive.controller;
+
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.ivanfranchin.userservice.reactive.config.ErrorAttributesConfig;
+import com.ivanfranchin.userservice.reactive.user.UserController;
+import com.ivanfranchin.userservice.reactive.user.UserService;
+import com.ivanfranchin.userservice.reactive.user.model.User;
+import com.ivanfranchin.userservice.user.dto.CreateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UpdateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UserLookupResponse;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.exception.UserDataDuplicatedException;
+import com.ivanfranchin.userservice.user.exception.UserNotFoundException;
+import com.ivanfranchin.userservice.user.exception.UserPreconditionFailedException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webflux.test.autoconfigure.WebFluxTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@WebFluxTest(UserController.class)
+@Import(ErrorAttributesConfig.class)
+class UserControllerTests {
+
+  @Autowired private WebTestClient webTestClient;
+
+  @MockitoBean private UserService userService;
+
+  @Test
+  void testGetUsersWhenThereIsNone() {
+    given(userService.getUsers()).willReturn(Flux.empty());
+
+    webTestClient
+        .get()
+        .uri(API_USERS_URL)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .contentType(MediaType.APPLICATION_JSON)
+        .expectBody()
+        .jsonPath(JSON_$)
+        .isArray()
+        .jsonPath(JSON_$)
+        .isEmpty();
+  }
+
+  @Test
+  void testGetUsersWhenThereIsOne() {
+    User user = getDefaultUser();
+    given(userService.getUsers()).willReturn(Flux.just(UserResponse.from(user)));
+
+    webTestClient
+        .get()
+        .uri(API_USERS_URL)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath(JSON_$_0_ID)
+        .isEqualTo(user.getId().intValue())
+        .jsonPath(JSON_$_0_USERNAME)
+        .isEqualTo(user.getUsername())
+        .jsonPath(JSON_$_0_EMAIL)
+        .isEqualTo(user.getEmail())
+        .jsonPath(JSON_$_0_BIRTHDAY)
+        .isEqualTo(user.getBirthday().format(ISO_LOCAL_DATE));
+  }
+
+  @Test
+  void testGetUsersPageWhenThereIsNextPage() {
+    User user1 = getDefaultUser();
+    User user2 = new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02"));
+    user2.setId(2L);
+    given(userService.getUsers(isNull(), eq(2)))
+        .willReturn(Flux.just(UserResponse.from(user1), UserResponse.from(user2)));
+
+    webTestClient
+        .get()
+        .uri(API_USERS_URL + "?limit=1")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath(JSON_$_USERS + ".length()")
+        .isEqualTo(1)
+        .jsonPath(JSON_$_USERS_0_ID)
+        .isEqualTo(user1.getId().intValue())
+        .jsonPath(JSON_$_NEXT_CURSOR)
+        .isEqualTo(user1.getId().intValue());
+  }
+
+  @Test
+  void testGetUsersPageWhenItIsTheLastPage() {
+    User user = getDefaultUser();
+    given(userService.getUsers(eq(0L), eq(3))).willReturn(Flux.just(UserResponse.from(user)));
+
+    webTestClient
+        .get()
+        .uri(API_USERS_URL + "?limit=2&after=0")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath(JSON_$_USERS_0_ID)
+        .isEqualTo(user.getId().intValue())
+        .jsonPath(JSON_$_NEXT_CURSOR)
+        .doesNotExist();
+  }
+
+  @Test
+  void testGetUsersPageWithLimitTooLarge() {
+    webTestClient
+        .get()
+        .uri(API_USERS_URL + "?limit=1001")
+        .exchange()
+        .expectStatus()
+        .isBadRequest()
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo("BadRequest");
+  }
+
+  @Test
+  void testGetUserByUsername() {
+    User user = getDefaultUser();
+    given(userService.validateAndGetUserByUsername(user.getUsername())).willReturn(Mono.just(user));
+
+    webTestClient
+        .get()
+        .uri(API_USERS_URL + "?username=" + user.getUsername())
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath(JSON_$_0_ID)
+        .isEqualTo(user.getId().intValue());
+  }
+
+  @Test
+  void testGetUserByUsernameWhenNonExistent() {
+    given(userService.validateAndGetUserByUsername("ivan"))
+        .willReturn(
+            Mono.error(new UserNotFoundException("User with username 'ivan' doesn't exist.")));
+
+    webTestClient
+        .get()
+        .uri(API_USERS_URL + "?username=ivan")
+        .exchange()
+        .expectStatus()
+        .isNotFound()
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo("UserNotFound")
+        .jsonPath(JSON_$_MESSAGE)
+        .isEqualTo("User with username 'ivan' doesn't exist.");
+  }
+
+  @Test
+  void testGetUsersByIds() {
+    User user = getDefaultUser();
+    given(userService.getUsersByIds(List.of(1L, 2L)))
+        .willReturn(
+            Mono.just(new UserLookupResponse<>(List.of(UserResponse.from(user)), List.of(2L))));
+
+    webTestClient
+        .get()
+        .uri(API_USERS_URL + "?ids=1,2")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath(JSON_$_USERS_0_ID)
+        .isEqualTo(user.getId().intValue())
+        .jsonPath(JSON_$_MISSING_0)
+        .isEqualTo(2);
+  }
+
+  @Test
+  void testGetUsersByIdsAndLimit() {
+    webTestClient
+        .get()
+        .uri(API_USERS_URL + "?ids=1&limit=5")
+        .exchange()
+        .expectStatus()
+        .isBadRequest()
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo("BadRequest");
+    verify(userService, never()).getUsersByIds(anyList());
+    verify(userService, never()).getUsers(any(), anyInt());
+  }
+
+  @Test
+  void testGetAvailability() {
+    given(userService.isUsernameAvailable("ivan")).willReturn(Mono.just(false));
+
+    webTestClient
+        .get()
+        .uri(API_USERS_AVAILABILITY_URL + "?username=ivan")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath(JSON_$_USERNAME_AVAILABLE)
+        .isEqualTo(false)
+        .jsonPath(JSON_$_EMAIL_AVAILABLE)
+        .doesNotExist();
+  }
+
+  @Test
+  void testGetAvailabilityWithoutUsernameNorEmail() {
+    webTestClient
+        .get()
+        .uri(API_USERS_AVAILABILITY_URL)
+        .exchange()
+        .expectStatus()
+        .isBadRequest()
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo("BadRequest");
+  }
+
+  @Test
+  void testGetUserById() {
+    User user = getDefaultUser();
+    given(userService.validateAndGetUserById(user.getId())).willReturn(Mono.just(user));
+
+    webTestClient
+        .get()
+        .uri(API_USERS_ID_URL, user.getId())
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .valueEquals(HttpHeaders.ETAG, DEFAULT_ETAG)
+        .expectBody()
+        .jsonPath(JSON_$_ID)
+        .isEqualTo(user.getId().intValue())
+        .jsonPath(JSON_$_USERNAME)
+        .isEqualTo(user.getUsername());
+  }
+
+  @Test
+  void testGetUserByIdWhenETagMatches() {
+    User user = getDefaultUser();
+    given(userService.validateAndGetUserById(user.getId())).willReturn(Mono.just(user));
+
+    webTestClient
+        .get()
+        .uri(API_USERS_ID_URL, user.getId())
+        .header(HttpHeaders.IF_NONE_MATCH, DEFAULT_ETAG)
+        .exchange()
+        .expectStatus()
+        .isNotModified()
+        .expectBody()
+        .isEmpty();
+  }
+
+  @Test
+  void testGetUserByIdWhenNonExistent() {
+    given(userService.validateAndGetUserById(1L))
+        .willReturn(Mono.error(new UserNotFoundException("User with id '1' doesn't exist.")));
+
+    webTestClient
+        .get()
+        .uri(API_USERS_ID_URL, 1L)
+        .exchange()
+        .expectStatus()
+        .isNotFound()
+        .expectBody()
+        .jsonPath(JSON_$_STATUS)
+        .isEqualTo(404)
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo("UserNotFound");
+  }
+
+  @Test
+  void testCreateUser() {
+    User user = getDefaultUser();
+    given(userService.saveUser(any(User.class))).willReturn(Mono.just(user));
+
+    webTestClient
+        .post()
+        .uri(API_USERS_URL)
+        .bodyValue(getDefaultCreateUserRequest())
+        .exchange()
+        .expectStatus()
+        .isCreated()
+        .expectBody()
+        .jsonPath(JSON_$_ID)
+        .isEqualTo(user.getId().intValue())
+        .jsonPath(JSON_$_BIRTHDAY)
+        .isEqualTo(user.getBirthday().format(ISO_LOCAL_DATE));
+  }
+
+  @Test
+  void testCreateUserWhenDuplicated() {
+    given(userService.saveUser(any(User.class)))
+        .willReturn(Mono.error(new UserDataDuplicatedException()));
+
+    webTestClient
+        .post()
+        .uri(API_USERS_URL)
+        .bodyValue(getDefaultCreateUserRequest())
+        .exchange()
+        .expectStatus()
+        .isEqualTo(409)
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo("UserDataDuplicated");
+  }
+
+  @Test
+  void testCreateUserWithInvalidRequest() {
+    webTestClient
+        .post()
+        .uri(API_USERS_URL)
+        .bodyValue(new CreateUserRequest("", "ivan", LocalDate.parse("2018-01-01")))
+        .exchange()
+        .expectStatus()
+        .isBadRequest()
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo("BadRequest");
+
+    verify(userService, never()).saveUser(any(User.class));
+  }
+
+  @Test
+  void testCreateUsersReturnsOneResultPerItem() {
+    given(userService.saveUsers(anyList()))
+        .willAnswer(
+            invocation -> {
+              List<User> users = invocation.getArgument(0);
+              users.getFirst().setId(1L);
+              return Mono.just(List.of(users.getFirst()));
+            });
+
+    webTestClient
+        .post()
+        .uri(API_USERS_BATCH_URL)
+        .bodyValue(
+            List.of(
+                getDefaultCreateUserRequest(),
+                new CreateUserRequest("", "ivan2@test", LocalDate.parse("2018-01-01")),
+                new CreateUserRequest("ivan3", "ivan3@test", LocalDate.parse("2018-01-01"))))
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath("$[0].status")
+        .isEqualTo(201)
+        .jsonPath("$[0].user.id")
+        .isEqualTo(1)
+        .jsonPath("$[1].status")
+        .isEqualTo(400)
+        .jsonPath("$[1].errorCode")
+        .isEqualTo("BadRequest")
+        .jsonPath("$[2].status")
+        .isEqualTo(409)
+        .jsonPath("$[2].errorCode")
+        .isEqualTo("UserDataDuplicated");
+  }
+
+  @Test
+  void testUpdateUser() {
+    User user = getDefaultUser();
+    user.setUsername("ivan2");
+    UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", null, null);
+    given(userService.updateUser(eq(1L), eq(updateUserRequest), isNull()))
+        .willReturn(Mono.just(user));
+
+    webTestClient
+        .patch()
+        .uri(API_USERS_ID_URL, 1L)
+        .bodyValue(updateUserRequest)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .valueEquals(HttpHeaders.ETAG, DEFAULT_ETAG)
+        .expectBody()
+        .jsonPath(JSON_$_USERNAME)
+        .isEqualTo("ivan2");
+  }
+
+  @Test
+  void testUpdateUserWithIfMatch() {
+    User user = getDefaultUser();
+    UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", null, null);
+    given(userService.updateUser(1L, updateUserRequest, DEFAULT_UPDATED_ON))
+        .willReturn(Mono.error(new UserPreconditionFailedException(1L)));
+
+    webTestClient
+        .patch()
+        .uri(API_USERS_ID_URL, 1L)
+        .header(HttpHeaders.IF_MATCH, DEFAULT_ETAG)
+        .bodyValue(updateUserRequest)
+        .exchange()
+        .expectStatus()
+        .isEqualTo(412)
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo("UserPreconditionFailed");
+  }
+
+  @Test
+  void testUpdateUserWithWildcardIfMatchWhenUserNotExistent() {
+    UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", null, null);
+    given(userService.updateUser(1L, updateUserRequest, null))
+        .willReturn(Mono.error(new UserNotFoundException("User with id '1' doesn't exist.")));
+
+    webTestClient
+        .patch()
+        .uri(API_USERS_ID_URL, 1L)
+        .header(HttpHeaders.IF_MATCH, "*")
+        .bodyValue(updateUserRequest)
+        .exchange()
+        .expectStatus()
+        .isEqualTo(412)
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo("UserPreconditionFailed");
+  }
+
+  @Test
+  void testUpdateUserWithIfMatchOfAnotherUser() {
+    webTestClient
+        .patch()
+        .uri(API_USERS_ID_URL, 2L)
+        .header(HttpHeaders.IF_MATCH, DEFAULT_ETAG)
+        .bodyValue(new UpdateUserRequest("ivan2", null, null))
+        .exchange()
+        .expectStatus()
+        .isEqualTo(412)
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo("UserPreconditionFailed");
+
+    verify(userService, never()).updateUser(any(), any(), any());
+  }
+
+  @Test
+  void testDeleteUser() {
+    given(userService.deleteUser(1L)).willReturn(Mono.empty());
+
+    webTestClient
+        .delete()
+        .uri(API_USERS_ID_URL, 1L)
+        .exchange()
+        .expectStatus()
+        .isNoContent()
+        .expectBody()
+        .isEmpty();
+  }
+
+  @Test
+  void testDeleteUserWhenNonExistent() {
+    given(userService.deleteUser(1L))
+        .willReturn(Mono.error(new UserNotFoundException("User with id '1' doesn't exist.")));
+
+    webTestClient
+        .delete()
+        .uri(API_USERS_ID_URL, 1L)
+        .exchange()
+        .expectStatus()
+        .isNotFound()
+        .expectBody()
+        .jsonPath(JSON_$_ERROR_CODE)
+        .isEqualTo("UserNotFound");
+  }
+
+  private static User getDefaultUser() {
+    User user = new User("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
+    user.setId(1L);
+    user.setCreatedOn(DEFAULT_UPDATED_ON);
+    user.setUpdatedOn(DEFAULT_UPDATED_ON);
+    return user;
+  }
+
+  private static CreateUserRequest getDefaultCreateUserRequest() {
+    return new CreateUserRequest("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
+  }
+
+  private static final Instant DEFAULT_UPDATED_ON = Instant.parse("2024-01-01T10:00:00.123456Z");
+  private static final String DEFAULT_ETAG = "\"1-1704103200123456\"";
+
+  private static final String API_USERS_URL = "/api/users";
+  private static final String API_USERS_ID_URL = "/api/users/{id}";
+  private static final String API_USERS_BATCH_URL = "/api/users/batch";
+  private static final String API_USERS_AVAILABILITY_URL = "/api/users/availability";
+
+  private static final String JSON_$ = "$";
+
+  private static final String JSON_$_ID = "$.id";
+  private static final String JSON_$_USERNAME = "$.username";
+  private static final String JSON_$_BIRTHDAY = "$.birthday";
+
+  private static final String JSON_$_0_ID = "$[0].id";
+  private static final String JSON_$_0_USERNAME = "$[0].username";
+  private static final String JSON_$_0_EMAIL = "$[0].email";
+  private static final String JSON_$_0_BIRTHDAY = "$[0].birthday";
+
+  private static final String JSON_$_USERS = "$.users";
+  private static final String JSON_$_USERS_0_ID = "$.users[0].id";
+  private static final String JSON_$_NEXT_CURSOR = "$.nextCursor";
+  private static final String JSON_$_MISSING_0 = "$.missing[0]";
+
+  private static final String JSON_$_USERNAME_AVAILABLE = "$.usernameAvailable";
+  private static final String JSON_$_EMAIL_AVAILABLE = "$.emailAvailable";
+
+  private static final String JSON_$_STATUS = "$.status";
+  private static final String JSON_$_MESSAGE = "$.message";
+  private static final String JSON_$_ERROR_CODE = "$.errorCode";
+}
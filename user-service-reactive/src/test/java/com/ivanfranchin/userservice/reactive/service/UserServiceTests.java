@@ -0,0 +1,255 @@
+package com.ivanfranchin.userservice.reactive.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.ivanfranchin.userservice.reactive.user.UserOutbox;
+import com.ivanfranchin.userservice.reactive.user.UserRepository;
+import com.ivanfranchin.userservice.reactive.user.UserService;
+import com.ivanfranchin.userservice.reactive.user.model.User;
+import com.ivanfranchin.userservice.user.dto.UpdateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.exception.UserDataDuplicatedException;
+import com.ivanfranchin.userservice.user.exception.UserNotFoundException;
+import com.ivanfranchin.userservice.user.exception.UserPreconditionFailedException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+@Import(UserService.class)
+class UserServiceTests {
+
+  @Autowired private UserService userService;
+
+  @MockitoBean private UserRepository userRepository;
+
+  @MockitoBean private UserOutbox userOutbox;
+
+  @MockitoBean private TransactionalOperator transactionalOperator;
+
+  @BeforeEach
+  void setUp() {
+    willAnswer(invocation -> invocation.getArgument(0))
+        .given(transactionalOperator)
+        .transactional(any(Mono.class));
+    given(userOutbox.created(anyList())).willReturn(Mono.empty());
+    given(userOutbox.updated(any(User.class))).willReturn(Mono.empty());
+    given(userOutbox.deleted(anyLong())).willReturn(Mono.empty());
+  }
+
+  @Test
+  void testSaveUser() {
+    User user = getDefaultUser();
+    given(userRepository.save(user)).willReturn(Mono.just(user));
+
+    StepVerifier.create(userService.saveUser(user)).expectNext(user).verifyComplete();
+
+    assertThat(user.getCreatedOn()).isNotNull().isEqualTo(user.getUpdatedOn());
+    verify(userOutbox).created(List.of(user));
+  }
+
+  @Test
+  void testSaveUserWhenDuplicated() {
+    User user = getDefaultUser();
+    given(userRepository.save(user))
+        .willReturn(Mono.error(new DataIntegrityViolationException("Duplicate entry")));
+
+    StepVerifier.create(userService.saveUser(user))
+        .expectError(UserDataDuplicatedException.class)
+        .verify();
+  }
+
+  @Test
+  void testSaveUsersSkipsTheExistingAndRepeatedOnes() {
+    User user1 = new User("ivan1", "ivan1@test", LocalDate.parse("2018-01-01"));
+    User user2 = new User("ivan2", "ivan2@test", LocalDate.parse("2018-01-01"));
+    User user3 = new User("ivan1", "ivan3@test", LocalDate.parse("2018-01-01"));
+    given(userRepository.findExistingUsernames(anyCollection())).willReturn(Flux.just("ivan2"));
+    given(userRepository.findExistingEmails(anyCollection())).willReturn(Flux.empty());
+    given(userRepository.saveAll(anyList())).willAnswer(invocation -> saveAll(invocation));
+
+    StepVerifier.create(userService.saveUsers(List.of(user1, user2, user3)))
+        .expectNext(List.of(user1))
+        .verifyComplete();
+
+    assertThat(user1.getId()).isNotNull();
+    assertThat(user2.getId()).isNull();
+    assertThat(user3.getId()).isNull();
+  }
+
+  @Test
+  void testSaveUsersInsertsOneByOneWhenTheBatchConflicts() {
+    User user1 = new User("ivan1", "ivan1@test", LocalDate.parse("2018-01-01"));
+    User user2 = new User("ivan2", "ivan2@test", LocalDate.parse("2018-01-01"));
+    given(userRepository.findExistingUsernames(anyCollection())).willReturn(Flux.empty());
+    given(userRepository.findExistingEmails(anyCollection())).willReturn(Flux.empty());
+    given(userRepository.saveAll(anyList()))
+        .willAnswer(
+            invocation -> {
+              List<User> users = invocation.getArgument(0);
+              // user2 was inserted concurrently, after the existence check
+              return users.contains(user2)
+                  ? saveAll(invocation)
+                      .concatWith(Mono.error(new DataIntegrityViolationException("Duplicate")))
+                  : saveAll(invocation);
+            });
+
+    StepVerifier.create(userService.saveUsers(List.of(user1, user2)))
+        .expectNext(List.of(user1))
+        .verifyComplete();
+
+    assertThat(user2.getId()).isNull();
+    verify(userRepository, times(3)).saveAll(anyList());
+  }
+
+  @Test
+  void testUpdateUser() {
+    User user = getDefaultUser();
+    UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", null, null);
+    given(userRepository.updateUser(1L, "ivan2", null, null, null)).willReturn(Mono.just(1L));
+    given(userRepository.findById(1L)).willReturn(Mono.just(user));
+
+    StepVerifier.create(userService.updateUser(1L, updateUserRequest, null))
+        .expectNext(user)
+        .verifyComplete();
+
+    verify(userOutbox).updated(user);
+  }
+
+  @Test
+  void testUpdateUserWhenNonExistent() {
+    given(userRepository.updateUser(1L, "ivan2", null, null, null)).willReturn(Mono.just(0L));
+
+    StepVerifier.create(
+            userService.updateUser(1L, new UpdateUserRequest("ivan2", null, null), null))
+        .expectError(UserNotFoundException.class)
+        .verify();
+  }
+
+  @Test
+  void testUpdateUserWhenModifiedSinceExpectedUpdatedOn() {
+    Instant expectedUpdatedOn = Instant.parse("2024-01-01T10:00:00Z");
+    given(userRepository.updateUser(1L, "ivan2", null, null, expectedUpdatedOn))
+        .willReturn(Mono.just(0L));
+    given(userRepository.existsById(1L)).willReturn(Mono.just(true));
+
+    StepVerifier.create(
+            userService.updateUser(
+                1L, new UpdateUserRequest("ivan2", null, null), expectedUpdatedOn))
+        .expectError(UserPreconditionFailedException.class)
+        .verify();
+
+    verify(userOutbox, never()).updated(any(User.class));
+  }
+
+  @Test
+  void testUpdateUserWithoutFieldsIsARead() {
+    User user = getDefaultUser();
+    given(userRepository.findById(1L)).willReturn(Mono.just(user));
+
+    StepVerifier.create(userService.updateUser(1L, new UpdateUserRequest(null, null, null), null))
+        .expectNext(user)
+        .verifyComplete();
+
+    verify(userRepository, never()).updateUser(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void testDeleteUser() {
+    given(userRepository.deleteUserById(1L)).willReturn(Mono.just(1L));
+    given(userRepository.insertTombstone(eq(1L), any(Instant.class))).willReturn(Mono.empty());
+
+    StepVerifier.create(userService.deleteUser(1L)).verifyComplete();
+
+    verify(userRepository).insertTombstone(eq(1L), any(Instant.class));
+    verify(userOutbox).deleted(1L);
+  }
+
+  @Test
+  void testDeleteUserWhenNonExistent() {
+    given(userRepository.deleteUserById(1L)).willReturn(Mono.just(0L));
+
+    StepVerifier.create(userService.deleteUser(1L))
+        .expectError(UserNotFoundException.class)
+        .verify();
+
+    verify(userOutbox, never()).deleted(anyLong());
+  }
+
+  @Test
+  void testGetUsersByIdsReadsInChunksAndListsTheMissingOnes() {
+    List<Long> ids = LongStream.rangeClosed(1, 600).boxed().toList();
+    given(userRepository.findAllById(anyCollection()))
+        .willAnswer(
+            invocation ->
+                Flux.fromIterable(invocation.<Collection<Long>>getArgument(0))
+                    .filter(id -> id != 600L)
+                    .map(UserServiceTests::getUser));
+
+    StepVerifier.create(userService.getUsersByIds(ids))
+        .assertNext(
+            result -> {
+              assertThat(result.users()).hasSize(599);
+              assertThat(result.users().getFirst()).isEqualTo(UserResponse.from(getUser(1L)));
+              assertThat(result.missing()).containsExactly(600L);
+            })
+        .verifyComplete();
+
+    verify(userRepository, times(2)).findAllById(anyCollection());
+  }
+
+  @Test
+  void testGetUsersByUsernamesMatchesUsersFoundUnderTheCollation() {
+    User user = getDefaultUser();
+    given(userRepository.findByUsernameIn(List.of("IVAN1", "ivan2"))).willReturn(Flux.just(user));
+
+    StepVerifier.create(userService.getUsersByUsernames(List.of("IVAN1", "ivan2", "Ívan1")))
+        .assertNext(
+            result -> {
+              assertThat(result.users()).containsExactly(UserResponse.from(user));
+              assertThat(result.missing()).containsExactly("ivan2");
+            })
+        .verifyComplete();
+  }
+
+  private static Flux<User> saveAll(InvocationOnMock invocation) {
+    List<User> users = invocation.getArgument(0);
+    return Flux.fromIterable(users)
+        .doOnNext(user -> user.setId((long) user.getUsername().hashCode()));
+  }
+
+  private static User getDefaultUser() {
+    return getUser(1L);
+  }
+
+  private static User getUser(Long id) {
+    User user = new User("ivan" + id, "ivan" + id + "@test", LocalDate.parse("2018-01-01"));
+    user.setId(id);
+    return user;
+  }
+}
@@ -0,0 +1,45 @@
+package com.ivanfranchin.userservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Active unless {@code app.concurrency-limit.enabled=false}. Puts a {@link
+ * ConcurrencyLimitInterceptor} in front of {@code /api/users}, so that when MySQL slows down the
+ * requests over the limit are rejected right away instead of waiting for a Tomcat thread and a
+ * connection, and making every other request wait longer.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", matchIfMissing = true)
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfig {
+
+  @Bean
+  ConcurrencyLimitInterceptor concurrencyLimitInterceptor(
+      ConcurrencyLimitProperties concurrencyLimitProperties, MeterRegistry meterRegistry) {
+    ConcurrencyLimiter readLimiter = new ConcurrencyLimiter("read", concurrencyLimitProperties);
+    ConcurrencyLimiter writeLimiter = new ConcurrencyLimiter("write", concurrencyLimitProperties);
+    readLimiter.bindTo(meterRegistry);
+    writeLimiter.bindTo(meterRegistry);
+    return new ConcurrencyLimitInterceptor(
+        readLimiter, writeLimiter, concurrencyLimitProperties.retryAfter());
+  }
+
+  @Bean
+  WebMvcConfigurer concurrencyLimitConfigurer(
+      ConcurrencyLimitInterceptor concurrencyLimitInterceptor) {
+    return new WebMvcConfigurer() {
+      @Override
+      public void addInterceptors(InterceptorRegistry registry) {
+        registry
+            .addInterceptor(concurrencyLimitInterceptor)
+            .addPathPatterns("/api/users", "/api/users/**");
+      }
+    };
+  }
+}
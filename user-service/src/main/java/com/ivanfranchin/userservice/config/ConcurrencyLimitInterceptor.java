@@ -0,0 +1,92 @@
+package com.ivanfranchin.userservice.config;
+
+import com.ivanfranchin.userservice.user.exception.ConcurrencyLimitExceededException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.Set;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Rejects a request of {@code /api/users} with a 503 and a {@code Retry-After} when the {@link
+ * ConcurrencyLimiter} of its kind is full, before it takes a connection. Reads and writes have a
+ * limiter each, so slow writes, e.g. waiting for row locks, don't take the place of the reads, and
+ * the other way round. A request that ends with a server error counts as failed.
+ *
+ * <p>A streamed response keeps its slot until it is written, as it holds a connection all along,
+ * but its latency isn't measured.
+ */
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+  private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName();
+
+  private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+  private final ConcurrencyLimiter readLimiter;
+  private final ConcurrencyLimiter writeLimiter;
+  private final String retryAfterSeconds;
+
+  public ConcurrencyLimitInterceptor(
+      ConcurrencyLimiter readLimiter, ConcurrencyLimiter writeLimiter, Duration retryAfter) {
+    this.readLimiter = readLimiter;
+    this.writeLimiter = writeLimiter;
+    this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+  }
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    // The async dispatch of a stream already has the slot of its first dispatch
+    if (request.getDispatcherType() == DispatcherType.ASYNC) {
+      return true;
+    }
+    ConcurrencyLimiter limiter =
+        READ_METHODS.contains(request.getMethod()) ? readLimiter : writeLimiter;
+    if (!limiter.tryAcquire()) {
+      response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+      throw new ConcurrencyLimitExceededException(limiter.getOperation());
+    }
+    request.setAttribute(PERMIT_ATTRIBUTE, new Permit(limiter, System.nanoTime()));
+    return true;
+  }
+
+  @Override
+  public void afterConcurrentHandlingStarted(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+      permit.async = true;
+    }
+  }
+
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    if (!(request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit)) {
+      return;
+    }
+    // Only the last dispatch of an async request gives the slot back
+    if (permit.async && request.getDispatcherType() != DispatcherType.ASYNC) {
+      return;
+    }
+    request.removeAttribute(PERMIT_ATTRIBUTE);
+    if (permit.async) {
+      permit.limiter.release();
+    } else {
+      boolean failed = ex != null || response.getStatus() >= 500;
+      permit.limiter.release(System.nanoTime() - permit.startNanos, failed);
+    }
+  }
+
+  private static class Permit {
+    private final ConcurrencyLimiter limiter;
+    private final long startNanos;
+    private boolean async;
+
+    Permit(ConcurrencyLimiter limiter, long startNanos) {
+      this.limiter = limiter;
+      this.startNanos = startNanos;
+    }
+  }
+}
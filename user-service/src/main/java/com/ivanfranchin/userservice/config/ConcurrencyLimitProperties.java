@@ -0,0 +1,27 @@
+package com.ivanfranchin.userservice.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Adaptive limits on the requests of {@code /api/users} in progress at once, one for the reads and
+ * one for the writes.
+ *
+ * @param enabled whether requests over the limit are rejected
+ * @param initialLimit limit until enough requests have been measured
+ * @param minLimit the limit never goes below this, so a slow database still gets some requests
+ * @param maxLimit the limit never goes above this, e.g. the Tomcat threads
+ * @param tolerance how much slower than usual requests can get before the limit goes down
+ * @param smoothing how far the limit moves towards its new value on each request, from 0 to 1
+ * @param retryAfter the {@code Retry-After} of the rejected requests
+ */
+@ConfigurationProperties("app.concurrency-limit")
+public record ConcurrencyLimitProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("20") int initialLimit,
+    @DefaultValue("4") int minLimit,
+    @DefaultValue("200") int maxLimit,
+    @DefaultValue("1.5") double tolerance,
+    @DefaultValue("0.2") double smoothing,
+    @DefaultValue("1s") Duration retryAfter) {}
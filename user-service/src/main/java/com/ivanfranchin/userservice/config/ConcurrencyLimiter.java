@@ -0,0 +1,121 @@
+package com.ivanfranchin.userservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets at most {@link #getLimit()} requests run at once and moves that limit with their latency.
+ *
+ * <p>Two averages of the latency are kept: a short one, of the last requests, and a long one, of
+ * what is usual. While the short one stays within the tolerance of the long one, the limit grows by
+ * about its square root, so that a few requests queue at the database and the limit keeps probing
+ * for more throughput. When the short one goes above, the database is queueing more than that, and
+ * the limit goes down in proportion, by up to half. A failed request takes a tenth off the limit.
+ * The limit doesn't grow while less than half of it is used, since the latency then says nothing
+ * about a higher concurrency.
+ */
+public class ConcurrencyLimiter {
+
+  private static final double SHORT_RTT_WEIGHT = 0.1;
+  private static final double LONG_RTT_WEIGHT = 0.01;
+  private static final double MIN_GRADIENT = 0.5;
+  private static final double FAILURE_BACKOFF = 0.9;
+
+  private final String operation;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double tolerance;
+  private final double smoothing;
+  private final AtomicInteger inflight = new AtomicInteger();
+  private volatile double limit;
+  private double shortRtt;
+  private double longRtt;
+  private Counter shedCounter;
+
+  public ConcurrencyLimiter(String operation, ConcurrencyLimitProperties properties) {
+    this.operation = operation;
+    this.minLimit = properties.minLimit();
+    this.maxLimit = properties.maxLimit();
+    this.tolerance = properties.tolerance();
+    this.smoothing = properties.smoothing();
+    this.limit = Math.clamp(properties.initialLimit(), minLimit, maxLimit);
+  }
+
+  public String getOperation() {
+    return operation;
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public int getInflight() {
+    return inflight.get();
+  }
+
+  /** Takes a slot if fewer than the limit are taken, to be given back with a {@code release}. */
+  public boolean tryAcquire() {
+    int current;
+    do {
+      current = inflight.get();
+      if (current >= (int) limit) {
+        if (shedCounter != null) {
+          shedCounter.increment();
+        }
+        return false;
+      }
+    } while (!inflight.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  /** Gives back a slot and moves the limit with the latency of its request. */
+  public void release(long rttNanos, boolean failed) {
+    update(rttNanos, failed, inflight.getAndDecrement());
+  }
+
+  /** Gives back a slot without measuring its request, e.g. a long-running stream. */
+  public void release() {
+    inflight.decrementAndGet();
+  }
+
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("http.server.concurrency.limit", this, ConcurrencyLimiter::getLimit)
+        .description("Requests of /api/users allowed in progress at once")
+        .tag("operation", operation)
+        .register(registry);
+    Gauge.builder("http.server.concurrency.inflight", this, ConcurrencyLimiter::getInflight)
+        .description("Requests of /api/users in progress")
+        .tag("operation", operation)
+        .register(registry);
+    shedCounter =
+        Counter.builder("http.server.concurrency.shed")
+            .description("Requests of /api/users rejected for being over the limit")
+            .tag("operation", operation)
+            .register(registry);
+  }
+
+  private synchronized void update(long rttNanos, boolean failed, int inflight) {
+    if (failed) {
+      limit = Math.max(minLimit, limit * FAILURE_BACKOFF);
+      return;
+    }
+    if (longRtt == 0) {
+      shortRtt = rttNanos;
+      longRtt = rttNanos;
+    }
+    shortRtt += (rttNanos - shortRtt) * SHORT_RTT_WEIGHT;
+    longRtt += (rttNanos - longRtt) * LONG_RTT_WEIGHT;
+    // After a slow period the usual latency comes back down faster than it went up
+    if (longRtt > 2 * shortRtt) {
+      longRtt *= 0.95;
+    }
+    double gradient = Math.clamp(tolerance * longRtt / shortRtt, MIN_GRADIENT, 1.0);
+    double newLimit = limit * gradient + Math.sqrt(limit);
+    if (newLimit > limit && inflight < limit / 2) {
+      return;
+    }
+    limit = Math.clamp(limit * (1 - smoothing) + newLimit * smoothing, minLimit, maxLimit);
+  }
+}
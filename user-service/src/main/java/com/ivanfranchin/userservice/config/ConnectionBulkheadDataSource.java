@@ -0,0 +1,153 @@
+package com.ivanfranchin.userservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Lets at most as many threads into the connection pool as it has connections. The others wait on a
+ * fair semaphore, which is cheap for virtual threads and tells how many requests are queued for a
+ * connection. The permit is released when the connection is closed, that is, returned to the pool.
+ */
+public class ConnectionBulkheadDataSource extends DelegatingDataSource implements AutoCloseable {
+
+  private final Semaphore permits;
+  private final int maxConnections;
+  private final Duration timeout;
+  private final AtomicInteger waiting = new AtomicInteger();
+  private Timer waitTimer;
+  private Counter timeoutCounter;
+
+  public ConnectionBulkheadDataSource(DataSource dataSource, int maxConnections, Duration timeout) {
+    super(dataSource);
+    this.permits = new Semaphore(maxConnections, true);
+    this.maxConnections = maxConnections;
+    this.timeout = timeout;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    acquirePermit();
+    try {
+      return releasingOnClose(super.getConnection());
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    acquirePermit();
+    try {
+      return releasingOnClose(super.getConnection(username, password));
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  public int getWaiting() {
+    return waiting.get();
+  }
+
+  public int getActive() {
+    return maxConnections - permits.availablePermits();
+  }
+
+  // The wrapped pool is only closed on shutdown if its wrapper is
+  @Override
+  public void close() throws Exception {
+    if (getTargetDataSource() instanceof AutoCloseable closeable) {
+      closeable.close();
+    }
+  }
+
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("db.connection.bulkhead.waiting", this, ConnectionBulkheadDataSource::getWaiting)
+        .description("Threads waiting for a database connection")
+        .register(registry);
+    Gauge.builder("db.connection.bulkhead.active", this, ConnectionBulkheadDataSource::getActive)
+        .description("Threads holding a database connection")
+        .register(registry);
+    waitTimer =
+        Timer.builder("db.connection.bulkhead.wait")
+            .description("Time spent waiting for a database connection")
+            .publishPercentileHistogram()
+            .register(registry);
+    timeoutCounter =
+        Counter.builder("db.connection.bulkhead.timeouts")
+            .description("Requests that gave up waiting for a database connection")
+            .register(registry);
+  }
+
+  private void acquirePermit() throws SQLException {
+    long start = System.nanoTime();
+    waiting.incrementAndGet();
+    boolean acquired;
+    try {
+      acquired = permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("Interrupted waiting for a database connection", e);
+    } finally {
+      waiting.decrementAndGet();
+      if (waitTimer != null) {
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    }
+    if (!acquired) {
+      if (timeoutCounter != null) {
+        timeoutCounter.increment();
+      }
+      throw new SQLTransientConnectionException(
+          "Timed out after %dms waiting for a database connection".formatted(timeout.toMillis()));
+    }
+  }
+
+  private Connection releasingOnClose(Connection connection) {
+    AtomicBoolean released = new AtomicBoolean();
+    return (Connection)
+        Proxy.newProxyInstance(
+            ConnectionProxy.class.getClassLoader(),
+            new Class<?>[] {ConnectionProxy.class},
+            (proxy, method, args) ->
+                switch (method.getName()) {
+                  case "close" -> {
+                    try {
+                      connection.close();
+                    } finally {
+                      if (released.compareAndSet(false, true)) {
+                        permits.release();
+                      }
+                    }
+                    yield null;
+                  }
+                  case "getTargetConnection" -> connection;
+                  case "equals" -> proxy == args[0];
+                  case "hashCode" -> System.identityHashCode(proxy);
+                  case "toString" -> "Bulkhead proxy for " + connection;
+                  default -> {
+                    try {
+                      yield method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                      throw e.getTargetException();
+                    }
+                  }
+                });
+  }
+}
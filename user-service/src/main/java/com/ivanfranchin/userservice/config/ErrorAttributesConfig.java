@@ -1,15 +1,15 @@
 package com.ivanfranchin.userservice.config;
 
-import com.ivanfranchin.userservice.user.exception.UserDataDuplicatedException;
-import com.ivanfranchin.userservice.user.exception.UserNotFoundException;
-import java.util.HashMap;
+import com.ivanfranchin.userservice.user.exception.UserApiErrors;
+import jakarta.servlet.RequestDispatcher;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import lombok.AllArgsConstructor;
-import lombok.Getter;
 import org.springframework.boot.web.error.ErrorAttributeOptions;
 import org.springframework.boot.web.error.ErrorAttributeOptions.Include;
 import org.springframework.boot.webmvc.error.DefaultErrorAttributes;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.WebRequest;
 
 @Component
@@ -18,42 +18,44 @@ public class ErrorAttributesConfig extends DefaultErrorAttributes {
   @Override
   public Map<String, Object> getErrorAttributes(
       WebRequest webRequest, ErrorAttributeOptions errorAttributeOptions) {
+    ErrorAttributeOptions options =
+        errorAttributeOptions.including(Include.MESSAGE, Include.BINDING_ERRORS);
     Throwable error = getError(webRequest);
-    String exceptionClassName = error != null ? error.getClass().getName() : null;
-    Map<String, Object> errorAttributes =
-        super.getErrorAttributes(
-            webRequest, errorAttributeOptions.including(Include.MESSAGE, Include.BINDING_ERRORS));
-    String errorCode = ErrorCodeHandler.getErrorCode(exceptionClassName);
-    if (errorCode == null) {
-      String statusError = (String) errorAttributes.get("error");
-      errorCode = statusError.replaceAll("\\s+", "");
+    UserApiErrors.Template errorTemplate = error != null ? UserApiErrors.getTemplate(error) : null;
+    if (errorTemplate != null && !options.isIncluded(Include.STACK_TRACE)) {
+      return getErrorAttributes(webRequest, options, error, errorTemplate);
     }
+    Map<String, Object> errorAttributes = super.getErrorAttributes(webRequest, options);
+    String errorCode =
+        errorTemplate != null
+            ? errorTemplate.errorCode()
+            : UserApiErrors.getStatusErrorCode((String) errorAttributes.get("error"));
     errorAttributes.put("errorCode", errorCode);
     return errorAttributes;
   }
 
-  private static class ErrorCodeHandler {
-    private static final Map<String, String> ERROR_CODE_MAP = new HashMap<>();
-
-    static {
-      ERROR_CODE_MAP.put(
-          UserNotFoundException.class.getName(), ErrorCode.USER_NOT_FOUND.getDescription());
-      ERROR_CODE_MAP.put(
-          UserDataDuplicatedException.class.getName(),
-          ErrorCode.USER_DATA_DUPLICATED.getDescription());
-    }
-
-    static String getErrorCode(String className) {
-      return ERROR_CODE_MAP.get(className);
+  // The same attributes, in the same order, as DefaultErrorAttributes, without looking for binding
+  // errors that the user API exceptions never have: only the timestamp, the message and the path
+  // change from one of these errors to the next
+  private Map<String, Object> getErrorAttributes(
+      WebRequest webRequest,
+      ErrorAttributeOptions options,
+      Throwable error,
+      UserApiErrors.Template errorTemplate) {
+    Map<String, Object> errorAttributes = LinkedHashMap.newLinkedHashMap(7);
+    errorAttributes.put("timestamp", new Date());
+    errorAttributes.put("status", errorTemplate.status());
+    errorAttributes.put("error", errorTemplate.error());
+    errorAttributes.put("exception", errorTemplate.exception());
+    errorAttributes.put("message", getMessage(webRequest, error));
+    Object path =
+        webRequest.getAttribute(
+            RequestDispatcher.ERROR_REQUEST_URI, RequestAttributes.SCOPE_REQUEST);
+    if (path != null) {
+      errorAttributes.put("path", path);
     }
-  }
-
-  @Getter
-  @AllArgsConstructor
-  private enum ErrorCode {
-    USER_NOT_FOUND("UserNotFound"),
-    USER_DATA_DUPLICATED("UserDataDuplicated");
-
-    private final String description;
+    options.retainIncluded(errorAttributes);
+    errorAttributes.put("errorCode", errorTemplate.errorCode());
+    return errorAttributes;
   }
 }
@@ -0,0 +1,136 @@
+package com.ivanfranchin.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import javax.sql.DataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs the effective pool, driver and Hibernate batching settings at startup, and warns about the
+ * combinations that silently cost round trips. The driver settings are the ones the driver resolves
+ * from the JDBC URL and the Hikari data source properties, defaults included.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JdbcSettingsCheck {
+
+  static final List<String> DRIVER_SETTINGS =
+      List.of(
+          "useServerPrepStmts",
+          "cachePrepStmts",
+          "prepStmtCacheSize",
+          "prepStmtCacheSqlLimit",
+          "rewriteBatchedStatements",
+          "useLocalSessionState");
+
+  private static final String BATCH_SIZE = "hibernate.jdbc.batch_size";
+
+  private final DataSource dataSource;
+  private final EntityManagerFactory entityManagerFactory;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void check() {
+    HikariDataSource hikariDataSource =
+        DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+    if (hikariDataSource == null) {
+      log.info("The data source isn't a Hikari pool, its settings are not checked");
+      return;
+    }
+    Map<String, String> driverSettings;
+    try {
+      driverSettings =
+          driverSettings(hikariDataSource.getJdbcUrl(), hikariDataSource.getDataSourceProperties());
+    } catch (SQLException e) {
+      log.warn("Unable to resolve the JDBC driver settings: {}", e.getMessage());
+      return;
+    }
+    int batchSize = batchSize(entityManagerFactory.getProperties().get(BATCH_SIZE));
+    List<String> identityEntities = new ArrayList<>();
+    entityManagerFactory
+        .unwrap(SessionFactoryImplementor.class)
+        .getMappingMetamodel()
+        .forEachEntityDescriptor(
+            persister -> {
+              if (hasIdentityId(persister)) {
+                identityEntities.add(persister.getEntityName());
+              }
+            });
+    Collections.sort(identityEntities);
+
+    log.info(
+        "Hikari pool {}: maximumPoolSize={}, minimumIdle={}, connectionTimeout={}ms,"
+            + " maxLifetime={}ms; driver: {}; {}={}",
+        hikariDataSource.getPoolName(),
+        hikariDataSource.getMaximumPoolSize(),
+        hikariDataSource.getMinimumIdle(),
+        hikariDataSource.getConnectionTimeout(),
+        hikariDataSource.getMaxLifetime(),
+        driverSettings,
+        BATCH_SIZE,
+        batchSize);
+    findConflicts(driverSettings, batchSize, identityEntities).forEach(log::warn);
+  }
+
+  static Map<String, String> driverSettings(String jdbcUrl, Properties dataSourceProperties)
+      throws SQLException {
+    Map<String, String> resolved = new LinkedHashMap<>();
+    for (DriverPropertyInfo info :
+        DriverManager.getDriver(jdbcUrl).getPropertyInfo(jdbcUrl, dataSourceProperties)) {
+      resolved.put(info.name, info.value);
+    }
+    Map<String, String> settings = new LinkedHashMap<>();
+    DRIVER_SETTINGS.forEach(name -> settings.put(name, resolved.get(name)));
+    return settings;
+  }
+
+  static List<String> findConflicts(
+      Map<String, String> driverSettings, int batchSize, List<String> identityEntities) {
+    List<String> conflicts = new ArrayList<>();
+    if (batchSize > 1 && !isTrue(driverSettings, "rewriteBatchedStatements")) {
+      conflicts.add(
+          "%s is %d, but rewriteBatchedStatements is off: MySQL still gets one statement per row"
+              .formatted(BATCH_SIZE, batchSize));
+    }
+    if (batchSize > 1 && !identityEntities.isEmpty()) {
+      conflicts.add(
+          "%s is %d, but Hibernate doesn't batch the inserts of entities with IDENTITY ids: %s"
+              .formatted(BATCH_SIZE, batchSize, identityEntities));
+    }
+    if (isTrue(driverSettings, "useServerPrepStmts") && !isTrue(driverSettings, "cachePrepStmts")) {
+      conflicts.add(
+          "useServerPrepStmts is on without cachePrepStmts: every statement is prepared and closed"
+              + " on the server, two extra round trips per query");
+    }
+    return conflicts;
+  }
+
+  private static boolean hasIdentityId(EntityPersister entityPersister) {
+    return entityPersister.getGenerator() != null
+        && entityPersister.getGenerator().generatedOnExecution();
+  }
+
+  private static boolean isTrue(Map<String, String> driverSettings, String name) {
+    return Boolean.parseBoolean(driverSettings.get(name));
+  }
+
+  private static int batchSize(Object value) {
+    return value != null ? Integer.parseInt(value.toString().trim()) : 0;
+  }
+}
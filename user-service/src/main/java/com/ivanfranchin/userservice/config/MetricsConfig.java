@@ -0,0 +1,44 @@
+package com.ivanfranchin.userservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+  @Bean
+  static BeanPostProcessor statementCountingPostProcessor() {
+    return new StatementCountingPostProcessor();
+  }
+
+  @Bean
+  StatementMetricsFilter statementMetricsFilter(MeterRegistry meterRegistry) {
+    return new StatementMetricsFilter(meterRegistry);
+  }
+
+  @Bean
+  RepositoryMetricsAspect repositoryMetricsAspect(MeterRegistry meterRegistry) {
+    return new RepositoryMetricsAspect(meterRegistry);
+  }
+
+  private static class StatementCountingPostProcessor implements BeanPostProcessor, Ordered {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+        return new StatementCountingDataSource(dataSource);
+      }
+      return bean;
+    }
+
+    // Wraps the data source last, so that the statements sent to the replicas are counted too
+    @Override
+    public int getOrder() {
+      return Ordered.LOWEST_PRECEDENCE;
+    }
+  }
+}
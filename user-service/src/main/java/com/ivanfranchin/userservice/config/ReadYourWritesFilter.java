@@ -0,0 +1,51 @@
+package com.ivanfranchin.userservice.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Gives a client that has just written a cookie that sends its reads to the primary until the
+ * replicas have caught up, so that it can read back what it wrote. The cookie is set before the
+ * request is handled, as the response may be committed by then; a failed write only costs a few
+ * reads on the primary.
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+  public static final String READ_FROM_PRIMARY_COOKIE = "read-from-primary";
+
+  private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+  private final Duration stickyDuration;
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    boolean write = WRITE_METHODS.contains(request.getMethod());
+    if (write) {
+      Cookie cookie = new Cookie(READ_FROM_PRIMARY_COOKIE, "true");
+      // Rounded up, a cookie that expires early would send the client to a lagging replica
+      cookie.setMaxAge((int) Math.ceilDiv(stickyDuration.toMillis(), 1000));
+      cookie.setPath("/");
+      cookie.setHttpOnly(true);
+      response.addCookie(cookie);
+    }
+    ReplicaRoutingDataSource.readFromPrimary(
+        write || WebUtils.getCookie(request, READ_FROM_PRIMARY_COOKIE) != null);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      ReplicaRoutingDataSource.readFromPrimary(false);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.ivanfranchin.userservice.config;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * MySQL replicas that serve the read-only transactions. They are connected to with the same
+ * credentials and pool settings as {@code spring.datasource}.
+ *
+ * @param urls JDBC URLs of the replicas
+ * @param maxLag replicas further behind the primary than this are not read from
+ * @param lagCheckInterval how often the replicas lag is checked
+ * @param stickyDuration how long a client reads from the primary after a write, by default the most
+ *     a replica that is read from can be behind, which it can't be shorter than
+ */
+@ConfigurationProperties("app.datasource.replica")
+public record ReplicaProperties(
+    List<String> urls,
+    @DefaultValue("5s") Duration maxLag,
+    @DefaultValue("1s") Duration lagCheckInterval,
+    Duration stickyDuration) {
+
+  public ReplicaProperties {
+    Duration maxReplicaLag = maxReplicaLag(maxLag, lagCheckInterval);
+    if (stickyDuration == null) {
+      stickyDuration = maxReplicaLag;
+    } else if (stickyDuration.compareTo(maxReplicaLag) < 0) {
+      throw new IllegalArgumentException(
+          ("The sticky-duration %s is shorter than the %s a replica can be behind, so a client"
+                  + " could read from a replica that hasn't replayed its writes yet")
+              .formatted(stickyDuration, maxReplicaLag));
+    }
+  }
+
+  // Seconds_Behind_Source is in whole seconds, so a replica within the max lag can be up to a
+  // second more behind, and it can fall further behind until the next check
+  private static Duration maxReplicaLag(Duration maxLag, Duration lagCheckInterval) {
+    return maxLag.plusSeconds(1).plus(lagCheckInterval);
+  }
+}
@@ -0,0 +1,85 @@
+package com.ivanfranchin.userservice.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+/**
+ * Active when {@code app.datasource.replica.urls} is set. The {@code dataSource} bean is then
+ * replaced by a {@link ReplicaRoutingDataSource} over the primary pool and one pool per replica.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("app.datasource.replica.urls")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaRoutingConfig {
+
+  @Bean
+  static BeanPostProcessor replicaRoutingPostProcessor(Environment environment) {
+    // Post-processors are created before the configuration properties beans, so bind them here
+    ReplicaProperties replicaProperties =
+        Binder.get(environment).bindOrCreate("app.datasource.replica", ReplicaProperties.class);
+    return new ReplicaRoutingPostProcessor(replicaProperties);
+  }
+
+  @Bean
+  ReadYourWritesFilter readYourWritesFilter(ReplicaProperties replicaProperties) {
+    return new ReadYourWritesFilter(replicaProperties.stickyDuration());
+  }
+
+  @Bean
+  MeterBinder replicaMetrics(DataSource dataSource) throws SQLException {
+    ReplicaRoutingDataSource replicaRoutingDataSource =
+        dataSource.unwrap(ReplicaRoutingDataSource.class);
+    return replicaRoutingDataSource::bindTo;
+  }
+
+  private record ReplicaRoutingPostProcessor(ReplicaProperties replicaProperties)
+      implements BeanPostProcessor, Ordered {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+        return bean;
+      }
+      HikariDataSource primary = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+      if (primary == null) {
+        throw new IllegalStateException("Replicas are only supported with a Hikari data source");
+      }
+      List<HikariDataSource> replicas = new ArrayList<>();
+      for (int i = 0; i < replicaProperties.urls().size(); i++) {
+        HikariConfig hikariConfig = new HikariConfig();
+        primary.copyStateTo(hikariConfig);
+        hikariConfig.setJdbcUrl(replicaProperties.urls().get(i));
+        hikariConfig.setPoolName("replica-" + (i + 1));
+        hikariConfig.setReadOnly(true);
+        // A replica that is down when the application starts is just not read from
+        hikariConfig.setInitializationFailTimeout(-1);
+        replicas.add(new HikariDataSource(hikariConfig));
+      }
+      ReplicaRoutingDataSource replicaRoutingDataSource =
+          new ReplicaRoutingDataSource(dataSource, replicas, replicaProperties.maxLag());
+      replicaRoutingDataSource.startLagChecks(replicaProperties.lagCheckInterval());
+      return replicaRoutingDataSource;
+    }
+
+    // After the data source wrappers of the pool, such as the connection bulkhead, and before the
+    // statement counting, which wraps the routing
+    @Override
+    public int getOrder() {
+      return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package com.ivanfranchin.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary.
+ *
+ * <p>The physical connection is only fetched on the first statement, once the transaction manager
+ * has marked the connection read-only or not. Replicas are picked round-robin among the ones whose
+ * {@code Seconds_Behind_Source} is within the maximum lag; when none is, reads go to the primary.
+ * Reads also go to the primary while {@link #readFromPrimary(boolean)} is set on the thread, which
+ * is how a client gets to read its own writes.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy
+    implements AutoCloseable {
+
+  private static final ThreadLocal<Boolean> READ_FROM_PRIMARY = new ThreadLocal<>();
+
+  private final DataSource primary;
+  private final List<Replica> replicas;
+  private final long maxLagSeconds;
+  private final AtomicInteger next = new AtomicInteger();
+  private final ScheduledExecutorService lagChecker =
+      Executors.newSingleThreadScheduledExecutor(
+          Thread.ofPlatform().name("replica-lag-checker").daemon().factory());
+
+  public ReplicaRoutingDataSource(
+      DataSource primary, List<HikariDataSource> replicas, Duration maxLag) {
+    super(primary);
+    this.primary = primary;
+    this.replicas = replicas.stream().map(Replica::new).toList();
+    this.maxLagSeconds = maxLag.toSeconds();
+    setReadOnlyDataSource(new ReplicaDataSource());
+  }
+
+  public static void readFromPrimary(boolean readFromPrimary) {
+    if (readFromPrimary) {
+      READ_FROM_PRIMARY.set(Boolean.TRUE);
+    } else {
+      READ_FROM_PRIMARY.remove();
+    }
+  }
+
+  public void startLagChecks(Duration interval) {
+    lagChecker.scheduleWithFixedDelay(
+        this::checkReplicaLag, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  public void checkReplicaLag() {
+    for (Replica replica : replicas) {
+      Long lagSeconds = null;
+      try (Connection connection = replica.dataSource.getConnection();
+          Statement statement = connection.createStatement();
+          ResultSet resultSet = statement.executeQuery("SHOW REPLICA STATUS")) {
+        if (resultSet.next()) {
+          long secondsBehindSource = resultSet.getLong("Seconds_Behind_Source");
+          // NULL when the replication threads are not running
+          lagSeconds = resultSet.wasNull() ? null : secondsBehindSource;
+        }
+      } catch (SQLException e) {
+        log.warn("Unable to check the lag of replica {}: {}", replica.name(), e.getMessage());
+      }
+      replica.lagSeconds = lagSeconds;
+    }
+  }
+
+  public void bindTo(MeterRegistry registry) {
+    for (Replica replica : replicas) {
+      Gauge.builder(
+              "db.replica.lag",
+              replica,
+              r -> r.lagSeconds != null ? r.lagSeconds.doubleValue() : Double.NaN)
+          .description("Seconds the replica is behind the primary")
+          .tag("replica", replica.name())
+          .baseUnit("seconds")
+          .register(registry);
+      Gauge.builder("db.replica.available", replica, r -> r.isAvailable() ? 1 : 0)
+          .description("Whether reads are sent to the replica")
+          .tag("replica", replica.name())
+          .register(registry);
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    lagChecker.shutdownNow();
+    for (Replica replica : replicas) {
+      replica.dataSource.close();
+    }
+    if (primary instanceof AutoCloseable closeable) {
+      closeable.close();
+    }
+  }
+
+  private DataSource readDataSource() {
+    if (READ_FROM_PRIMARY.get() != null) {
+      return primary;
+    }
+    List<Replica> available = replicas.stream().filter(Replica::isAvailable).toList();
+    if (available.isEmpty()) {
+      return primary;
+    }
+    return available.get(Math.floorMod(next.getAndIncrement(), available.size())).dataSource;
+  }
+
+  private class ReplicaDataSource extends AbstractDataSource {
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      return readDataSource().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      return readDataSource().getConnection(username, password);
+    }
+  }
+
+  private class Replica {
+    private final HikariDataSource dataSource;
+    private volatile Long lagSeconds;
+
+    Replica(HikariDataSource dataSource) {
+      this.dataSource = dataSource;
+    }
+
+    String name() {
+      return dataSource.getPoolName();
+    }
+
+    boolean isAvailable() {
+      return lagSeconds != null && lagSeconds <= maxLagSeconds;
+    }
+  }
+}
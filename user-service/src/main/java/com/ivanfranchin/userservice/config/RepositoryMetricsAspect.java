@@ -0,0 +1,55 @@
+package com.ivanfranchin.userservice.config;
+
+import com.ivanfranchin.userservice.user.model.User;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Records the number of rows returned, or changed, by each repository call. The call durations are
+ * already recorded by Spring Data as {@code spring.data.repository.invocations}.
+ */
+@Aspect
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+  private final MeterRegistry meterRegistry;
+
+  @Around("this(com.ivanfranchin.userservice.user.UserRepository)")
+  public Object recordRows(ProceedingJoinPoint joinPoint) throws Throwable {
+    Object result = joinPoint.proceed();
+    Long rows = rows(result);
+    if (rows != null) {
+      DistributionSummary.builder("spring.data.repository.rows")
+          .description("Rows returned or changed by a repository call")
+          .tag("repository", "UserRepository")
+          .tag("method", joinPoint.getSignature().getName())
+          .publishPercentileHistogram()
+          .register(meterRegistry)
+          .record(rows);
+    }
+    return result;
+  }
+
+  // Streams are consumed by the caller, so their rows can't be counted here
+  private static Long rows(Object result) {
+    if (result instanceof Collection<?> collection) {
+      return (long) collection.size();
+    }
+    if (result instanceof Optional<?> optional) {
+      return optional.isPresent() ? 1L : 0L;
+    }
+    if (result instanceof Integer count) {
+      return count.longValue();
+    }
+    if (result instanceof User) {
+      return 1L;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,31 @@
+package com.ivanfranchin.userservice.config;
+
+/**
+ * Counts the SQL statements sent to the database on the current thread between {@link #start()} and
+ * {@link #stop()}. The {@link StatementCountingDataSource} calls {@link #increment()} for every
+ * statement it executes, so statements sent with {@code JdbcTemplate} are counted as well as the
+ * ones sent by Hibernate.
+ */
+public final class StatementCounter {
+
+  private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+  private StatementCounter() {}
+
+  public static void start() {
+    COUNT.set(new int[1]);
+  }
+
+  public static int stop() {
+    int[] count = COUNT.get();
+    COUNT.remove();
+    return count != null ? count[0] : 0;
+  }
+
+  public static void increment() {
+    int[] count = COUNT.get();
+    if (count != null) {
+      count[0]++;
+    }
+  }
+}
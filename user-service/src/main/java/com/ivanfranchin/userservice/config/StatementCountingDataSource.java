@@ -0,0 +1,85 @@
+package com.ivanfranchin.userservice.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Counts with the {@link StatementCounter} every statement executed on the connections it hands
+ * out, whether Hibernate, {@code JdbcTemplate} or plain JDBC sent it. Each {@code execute} call is
+ * one round trip to the database and counts once, a whole JDBC batch included.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+  public StatementCountingDataSource(DataSource dataSource) {
+    super(dataSource);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return countingStatements(super.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return countingStatements(super.getConnection(username, password));
+  }
+
+  // The wrapped pool is only closed on shutdown if its wrapper is
+  @Override
+  public void close() throws Exception {
+    if (getTargetDataSource() instanceof AutoCloseable closeable) {
+      closeable.close();
+    }
+  }
+
+  private static Connection countingStatements(Connection connection) {
+    return (Connection)
+        Proxy.newProxyInstance(
+            ConnectionProxy.class.getClassLoader(),
+            new Class<?>[] {ConnectionProxy.class},
+            (proxy, method, args) ->
+                switch (method.getName()) {
+                  case "createStatement", "prepareStatement", "prepareCall" ->
+                      counting(
+                          (Statement) invoke(method, connection, args), method.getReturnType());
+                  case "getTargetConnection" -> connection;
+                  case "equals" -> proxy == args[0];
+                  case "hashCode" -> System.identityHashCode(proxy);
+                  case "toString" -> "Statement counting proxy for " + connection;
+                  default -> invoke(method, connection, args);
+                });
+  }
+
+  // Proxies the Statement, PreparedStatement or CallableStatement interface the method returned
+  private static Statement counting(Statement statement, Class<?> statementInterface) {
+    return (Statement)
+        Proxy.newProxyInstance(
+            statementInterface.getClassLoader(),
+            new Class<?>[] {statementInterface},
+            (proxy, method, args) -> {
+              if (method.getName().startsWith("execute")) {
+                StatementCounter.increment();
+              }
+              return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> invoke(method, statement, args);
+              };
+            });
+  }
+
+  private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getTargetException();
+    }
+  }
+}
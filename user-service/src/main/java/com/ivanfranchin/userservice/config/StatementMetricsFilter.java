@@ -0,0 +1,42 @@
+package com.ivanfranchin.userservice.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many statements were executed on the database for each request, tagged like {@code
+ * http.server.requests}, so that an N+1 regression shows up as a higher count for the endpoint.
+ */
+@RequiredArgsConstructor
+public class StatementMetricsFilter extends OncePerRequestFilter {
+
+  private final MeterRegistry meterRegistry;
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    StatementCounter.start();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      int statements = StatementCounter.stop();
+      Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      DistributionSummary.builder("http.server.requests.statements")
+          .description("SQL statements executed per request")
+          .tag("method", request.getMethod())
+          .tag("uri", uri != null ? uri.toString() : "UNKNOWN")
+          .publishPercentileHistogram()
+          .register(meterRegistry)
+          .record(statements);
+    }
+  }
+}
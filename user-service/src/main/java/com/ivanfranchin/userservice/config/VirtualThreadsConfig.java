@@ -0,0 +1,62 @@
+package com.ivanfranchin.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.sql.SQLException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Active when requests run on virtual threads ({@code spring.threads.virtual.enabled=true}, see the
+ * {@code virtual-threads} profile). Tomcat then no longer limits how many requests run at once, so
+ * a {@link ConnectionBulkheadDataSource} sized to the Hikari pool keeps the requests that wait for
+ * a connection out of the pool, and exposes how many are waiting and for how long.
+ *
+ * <p>Only the primary pool, the {@code dataSource} bean, is wrapped: it takes every write, and the
+ * reads too when there is no replica. The replica pools of {@link ReplicaRoutingConfig} aren't,
+ * since each one is sized on its own and the reads that wait for them wait in Hikari, for at most
+ * its connection timeout, as they would without virtual threads. Any other Hikari data source is
+ * left alone as well.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+  @Bean
+  static BeanPostProcessor connectionBulkheadPostProcessor() {
+    return new ConnectionBulkheadPostProcessor();
+  }
+
+  @Bean
+  MeterBinder connectionBulkheadMetrics(DataSource dataSource) throws SQLException {
+    ConnectionBulkheadDataSource connectionBulkheadDataSource =
+        dataSource.unwrap(ConnectionBulkheadDataSource.class);
+    return connectionBulkheadDataSource::bindTo;
+  }
+
+  private static class ConnectionBulkheadPostProcessor implements BeanPostProcessor, Ordered {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if ("dataSource".equals(beanName) && bean instanceof HikariDataSource hikariDataSource) {
+        return new ConnectionBulkheadDataSource(
+            hikariDataSource,
+            hikariDataSource.getMaximumPoolSize(),
+            Duration.ofMillis(hikariDataSource.getConnectionTimeout()));
+      }
+      return bean;
+    }
+
+    // Wraps the pool itself, before any data source that routes to it
+    @Override
+    public int getOrder() {
+      return Ordered.HIGHEST_PRECEDENCE;
+    }
+  }
+}
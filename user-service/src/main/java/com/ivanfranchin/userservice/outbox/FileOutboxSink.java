@@ -0,0 +1,65 @@
+package com.ivanfranchin.userservice.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.ivanfranchin.userservice.outbox.model.OutboxEvent;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Appends the events to a file as newline-delimited JSON, one line per event with the payload as a
+ * nested object. The file is synced before the batch is acknowledged, so an event deleted from the
+ * outbox is never lost with the file.
+ */
+@Component
+@ConditionalOnProperty("app.outbox.file-sink.path")
+public class FileOutboxSink implements OutboxSink {
+
+  private final Path path;
+  private final ObjectWriter writer;
+
+  public FileOutboxSink(@Value("${app.outbox.file-sink.path}") Path path, JsonMapper jsonMapper) {
+    this.path = path;
+    this.writer = jsonMapper.writerFor(Line.class);
+  }
+
+  @Override
+  public synchronized void publish(List<OutboxEvent> events) throws IOException {
+    ByteArrayOutputStream lines = new ByteArrayOutputStream();
+    for (OutboxEvent event : events) {
+      lines.write(writer.writeValueAsBytes(Line.from(event)));
+      lines.write('\n');
+    }
+    try (FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    }
+  }
+
+  private record Line(
+      Long id, String type, Long aggregateId, @JsonRawValue String payload, Instant createdOn) {
+
+    static Line from(OutboxEvent event) {
+      return new Line(
+          event.getId(),
+          event.getType(),
+          event.getAggregateId(),
+          event.getPayload(),
+          event.getCreatedOn());
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.ivanfranchin.userservice.outbox;
+
+import com.ivanfranchin.userservice.outbox.model.OutboxEvent;
+import java.util.List;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface OutboxBatchRepository {
+
+  /**
+   * Inserts the events using a JDBC batch, in the transaction of the change they describe, so that
+   * either both are committed or none is.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  void insertAll(List<OutboxEvent> events);
+}
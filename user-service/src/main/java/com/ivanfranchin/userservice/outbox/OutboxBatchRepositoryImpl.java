@@ -0,0 +1,35 @@
+package com.ivanfranchin.userservice.outbox;
+
+import com.ivanfranchin.userservice.outbox.model.OutboxEvent;
+import java.sql.Timestamp;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// A plain batch, without reading the generated ids back: the writers never need them, and the
+// insert is an append at the end of the primary key, whatever the number of pending events.
+@RequiredArgsConstructor
+class OutboxBatchRepositoryImpl implements OutboxBatchRepository {
+
+  private static final String INSERT_EVENT_SQL =
+      "insert into outbox_events (type, aggregate_id, payload, created_on) values (?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public void insertAll(List<OutboxEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(
+        INSERT_EVENT_SQL,
+        events,
+        events.size(),
+        (ps, event) -> {
+          ps.setString(1, event.getType());
+          ps.setLong(2, event.getAggregateId());
+          ps.setString(3, event.getPayload());
+          ps.setTimestamp(4, Timestamp.from(event.getCreatedOn()));
+        });
+  }
+}
@@ -0,0 +1,15 @@
+package com.ivanfranchin.userservice.outbox;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Publishing of the outbox events.
+ *
+ * @param batchSize how many events are locked, published and deleted at once
+ * @param pollInterval how long the publisher waits after draining the outbox before looking again
+ */
+@ConfigurationProperties("app.outbox")
+public record OutboxProperties(
+    @DefaultValue("500") int batchSize, @DefaultValue("1s") Duration pollInterval) {}
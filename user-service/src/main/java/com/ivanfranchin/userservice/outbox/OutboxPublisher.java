@@ -0,0 +1,126 @@
+package com.ivanfranchin.userservice.outbox;
+
+import com.ivanfranchin.userservice.outbox.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Drains the outbox in the background: locks a batch of the oldest events, hands it to every {@link
+ * OutboxSink} and deletes it, all in one transaction. It keeps going while batches come back full,
+ * and otherwise waits for the poll interval.
+ *
+ * <p>Several instances can drain the same outbox, since locked events are skipped rather than
+ * waited for. Events of a given user are then only in order within a batch.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxPublisher implements AutoCloseable {
+
+  private final OutboxRepository outboxRepository;
+  private final List<OutboxSink> sinks;
+  private final TransactionTemplate transactionTemplate;
+  private final OutboxProperties outboxProperties;
+  private final DistributionSummary batchSize;
+  private final Timer lag;
+  private final Counter failures;
+  private final ScheduledExecutorService drainer =
+      Executors.newSingleThreadScheduledExecutor(
+          Thread.ofPlatform().name("outbox-publisher").daemon().factory());
+
+  public OutboxPublisher(
+      OutboxRepository outboxRepository,
+      List<OutboxSink> sinks,
+      TransactionTemplate transactionTemplate,
+      OutboxProperties outboxProperties,
+      MeterRegistry meterRegistry) {
+    this.outboxRepository = outboxRepository;
+    this.sinks = sinks;
+    this.transactionTemplate = transactionTemplate;
+    this.outboxProperties = outboxProperties;
+    this.batchSize =
+        DistributionSummary.builder("outbox.batch.size")
+            .description("Number of events published per batch")
+            .register(meterRegistry);
+    this.lag =
+        Timer.builder("outbox.drain.lag")
+            .description("Time between writing an event and publishing it")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    this.failures =
+        Counter.builder("outbox.publish.failures")
+            .description("Batches that failed to be published and will be retried")
+            .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (sinks.isEmpty()) {
+      log.warn("No outbox sink is configured, the outbox events won't be published");
+      return;
+    }
+    Duration pollInterval = outboxProperties.pollInterval();
+    drainer.scheduleWithFixedDelay(
+        this::drainAll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /** Publishes batches until the outbox is empty or a batch fails. */
+  public void drainAll() {
+    try {
+      while (drain() == outboxProperties.batchSize()) {
+        // a full batch, there are probably more
+      }
+    } catch (RuntimeException e) {
+      failures.increment();
+      log.warn("Unable to publish the outbox events, they will be retried: {}", e.getMessage());
+    }
+  }
+
+  /** Publishes and deletes one batch, returning how many events it had. */
+  public int drain() {
+    Integer published =
+        transactionTemplate.execute(
+            status -> {
+              List<OutboxEvent> events =
+                  outboxRepository.findBatchForUpdate(outboxProperties.batchSize());
+              if (events.isEmpty()) {
+                return 0;
+              }
+              for (OutboxSink sink : sinks) {
+                try {
+                  sink.publish(events);
+                } catch (RuntimeException e) {
+                  throw e;
+                } catch (Exception e) {
+                  throw new IllegalStateException(e);
+                }
+              }
+              outboxRepository.deleteAllByIdInBatch(
+                  events.stream().map(OutboxEvent::getId).toList());
+              Instant now = Instant.now();
+              events.forEach(event -> lag.record(Duration.between(event.getCreatedOn(), now)));
+              batchSize.record(events.size());
+              return events.size();
+            });
+    return published != null ? published : 0;
+  }
+
+  @Override
+  public void close() {
+    drainer.shutdownNow();
+  }
+}
@@ -0,0 +1,19 @@
+package com.ivanfranchin.userservice.outbox;
+
+import com.ivanfranchin.userservice.outbox.model.OutboxEvent;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long>, OutboxBatchRepository {
+
+  // The oldest events that no other publisher has locked. The locks are held until the batch is
+  // deleted, so each event is published by a single instance at a time.
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value = "select * from outbox_events order by id limit :limit for update skip locked",
+      nativeQuery = true)
+  List<OutboxEvent> findBatchForUpdate(int limit);
+}
@@ -0,0 +1,16 @@
+package com.ivanfranchin.userservice.outbox;
+
+import com.ivanfranchin.userservice.outbox.model.OutboxEvent;
+import java.util.List;
+
+/**
+ * Where the {@link OutboxPublisher} sends the events, in the order they were written.
+ *
+ * <p>A batch is only deleted from the outbox once every sink has accepted it; when one throws, the
+ * whole batch is sent again on the next drain. Events are therefore delivered at least once, and a
+ * sink may see an event it already got, with the same id.
+ */
+public interface OutboxSink {
+
+  void publish(List<OutboxEvent> events) throws Exception;
+}
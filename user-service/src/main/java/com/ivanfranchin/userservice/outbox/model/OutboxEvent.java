@@ -0,0 +1,50 @@
+package com.ivanfranchin.userservice.outbox.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An event written in the same transaction as the change it describes, and deleted once it has been
+ * published. The id grows with every event, so it is the order in which they are published and what
+ * consumers use to discard the ones they see twice.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false)
+  private String type;
+
+  @Column(nullable = false)
+  private Long aggregateId;
+
+  // A TEXT column, up to 64 KB: without a length, MySQL gets a TINYTEXT, limited to 255 bytes,
+  // which the JSON of a user with a long username and email overflows
+  @Lob
+  @Column(nullable = false, length = 65535)
+  private String payload;
+
+  @Column(nullable = false)
+  private Instant createdOn;
+
+  public OutboxEvent(String type, Long aggregateId, String payload, Instant createdOn) {
+    this.type = type;
+    this.aggregateId = aggregateId;
+    this.payload = payload;
+    this.createdOn = createdOn;
+  }
+}
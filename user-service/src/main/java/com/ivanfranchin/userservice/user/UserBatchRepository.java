@@ -0,0 +1,15 @@
+package com.ivanfranchin.userservice.user;
+
+import com.ivanfranchin.userservice.user.model.User;
+import java.util.List;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface UserBatchRepository {
+
+  /**
+   * Inserts the users using JDBC batches and sets their generated ids and timestamps. The batch
+   * runs in a single transaction, so either all users are inserted or none is.
+   */
+  @Transactional
+  void insertAll(List<User> users);
+}
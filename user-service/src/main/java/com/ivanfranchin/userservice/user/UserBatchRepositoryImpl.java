@@ -0,0 +1,65 @@
+package com.ivanfranchin.userservice.user;
+
+import com.ivanfranchin.userservice.user.model.User;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+// With rewriteBatchedStatements=true, Connector/J sends the batch as multi-row INSERTs and still
+// returns one generated key per row, so the IDENTITY id strategy does not get in the way here the
+// way it does for Hibernate insert batching.
+@RequiredArgsConstructor
+class UserBatchRepositoryImpl implements UserBatchRepository {
+
+  private static final String INSERT_USER_SQL =
+      "insert into users (username, email, birthday, created_on, updated_on) values (?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public void insertAll(List<User> users) {
+    if (users.isEmpty()) {
+      return;
+    }
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    KeyHolder keyHolder = new GeneratedKeyHolder();
+    jdbcTemplate.batchUpdate(
+        con -> con.prepareStatement(INSERT_USER_SQL, Statement.RETURN_GENERATED_KEYS),
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            User user = users.get(i);
+            ps.setString(1, user.getUsername());
+            ps.setString(2, user.getEmail());
+            ps.setDate(3, Date.valueOf(user.getBirthday()));
+            ps.setTimestamp(4, Timestamp.from(now));
+            ps.setTimestamp(5, Timestamp.from(now));
+          }
+
+          @Override
+          public int getBatchSize() {
+            return users.size();
+          }
+        },
+        keyHolder);
+
+    List<Map<String, Object>> keys = keyHolder.getKeyList();
+    for (int i = 0; i < users.size(); i++) {
+      User user = users.get(i);
+      user.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+      user.setCreatedOn(now);
+      user.setUpdatedOn(now);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.ivanfranchin.userservice.user;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bloom filters of the usernames and emails in the table, so that creating a user only has to look
+ * for duplicates when the username or the email was probably seen before.
+ *
+ * <p>A Bloom filter has no false negatives, but it can't forget a value either: a deleted or
+ * renamed user stays a probable duplicate until the next {@link #warmUp}, which only costs an
+ * indexed existence check. Values are lower-cased, since the unique indexes compare them
+ * case-insensitively. Until the filters are warm every value is a probable duplicate, and the
+ * unique indexes stay the final word for users created by other instances.
+ */
+@Component
+public class UserBloomFilters implements MeterBinder {
+
+  private final long expectedInsertions;
+  private final double fpp;
+
+  private volatile Filters filters;
+  private volatile Filters building;
+
+  public UserBloomFilters(
+      @Value("${app.user-bloom-filter.expected-insertions:1000000}") long expectedInsertions,
+      @Value("${app.user-bloom-filter.fpp:0.01}") double fpp) {
+    this.expectedInsertions = expectedInsertions;
+    this.fpp = fpp;
+  }
+
+  /**
+   * Builds new filters from the given users and replaces the current ones. Users put while it runs
+   * are added to both.
+   */
+  public synchronized void warmUp(Stream<UserResponse> users) {
+    Filters newFilters = new Filters(expectedInsertions, fpp);
+    building = newFilters;
+    try {
+      users.forEach(user -> newFilters.put(user.username(), user.email()));
+      filters = newFilters;
+    } finally {
+      building = null;
+    }
+  }
+
+  // Reads the filters being built first, so a warm-up that completes in between isn't missed
+  public void put(String username, String email) {
+    Filters next = building;
+    if (next != null) {
+      next.put(username, email);
+    }
+    Filters current = filters;
+    if (current != null && current != next) {
+      current.put(username, email);
+    }
+  }
+
+  public boolean mightContainUsername(String username) {
+    Filters current = filters;
+    return current == null || current.usernames().mightContain(key(username));
+  }
+
+  public boolean mightContainEmail(String email) {
+    Filters current = filters;
+    return current == null || current.emails().mightContain(key(email));
+  }
+
+  /** Drops the filters, every value is a probable duplicate until the next {@link #warmUp}. */
+  public void invalidateAll() {
+    filters = null;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    bindTo(registry, "usernames", Filters::usernames);
+    bindTo(registry, "emails", Filters::emails);
+  }
+
+  private void bindTo(
+      MeterRegistry registry, String name, Function<Filters, BloomFilter<String>> filter) {
+    Gauge.builder(
+            "user.bloom.filter.elements", this, gauge(filter, BloomFilter::approximateElementCount))
+        .description("Approximate number of distinct values put in the Bloom filter")
+        .tag("filter", name)
+        .register(registry);
+    Gauge.builder("user.bloom.filter.fpp", this, gauge(filter, BloomFilter::expectedFpp))
+        .description("Probability that the Bloom filter reports an unseen value as present")
+        .tag("filter", name)
+        .register(registry);
+  }
+
+  private static ToDoubleFunction<UserBloomFilters> gauge(
+      Function<Filters, BloomFilter<String>> filter, ToDoubleFunction<BloomFilter<String>> value) {
+    return userBloomFilters -> {
+      Filters current = userBloomFilters.filters;
+      return current != null ? value.applyAsDouble(filter.apply(current)) : Double.NaN;
+    };
+  }
+
+  private static String key(String value) {
+    return value.toLowerCase(Locale.ROOT);
+  }
+
+  private record Filters(BloomFilter<String> usernames, BloomFilter<String> emails) {
+
+    Filters(long expectedInsertions, double fpp) {
+      this(
+          BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, fpp),
+          BloomFilter.create(
+              Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, fpp));
+    }
+
+    void put(String username, String email) {
+      if (username != null) {
+        usernames.put(key(username));
+      }
+      if (email != null) {
+        emails.put(key(email));
+      }
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package com.ivanfranchin.userservice.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ivanfranchin.userservice.user.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-process cache of users, looked up either by id or by username.
+ *
+ * <p>Users are stored once, keyed by id; the username cache only maps a username to an id and is
+ * checked against the cached user on every read, so a stale mapping left by a rename is dropped
+ * instead of served. A username that differs from the stored one only in case or accents maps to
+ * the same id, as it finds the same row. Callers always get their own copy, since {@link User} is a
+ * mutable entity.
+ *
+ * <p>A lookup can read a row just before an update or a delete commits, or from a replica that
+ * hasn't replayed it yet, and fill the cache after the write refreshed or evicted it. The fills
+ * therefore never replace a user with an older {@code updatedOn}, and a deleted user's id is
+ * remembered, for as long as an entry would be cached, so that no lookup caches the user again.
+ */
+@Component
+public class UserCache implements MeterBinder {
+
+  private final Cache<Long, User> usersById;
+  private final Cache<String, Long> userIdsByUsername;
+  private final Cache<Long, Boolean> deletedIds;
+
+  public UserCache(
+      @Value("${app.user-cache.spec:maximumSize=10000,expireAfterWrite=10m}") String spec) {
+    this.usersById = Caffeine.from(spec).recordStats().build();
+    this.userIdsByUsername = Caffeine.from(spec).recordStats().build();
+    this.deletedIds = Caffeine.from(spec).build();
+  }
+
+  // Loaded atomically: an update or a delete of the user waits for the load to be cached, then
+  // replaces or evicts it
+  public Optional<User> getById(Long id, Function<Long, Optional<User>> loader) {
+    User user = usersById.get(id, key -> isDeleted(key) ? null : loader.apply(key).orElse(null));
+    return Optional.ofNullable(user).map(UserCache::copyOf);
+  }
+
+  public Optional<User> getByUsername(String username, Function<String, Optional<User>> loader) {
+    Long id = userIdsByUsername.getIfPresent(username);
+    if (id != null) {
+      User user = usersById.getIfPresent(id);
+      if (user != null && UsernameCollation.equals(user.getUsername(), username)) {
+        return Optional.of(copyOf(user));
+      }
+      userIdsByUsername.invalidate(username);
+    }
+    return loader.apply(username).map(found -> fill(username, found)).map(UserCache::copyOf);
+  }
+
+  /**
+   * Returns the users with these distinct ids, keyed by id, loading the ones that aren't cached
+   * with a single call to the loader. The ids without user are left out.
+   */
+  public Map<Long, User> getAllById(
+      Collection<Long> ids, Function<Collection<Long>, List<User>> loader) {
+    Map<Long, User> users = new HashMap<>(usersById.getAllPresent(ids));
+    if (users.size() < ids.size()) {
+      List<Long> missing = ids.stream().filter(id -> !users.containsKey(id)).toList();
+      for (User user : loader.apply(missing)) {
+        User filled = fill(user.getUsername(), user);
+        if (filled != null) {
+          users.put(user.getId(), filled);
+        }
+      }
+    }
+    users.replaceAll((id, user) -> copyOf(user));
+    return users;
+  }
+
+  /**
+   * Returns the users with these distinct usernames, keyed by the username asked for, loading the
+   * ones that aren't cached with a single call to the loader. The loaded users are matched back to
+   * the usernames asked for with {@link UsernameCollation}, as the query matched them. The
+   * usernames without user are left out.
+   */
+  public Map<String, User> getAllByUsername(
+      Collection<String> usernames, Function<Collection<String>, List<User>> loader) {
+    Map<String, User> users = new HashMap<>();
+    List<String> missing = new ArrayList<>();
+    for (String username : usernames) {
+      Long id = userIdsByUsername.getIfPresent(username);
+      User user = id != null ? usersById.getIfPresent(id) : null;
+      if (user != null && UsernameCollation.equals(user.getUsername(), username)) {
+        users.put(username, user);
+      } else {
+        if (id != null) {
+          userIdsByUsername.invalidate(username);
+        }
+        missing.add(username);
+      }
+    }
+    if (!missing.isEmpty()) {
+      Map<String, User> loaded = UsernameCollation.newMap();
+      for (User user : loader.apply(missing)) {
+        loaded.put(user.getUsername(), user);
+      }
+      for (String username : missing) {
+        User user = loaded.get(username);
+        User filled = user != null ? fill(username, user) : null;
+        if (filled != null) {
+          users.put(username, filled);
+        }
+      }
+    }
+    users.replaceAll((username, user) -> copyOf(user));
+    return users;
+  }
+
+  public void put(User user) {
+    fill(user.getUsername(), user);
+  }
+
+  /**
+   * Caches a user that was read or written, unless the cache already has a newer version of it or
+   * it was deleted. Also maps the username asked for, when it only matches the stored one under the
+   * collation. Returns the user the cache now holds, {@code null} for a deleted user.
+   */
+  private User fill(String username, User user) {
+    User previous = usersById.getIfPresent(user.getId());
+    User cached =
+        usersById
+            .asMap()
+            .compute(
+                user.getId(),
+                (id, current) ->
+                    isDeleted(id) ? null : isNewer(current, user) ? current : copyOf(user));
+    if (cached == null) {
+      return null;
+    }
+    if (previous != null && !previous.getUsername().equals(cached.getUsername())) {
+      userIdsByUsername.invalidate(previous.getUsername());
+    }
+    userIdsByUsername.put(cached.getUsername(), cached.getId());
+    if (!username.equals(cached.getUsername())) {
+      userIdsByUsername.put(username, cached.getId());
+    }
+    return cached;
+  }
+
+  // Remembered before the user is removed, so a fill either sees it or is removed afterwards
+  public void evict(Long id) {
+    deletedIds.put(id, Boolean.TRUE);
+    User previous = usersById.asMap().remove(id);
+    if (previous != null) {
+      userIdsByUsername.invalidate(previous.getUsername());
+    }
+  }
+
+  public void invalidateAll() {
+    usersById.invalidateAll();
+    userIdsByUsername.invalidateAll();
+    deletedIds.invalidateAll();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    new CaffeineCacheMetrics<>(usersById, "usersById", Tags.empty()).bindTo(registry);
+    new CaffeineCacheMetrics<>(userIdsByUsername, "userIdsByUsername", Tags.empty())
+        .bindTo(registry);
+  }
+
+  private boolean isDeleted(Long id) {
+    return deletedIds.getIfPresent(id) != null;
+  }
+
+  // A user read without its updatedOn can't be compared, and replaces the cached one
+  private static boolean isNewer(User cached, User user) {
+    return cached != null
+        && cached.getUpdatedOn() != null
+        && user.getUpdatedOn() != null
+        && cached.getUpdatedOn().isAfter(user.getUpdatedOn());
+  }
+
+  private static User copyOf(User user) {
+    User copy = new User(user.getUsername(), user.getEmail(), user.getBirthday());
+    copy.setId(user.getId());
+    copy.setCreatedOn(user.getCreatedOn());
+    copy.setUpdatedOn(user.getUpdatedOn());
+    return copy;
+  }
+}
@@ -0,0 +1,19 @@
+package com.ivanfranchin.userservice.user;
+
+import com.ivanfranchin.userservice.user.dto.UserChangesResponse;
+import java.time.Instant;
+
+public interface UserChangeRepository {
+
+  /**
+   * Returns up to {@code limit} users created, updated or deleted after the {@code since} cursor
+   * and before {@code until}, ordered by the time of the change and then by id, and the cursor to
+   * pass as {@code since} next time. The cursor of an empty page is the one informed.
+   *
+   * @throws com.ivanfranchin.userservice.user.exception.InvalidCursorException when {@code since}
+   *     wasn't returned by this method
+   */
+  UserChangesResponse findChanges(String since, Instant until, int limit);
+
+  void insertTombstone(Long id, Instant deletedOn);
+}
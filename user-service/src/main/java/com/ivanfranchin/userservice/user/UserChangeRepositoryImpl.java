@@ -0,0 +1,114 @@
+package com.ivanfranchin.userservice.user;
+
+import com.ivanfranchin.userservice.user.dto.UserChange;
+import com.ivanfranchin.userservice.user.dto.UserChangesResponse;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Each branch of the union reads its (time, id) index as a range starting right after the cursor
+// and stops after the page, so a poll costs the number of changes since the cursor, not the size
+// of the table. The outer query merges the two pages in the same order.
+@RequiredArgsConstructor
+class UserChangeRepositoryImpl implements UserChangeRepository {
+
+  private static final String FIND_CHANGES_SQL =
+      """
+      (select id, username, email, birthday, created_on, updated_on as changed_on from users
+        where updated_on >= ? and (updated_on > ? or id > ?) and updated_on < ?
+        order by updated_on, id limit ?)
+      union all
+      (select id, null, null, null, null, deleted_on from user_tombstones
+        where deleted_on >= ? and (deleted_on > ? or id > ?) and deleted_on < ?
+        order by deleted_on, id limit ?)
+      order by changed_on, id limit ?""";
+
+  private static final String INSERT_TOMBSTONE_SQL =
+      "insert into user_tombstones (id, deleted_on) values (?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public UserChangesResponse findChanges(String since, Instant until, int limit) {
+    Cursor cursor = since != null ? Cursor.decode(since) : new Cursor(Instant.EPOCH, 0);
+    Timestamp changedOn = Timestamp.from(cursor.changedOn());
+    Timestamp untilTimestamp = Timestamp.from(until);
+    List<UserChange> changes =
+        jdbcTemplate.query(
+            FIND_CHANGES_SQL,
+            (rs, rowNum) -> mapChange(rs),
+            changedOn,
+            changedOn,
+            cursor.id(),
+            untilTimestamp,
+            limit,
+            changedOn,
+            changedOn,
+            cursor.id(),
+            untilTimestamp,
+            limit,
+            limit);
+    String nextCursor =
+        changes.isEmpty()
+            ? since
+            : new Cursor(changes.getLast().changedOn(), changes.getLast().id()).encode();
+    return new UserChangesResponse(changes, nextCursor);
+  }
+
+  @Override
+  public void insertTombstone(Long id, Instant deletedOn) {
+    jdbcTemplate.update(INSERT_TOMBSTONE_SQL, id, Timestamp.from(deletedOn));
+  }
+
+  private static UserChange mapChange(ResultSet rs) throws SQLException {
+    long id = rs.getLong("id");
+    Instant changedOn = rs.getTimestamp("changed_on").toInstant();
+    Timestamp createdOn = rs.getTimestamp("created_on");
+    if (createdOn == null) {
+      return new UserChange(id, UserChange.Type.DELETED, changedOn, null);
+    }
+    UserResponse user =
+        new UserResponse(
+            id,
+            rs.getString("username"),
+            rs.getString("email"),
+            rs.getDate("birthday").toLocalDate());
+    UserChange.Type type =
+        createdOn.toInstant().equals(changedOn) ? UserChange.Type.CREATED : UserChange.Type.UPDATED;
+    return new UserChange(id, type, changedOn, user);
+  }
+
+  // "<changedOn in microseconds>:<id>" in URL-safe Base64, opaque to the consumers
+  private record Cursor(Instant changedOn, long id) {
+
+    String encode() {
+      String cursor = "%d:%d".formatted(ChronoUnit.MICROS.between(Instant.EPOCH, changedOn), id);
+      return Base64.getUrlEncoder()
+          .withoutPadding()
+          .encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decode(String cursor) {
+      try {
+        String[] parts =
+            new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+        if (parts.length != 2) {
+          throw new InvalidCursorException();
+        }
+        Instant changedOn = Instant.EPOCH.plus(Long.parseLong(parts[0]), ChronoUnit.MICROS);
+        return new Cursor(changedOn, Long.parseLong(parts[1]));
+      } catch (IllegalArgumentException e) {
+        throw new InvalidCursorException();
+      }
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.ivanfranchin.userservice.user;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Change feed of {@code GET /api/users/changes}.
+ *
+ * @param settleTime changes younger than this are left for the next poll
+ */
+@ConfigurationProperties("app.user-changes")
+public record UserChangesProperties(@DefaultValue("5s") Duration settleTime) {}
@@ -1,70 +1,268 @@
 package com.ivanfranchin.userservice.user;
 
+import com.ivanfranchin.userservice.user.dto.CreateUserBatchItemResponse;
 import com.ivanfranchin.userservice.user.dto.CreateUserRequest;
 import com.ivanfranchin.userservice.user.dto.UpdateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UserAvailabilityResponse;
+import com.ivanfranchin.userservice.user.dto.UserChangesResponse;
+import com.ivanfranchin.userservice.user.dto.UserLookupResponse;
+import com.ivanfranchin.userservice.user.dto.UserPageResponse;
 import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.dto.UserSearchRequest;
+import com.ivanfranchin.userservice.user.dto.UserSearchResponse;
+import com.ivanfranchin.userservice.user.exception.UserDataDuplicatedException;
+import com.ivanfranchin.userservice.user.exception.UserNotFoundException;
+import com.ivanfranchin.userservice.user.exception.UserPreconditionFailedException;
 import com.ivanfranchin.userservice.user.model.User;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.SequenceWriter;
+import tools.jackson.databind.json.JsonMapper;
 
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
+  private static final int MAX_PAGE_SIZE = 1000;
+  private static final int MAX_BATCH_SIZE = 1000;
+  private static final int MAX_LOOKUP_SIZE = 1000;
+
   private final UserService userService;
+  private final JsonMapper jsonMapper;
+  private final Validator validator;
 
+  // The lists below each take one of ids, usernames, limit and stream, see UserListParams
   @GetMapping
-  public List<UserResponse> getUsers(@RequestParam(required = false) String username) {
+  public List<UserResponse> getUsers(
+      @RequestParam(required = false) String username, WebRequest webRequest) {
+    UserListParams.requireAtMostOne(webRequest.getParameterMap().keySet());
     if (username != null) {
       User user = userService.validateAndGetUserByUsername(username);
       return List.of(UserResponse.from(user));
     }
-    return userService.getUsers().stream().map(UserResponse::from).toList();
+    return userService.getUsers();
+  }
+
+  // One call instead of a GET /{id} per user: the ids without user are listed as missing rather
+  // than answered with a 404
+  @GetMapping(params = {"ids", "!usernames", "!limit", "!username", "!stream"})
+  public UserLookupResponse<Long> getUsersByIds(
+      @RequestParam @NotEmpty @Size(max = MAX_LOOKUP_SIZE) List<Long> ids) {
+    return userService.getUsersByIds(ids);
+  }
+
+  @GetMapping(params = {"usernames", "!ids", "!limit", "!username", "!stream"})
+  public UserLookupResponse<String> getUsersByUsernames(
+      @RequestParam @NotEmpty @Size(max = MAX_LOOKUP_SIZE) List<String> usernames) {
+    return userService.getUsersByUsernames(usernames);
+  }
+
+  @GetMapping(params = {"limit", "!ids", "!usernames", "!username", "!stream"})
+  public UserPageResponse getUsersPage(
+      @RequestParam @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+      @RequestParam(required = false) Long after) {
+    // Fetching one extra row tells whether there is a next page without a count query
+    List<UserResponse> users = userService.getUsers(after, limit + 1);
+    List<UserResponse> page = users.size() > limit ? users.subList(0, limit) : users;
+    Long nextCursor = users.size() > limit ? page.getLast().id() : null;
+    return new UserPageResponse(page, nextCursor);
+  }
+
+  @GetMapping("/search")
+  public UserSearchResponse searchUsers(
+      @Valid UserSearchRequest userSearchRequest,
+      @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+    return userService.searchUsers(userSearchRequest, after, limit);
+  }
+
+  // Consumers poll with the nextCursor of the previous response, a page shorter than the limit
+  // means they are up to date
+  @GetMapping("/changes")
+  public UserChangesResponse getChanges(
+      @RequestParam(required = false) String since,
+      @RequestParam(defaultValue = "100") @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+    return userService.getChanges(since, limit);
+  }
+
+  // Streams JSON only: a client that asks for another format gets the list of getUsers instead
+  @GetMapping(
+      params = {"stream=true", "!ids", "!usernames", "!limit", "!username"},
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamUsers() {
+    StreamingResponseBody body =
+        outputStream -> {
+          try (SequenceWriter sequenceWriter =
+              jsonMapper.writer().writeValuesAsArray(StreamUtils.nonClosing(outputStream))) {
+            userService.streamUsers(sequenceWriter::write);
+          }
+        };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+  }
+
+  // Every user, for the jobs that need the whole table, written as it is read from a forward-only
+  // cursor instead of being collected first. Gzipped like the other responses.
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportUsers(
+      @RequestParam(defaultValue = "ndjson") String format) {
+    UserExportFormat exportFormat =
+        UserExportFormat.of(format)
+            .orElseThrow(
+                () ->
+                    new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "Format must be one of ndjson and csv"));
+    StreamingResponseBody body =
+        outputStream -> {
+          try (UserExportWriter writer =
+              exportFormat.open(StreamUtils.nonClosing(outputStream), jsonMapper)) {
+            userService.exportUsers(writer);
+          }
+        };
+    ContentDisposition contentDisposition =
+        ContentDisposition.attachment().filename("users." + exportFormat.getExtension()).build();
+    return ResponseEntity.ok()
+        .contentType(exportFormat.getMediaType())
+        .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+        .body(body);
   }
 
+  // Answers with two index-only existence queries, a free name isn't a UserNotFoundException
+  @GetMapping("/availability")
+  public UserAvailabilityResponse getAvailability(
+      @RequestParam(required = false) String username,
+      @RequestParam(required = false) String email) {
+    if (username == null && email == null) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "At least one of username and email must be informed");
+    }
+    return new UserAvailabilityResponse(
+        username != null ? userService.isUsernameAvailable(username) : null,
+        email != null ? userService.isEmailAvailable(email) : null);
+  }
+
+  // With the ETag and Last-Modified set, Spring answers a matching If-None-Match or
+  // If-Modified-Since with a 304 and doesn't write the body
   @GetMapping("/{id}")
-  public UserResponse getUserById(@PathVariable Long id) {
+  public ResponseEntity<UserResponse> getUserById(@PathVariable Long id) {
     User user = userService.validateAndGetUserById(id);
-    return UserResponse.from(user);
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noCache())
+        .eTag(UserETags.of(user))
+        .lastModified(user.getUpdatedOn())
+        .body(UserResponse.from(user));
   }
 
   @ResponseStatus(HttpStatus.CREATED)
   @PostMapping
   public UserResponse createUser(@Valid @RequestBody CreateUserRequest createUserRequest) {
-    User user = createUserRequest.toDomain();
+    User user = createUserRequest.toDomain(User::new);
     user = userService.saveUser(user);
     return UserResponse.from(user);
   }
 
+  @PostMapping("/batch")
+  public List<CreateUserBatchItemResponse> createUsers(
+      @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<CreateUserRequest> createUserRequests) {
+    CreateUserBatchItemResponse[] responses =
+        new CreateUserBatchItemResponse[createUserRequests.size()];
+    Map<Integer, User> usersByIndex = new LinkedHashMap<>();
+    for (int i = 0; i < createUserRequests.size(); i++) {
+      CreateUserRequest createUserRequest = createUserRequests.get(i);
+      String violations = getViolations(createUserRequest);
+      if (violations != null) {
+        responses[i] =
+            CreateUserBatchItemResponse.failed(
+                i, HttpStatus.BAD_REQUEST.value(), "BadRequest", violations);
+      } else {
+        usersByIndex.put(i, createUserRequest.toDomain(User::new));
+      }
+    }
+
+    userService.saveUsers(new ArrayList<>(usersByIndex.values()));
+
+    usersByIndex.forEach(
+        (i, user) ->
+            responses[i] =
+                user.getId() != null
+                    ? CreateUserBatchItemResponse.created(i, UserResponse.from(user))
+                    : CreateUserBatchItemResponse.failed(
+                        i,
+                        HttpStatus.CONFLICT.value(),
+                        "UserDataDuplicated",
+                        new UserDataDuplicatedException().getMessage()));
+    return Arrays.asList(responses);
+  }
+
   @PatchMapping("/{id}")
-  public UserResponse updateUser(
-      @PathVariable Long id, @Valid @RequestBody UpdateUserRequest updateUserRequest) {
-    User user = userService.validateAndGetUserById(id);
-    boolean changed = updateUserRequest.hasChanges(user);
-    updateUserRequest.applyTo(user);
-    if (changed) {
-      user = userService.saveUser(user);
+  public ResponseEntity<UserResponse> updateUser(
+      @PathVariable Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @Valid @RequestBody UpdateUserRequest updateUserRequest) {
+    Instant expectedUpdatedOn =
+        ifMatch != null ? UserETags.getExpectedUpdatedOn(id, ifMatch) : null;
+    User user;
+    try {
+      user = userService.updateUser(id, updateUserRequest, expectedUpdatedOn);
+    } catch (UserNotFoundException e) {
+      // Not even "*" matches a user that doesn't exist, the precondition fails (RFC 9110, 13.1.1)
+      throw ifMatch != null ? new UserPreconditionFailedException(id) : e;
     }
-    return UserResponse.from(user);
+    return ResponseEntity.ok().eTag(UserETags.of(user)).body(UserResponse.from(user));
   }
 
   @ResponseStatus(HttpStatus.NO_CONTENT)
   @DeleteMapping("/{id}")
   public void deleteUser(@PathVariable Long id) {
-    User user = userService.validateAndGetUserById(id);
-    userService.deleteUser(user);
+    userService.deleteUser(id);
+  }
+
+  private String getViolations(CreateUserRequest createUserRequest) {
+    if (createUserRequest == null) {
+      return "must not be null";
+    }
+    Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(createUserRequest);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    return violations.stream()
+        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
   }
 }
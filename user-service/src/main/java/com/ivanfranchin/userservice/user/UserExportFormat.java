@@ -0,0 +1,39 @@
+package com.ivanfranchin.userservice.user;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+import tools.jackson.databind.json.JsonMapper;
+
+/** The formats of {@code GET /api/users/export}, one user per line in both. */
+@Getter
+@AllArgsConstructor
+public enum UserExportFormat {
+  NDJSON("ndjson", MediaType.APPLICATION_NDJSON) {
+    @Override
+    UserExportWriter open(OutputStream outputStream, JsonMapper jsonMapper) {
+      return new UserExportWriter.Ndjson(outputStream, jsonMapper);
+    }
+  },
+  CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)) {
+    @Override
+    UserExportWriter open(OutputStream outputStream, JsonMapper jsonMapper) throws IOException {
+      return new UserExportWriter.Csv(outputStream);
+    }
+  };
+
+  private final String extension;
+  private final MediaType mediaType;
+
+  abstract UserExportWriter open(OutputStream outputStream, JsonMapper jsonMapper)
+      throws IOException;
+
+  public static Optional<UserExportFormat> of(String format) {
+    return Arrays.stream(values()).filter(value -> value.extension.equals(format)).findFirst();
+  }
+}
@@ -0,0 +1,24 @@
+package com.ivanfranchin.userservice.user;
+
+import java.io.IOException;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface UserExportRepository {
+
+  /**
+   * Reads every user in id order and hands each row to the {@code handler} as soon as it arrives,
+   * so the memory used doesn't depend on the size of the table. The connection is held, and the
+   * read-only transaction kept open, until the last row has been handled.
+   *
+   * @throws IOException when the handler fails to write a row, which stops the export
+   */
+  @Transactional(readOnly = true)
+  void exportAll(UserRowHandler handler) throws IOException;
+
+  @FunctionalInterface
+  interface UserRowHandler {
+
+    /** Handles one row, with the birthday as the yyyy-MM-dd text that MySQL sends for a DATE. */
+    void handle(long id, String username, String email, String birthday) throws IOException;
+  }
+}
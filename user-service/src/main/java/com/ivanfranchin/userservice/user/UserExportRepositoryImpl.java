@@ -0,0 +1,46 @@
+package com.ivanfranchin.userservice.user;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+// A forward-only, read-only statement with a fetch size of Integer.MIN_VALUE makes Connector/J read
+// the rows off the socket one at a time instead of buffering the whole result, like streamAllBy
+// does for JPA. The columns go to the handler as they are, without an entity or a DTO per row.
+@RequiredArgsConstructor
+class UserExportRepositoryImpl implements UserExportRepository {
+
+  private static final String EXPORT_USERS_SQL =
+      "select id, username, email, birthday from users order by id";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public void exportAll(UserRowHandler handler) throws IOException {
+    RowCallbackHandler rowCallbackHandler =
+        rs -> {
+          try {
+            handler.handle(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        };
+    try {
+      jdbcTemplate.query(
+          con -> {
+            PreparedStatement ps =
+                con.prepareStatement(
+                    EXPORT_USERS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+          },
+          rowCallbackHandler);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+}
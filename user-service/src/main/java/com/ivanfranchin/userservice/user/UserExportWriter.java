@@ -0,0 +1,106 @@
+package com.ivanfranchin.userservice.user;
+
+import com.ivanfranchin.userservice.user.UserExportRepository.UserRowHandler;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+// Writes the rows of UserExportRepository as they come, through a buffer of its own, and leaves
+// the output stream open on close
+abstract class UserExportWriter implements UserRowHandler, AutoCloseable {
+
+  @Override
+  public abstract void close() throws IOException;
+
+  // One JSON object per line, with the same properties as UserResponse. The generator escapes
+  // the strings and encodes straight to UTF-8 bytes.
+  static final class Ndjson extends UserExportWriter {
+
+    private final JsonGenerator generator;
+
+    Ndjson(OutputStream outputStream, JsonMapper jsonMapper) {
+      this.generator =
+          jsonMapper
+              .writer()
+              .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+              .withRootValueSeparator("")
+              .createGenerator(outputStream);
+    }
+
+    @Override
+    public void handle(long id, String username, String email, String birthday) {
+      generator.writeStartObject();
+      generator.writeNumberProperty("id", id);
+      generator.writeStringProperty("username", username);
+      generator.writeStringProperty("email", email);
+      generator.writeStringProperty("birthday", birthday);
+      generator.writeEndObject();
+      generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() {
+      generator.close();
+    }
+  }
+
+  // RFC 4180: a header line, CRLF line endings, and the fields with a comma, a quote or a line
+  // break quoted, with their quotes doubled
+  static final class Csv extends UserExportWriter {
+
+    private static final String HEADER = "id,username,email,birthday\r\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+
+    Csv(OutputStream outputStream) throws IOException {
+      this.writer =
+          new BufferedWriter(
+              new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+      writer.write(HEADER);
+    }
+
+    @Override
+    public void handle(long id, String username, String email, String birthday) throws IOException {
+      writer.write(Long.toString(id));
+      writer.write(',');
+      writeField(username);
+      writer.write(',');
+      writeField(email);
+      writer.write(',');
+      writer.write(birthday);
+      writer.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+      writer.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+      if (!needsQuotes(value)) {
+        writer.write(value);
+        return;
+      }
+      writer.write('"');
+      writer.write(value.replace("\"", "\"\""));
+      writer.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
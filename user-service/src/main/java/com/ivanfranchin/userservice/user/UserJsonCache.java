@@ -0,0 +1,141 @@
+package com.ivanfranchin.userservice.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Bounded cache of the UTF-8 JSON of each {@link UserResponse}, so that reads write bytes that were
+ * serialized once instead of running Jackson on every request.
+ *
+ * <p>Entries are keyed by id and only reused while the response they were serialized from is equal
+ * to the one being written. A user that changed is serialized again and replaces its entry, so
+ * nothing has to be evicted on update. Comparing the four fields is much cheaper than serializing
+ * them, and it also works for the list reads, whose projections don't carry {@code updatedOn}. The
+ * returned arrays are shared and must not be modified.
+ *
+ * <p>Only the reads of a single user fill the cache. The lists, pages and lookups are assembled
+ * from the JSON already cached, and serialize the other users without caching them: up to 1000
+ * users a response, they would otherwise replace most of the cache on every read of another page.
+ */
+@Component
+public class UserJsonCache implements MeterBinder {
+
+  private static final byte[] EMPTY_ARRAY = {'[', ']'};
+  private static final byte[] PAGE_USERS = "{\"users\":".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] PAGE_NEXT_CURSOR =
+      ",\"nextCursor\":".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] LOOKUP_MISSING = ",\"missing\":".getBytes(StandardCharsets.UTF_8);
+
+  private final Cache<Long, Entry> jsonById;
+  private final ObjectWriter writer;
+  private final JsonMapper jsonMapper;
+
+  public UserJsonCache(
+      JsonMapper jsonMapper, @Value("${app.user-json-cache.spec:maximumSize=10000}") String spec) {
+    this.jsonById = Caffeine.from(spec).recordStats().build();
+    this.writer = jsonMapper.writerFor(UserResponse.class);
+    this.jsonMapper = jsonMapper;
+  }
+
+  public byte[] toJson(UserResponse user) {
+    byte[] json = getCachedJson(user);
+    if (json == null) {
+      json = writer.writeValueAsBytes(user);
+      jsonById.put(user.id(), new Entry(user, json));
+    }
+    return json;
+  }
+
+  /**
+   * Writes the JSON array of the users by concatenating their cached JSON, serializing the users
+   * that aren't cached.
+   */
+  public byte[] toJsonArray(List<UserResponse> users) {
+    if (users.isEmpty()) {
+      return EMPTY_ARRAY;
+    }
+    byte[][] fragments = new byte[users.size()][];
+    // brackets and commas
+    int length = users.size() + 1;
+    for (int i = 0; i < fragments.length; i++) {
+      fragments[i] = toJsonFragment(users.get(i));
+      length += fragments[i].length;
+    }
+    byte[] json = new byte[length];
+    json[0] = '[';
+    int position = 1;
+    for (byte[] fragment : fragments) {
+      System.arraycopy(fragment, 0, json, position, fragment.length);
+      position += fragment.length;
+      json[position++] = ',';
+    }
+    json[length - 1] = ']';
+    return json;
+  }
+
+  /** Writes the JSON of a {@code UserPageResponse} around the cached JSON of the users. */
+  public byte[] toJsonPage(List<UserResponse> users, Long nextCursor) {
+    return writeObject(
+        users, PAGE_NEXT_CURSOR, String.valueOf(nextCursor).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Writes the JSON of a {@code UserSearchResponse} around the cached JSON of the users. The cursor
+   * is written as it is, so it must not need escaping.
+   */
+  public byte[] toJsonSearchPage(List<UserResponse> users, String nextCursor) {
+    String nextCursorJson = nextCursor != null ? '"' + nextCursor + '"' : "null";
+    return writeObject(users, PAGE_NEXT_CURSOR, nextCursorJson.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Writes the JSON of a {@code UserLookupResponse} around the cached JSON of the users. */
+  public byte[] toJsonLookup(List<UserResponse> users, List<?> missing) {
+    return writeObject(users, LOOKUP_MISSING, jsonMapper.writeValueAsBytes(missing));
+  }
+
+  // {"users":<users>,<field>:<value>}
+  private byte[] writeObject(List<UserResponse> users, byte[] field, byte[] valueJson) {
+    byte[] usersJson = toJsonArray(users);
+    byte[] json =
+        new byte[PAGE_USERS.length + usersJson.length + field.length + valueJson.length + 1];
+    int position = 0;
+    for (byte[] part : new byte[][] {PAGE_USERS, usersJson, field, valueJson}) {
+      System.arraycopy(part, 0, json, position, part.length);
+      position += part.length;
+    }
+    json[position] = '}';
+    return json;
+  }
+
+  private byte[] toJsonFragment(UserResponse user) {
+    byte[] json = getCachedJson(user);
+    return json != null ? json : writer.writeValueAsBytes(user);
+  }
+
+  private byte[] getCachedJson(UserResponse user) {
+    Entry entry = jsonById.getIfPresent(user.id());
+    return entry != null && entry.user().equals(user) ? entry.json() : null;
+  }
+
+  public void invalidateAll() {
+    jsonById.invalidateAll();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    new CaffeineCacheMetrics<>(jsonById, "userJsonById", Tags.empty()).bindTo(registry);
+  }
+
+  private record Entry(UserResponse user, byte[] json) {}
+}
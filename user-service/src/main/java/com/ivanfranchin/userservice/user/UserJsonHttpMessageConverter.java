@@ -0,0 +1,86 @@
+package com.ivanfranchin.userservice.user;
+
+import com.ivanfranchin.userservice.user.dto.UserLookupResponse;
+import com.ivanfranchin.userservice.user.dto.UserPageResponse;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.dto.UserSearchResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractSmartHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the JSON of the user responses with the {@link UserJsonCache}, ahead of the Jackson
+ * converter, which still reads the requests and writes everything else. It only takes part when
+ * JSON is the negotiated format, so the other formats, e.g. CBOR or Smile, are written by their own
+ * Jackson converter from the same responses.
+ */
+@Component
+public class UserJsonHttpMessageConverter extends AbstractSmartHttpMessageConverter<Object> {
+
+  private static final Set<Class<?>> RESPONSE_CLASSES =
+      Set.of(
+          UserResponse.class,
+          UserPageResponse.class,
+          UserSearchResponse.class,
+          UserLookupResponse.class);
+
+  private final UserJsonCache userJsonCache;
+
+  public UserJsonHttpMessageConverter(UserJsonCache userJsonCache) {
+    super(MediaType.APPLICATION_JSON);
+    this.userJsonCache = userJsonCache;
+  }
+
+  @Override
+  public boolean canRead(ResolvableType type, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  public Object read(
+      ResolvableType type, HttpInputMessage inputMessage, Map<String, Object> hints) {
+    throw new HttpMessageNotReadableException("Only writes user responses", inputMessage);
+  }
+
+  @Override
+  public boolean canWrite(ResolvableType type, Class<?> valueClass, MediaType mediaType) {
+    if (!canWrite(mediaType)) {
+      return false;
+    }
+    if (List.class.isAssignableFrom(valueClass)) {
+      return type.asCollection().resolveGeneric() == UserResponse.class;
+    }
+    return RESPONSE_CLASSES.contains(valueClass);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  protected void writeInternal(
+      Object response,
+      ResolvableType type,
+      HttpOutputMessage outputMessage,
+      Map<String, Object> hints)
+      throws IOException {
+    byte[] json =
+        switch (response) {
+          case UserResponse user -> userJsonCache.toJson(user);
+          case UserPageResponse page -> userJsonCache.toJsonPage(page.users(), page.nextCursor());
+          case UserSearchResponse page ->
+              userJsonCache.toJsonSearchPage(page.users(), page.nextCursor());
+          case UserLookupResponse<?> lookup ->
+              userJsonCache.toJsonLookup(lookup.users(), lookup.missing());
+          case List<?> users -> userJsonCache.toJsonArray((List<UserResponse>) users);
+          default -> throw new IllegalArgumentException("Not a user response: " + response);
+        };
+    outputMessage.getHeaders().setContentLength(json.length);
+    outputMessage.getBody().write(json);
+  }
+}
@@ -0,0 +1,58 @@
+package com.ivanfranchin.userservice.user;
+
+import com.ivanfranchin.userservice.outbox.OutboxRepository;
+import com.ivanfranchin.userservice.outbox.model.OutboxEvent;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.model.User;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Writes the user lifecycle events to the outbox. It must be called in the transaction that makes
+ * the change, so that the event is committed or rolled back with it.
+ */
+@Component
+public class UserOutbox {
+
+  public static final String USER_CREATED = "UserCreated";
+  public static final String USER_UPDATED = "UserUpdated";
+  public static final String USER_DELETED = "UserDeleted";
+
+  private final OutboxRepository outboxRepository;
+  private final ObjectWriter userWriter;
+  private final JsonMapper jsonMapper;
+
+  public UserOutbox(OutboxRepository outboxRepository, JsonMapper jsonMapper) {
+    this.outboxRepository = outboxRepository;
+    this.userWriter = jsonMapper.writerFor(UserResponse.class);
+    this.jsonMapper = jsonMapper;
+  }
+
+  public void created(List<User> users) {
+    Instant now = now();
+    outboxRepository.insertAll(users.stream().map(user -> event(USER_CREATED, user, now)).toList());
+  }
+
+  public void updated(User user) {
+    outboxRepository.insertAll(List.of(event(USER_UPDATED, user, now())));
+  }
+
+  public void deleted(Long id) {
+    String payload = jsonMapper.writeValueAsString(Map.of("id", id));
+    outboxRepository.insertAll(List.of(new OutboxEvent(USER_DELETED, id, payload, now())));
+  }
+
+  private OutboxEvent event(String type, User user, Instant createdOn) {
+    String payload = userWriter.writeValueAsString(UserResponse.from(user));
+    return new OutboxEvent(type, user.getId(), payload, createdOn);
+  }
+
+  private static Instant now() {
+    return Instant.now().truncatedTo(ChronoUnit.MICROS);
+  }
+}
@@ -1,10 +1,78 @@
 package com.ivanfranchin.userservice.user;
 
+import com.ivanfranchin.userservice.user.dto.UserResponse;
 import com.ivanfranchin.userservice.user.model.User;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository
+    extends JpaRepository<User, Long>,
+        UserBatchRepository,
+        UserUpdateRepository,
+        UserSearchRepository,
+        UserChangeRepository,
+        UserExportRepository {
 
+  // Declared query methods don't inherit the read-only transactions of SimpleJpaRepository, like
+  // findById and findAll do. They need one to be routed to a replica, when replicas are configured.
+  @Transactional(readOnly = true)
   Optional<User> findByUsername(String username);
+
+  @Transactional(readOnly = true)
+  List<User> findByUsernameIn(Collection<String> usernames);
+
+  @Transactional(readOnly = true)
+  @Query("select u.username from User u where u.username in :usernames")
+  Set<String> findExistingUsernames(Collection<String> usernames);
+
+  @Transactional(readOnly = true)
+  @Query("select u.email from User u where u.email in :emails")
+  Set<String> findExistingEmails(Collection<String> emails);
+
+  @Transactional(readOnly = true)
+  boolean existsByUsernameOrEmail(String username, String email);
+
+  // Derived exists queries select the id with a limit of one, which the unique indexes on username
+  // and email answer on their own, since InnoDB secondary indexes hold the primary key
+  @Transactional(readOnly = true)
+  boolean existsByUsername(String username);
+
+  @Transactional(readOnly = true)
+  boolean existsByEmail(String email);
+
+  // The list reads build the responses straight from the rows with constructor expressions, so no
+  // entity is instantiated, registered in the persistence context and then copied
+  @Transactional(readOnly = true)
+  @Query(
+      "select new com.ivanfranchin.userservice.user.dto.UserResponse(u.id, u.username, u.email, u.birthday) from User u")
+  List<UserResponse> findAllResponses();
+
+  @Transactional(readOnly = true)
+  @Query(
+      "select new com.ivanfranchin.userservice.user.dto.UserResponse(u.id, u.username, u.email, u.birthday) from User u where u.id > :id order by u.id")
+  List<UserResponse> findResponsesByIdGreaterThan(Long id, Limit limit);
+
+  // Integer.MIN_VALUE tells MySQL Connector/J to stream the result set row by row instead of
+  // buffering it in memory. The projection keeps the rows out of the persistence context.
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+  @Query(
+      "select new com.ivanfranchin.userservice.user.dto.UserResponse(u.id, u.username, u.email, u.birthday) from User u")
+  Stream<UserResponse> streamAllBy();
+
+  // Unlike deleteById, it doesn't load the user before removing it
+  @Transactional
+  @Modifying
+  @Query("delete from User u where u.id = :id")
+  int deleteUserById(Long id);
 }
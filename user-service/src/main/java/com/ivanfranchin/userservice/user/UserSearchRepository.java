@@ -0,0 +1,17 @@
+package com.ivanfranchin.userservice.user;
+
+import com.ivanfranchin.userservice.user.dto.UserSearchRequest;
+import com.ivanfranchin.userservice.user.dto.UserSearchResponse;
+
+public interface UserSearchRepository {
+
+  /**
+   * Returns up to {@code limit} users matching the filters, in the order of the index that serves
+   * the search, and the cursor to pass as {@code after} for the next page ({@code null} on the last
+   * one).
+   *
+   * @throws com.ivanfranchin.userservice.user.exception.InvalidCursorException when {@code after}
+   *     wasn't returned by the same search
+   */
+  UserSearchResponse search(UserSearchRequest request, String after, int limit);
+}
@@ -0,0 +1,200 @@
+package com.ivanfranchin.userservice.user;
+
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.dto.UserSearchRequest;
+import com.ivanfranchin.userservice.user.dto.UserSearchResponse;
+import com.ivanfranchin.userservice.user.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// The search is ordered by the column of its first filter, and then by id, so that MySQL reads the
+// (column, id) index as a range, in order, and stops after the page: a prefix is a range of the
+// unique index, which ends with the id like every InnoDB secondary index. The other filters are
+// checked on the rows of that range. The cursor holds the column value and the id of the last row,
+// and the next page starts right after them, with "column >= value" keeping the index range.
+@RequiredArgsConstructor
+class UserSearchRepositoryImpl implements UserSearchRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public UserSearchResponse search(UserSearchRequest request, String after, int limit) {
+    SortKey sortKey = SortKey.of(request);
+    List<String> conditions = new ArrayList<>();
+    List<Object> args = new ArrayList<>();
+    if (request.usernamePrefix() != null) {
+      conditions.add("username like ? escape '!'");
+      args.add(likePrefix(request.usernamePrefix()));
+    }
+    if (request.emailPrefix() != null) {
+      conditions.add("email like ? escape '!'");
+      args.add(likePrefix(request.emailPrefix()));
+    }
+    addRange(
+        conditions, args, "birthday", toDate(request.birthdayFrom()), toDate(request.birthdayTo()));
+    addRange(
+        conditions,
+        args,
+        "created_on",
+        toTimestamp(request.createdFrom()),
+        toTimestamp(request.createdTo()));
+    addRange(
+        conditions,
+        args,
+        "updated_on",
+        toTimestamp(request.updatedFrom()),
+        toTimestamp(request.updatedTo()));
+    if (after != null) {
+      Cursor cursor = Cursor.decode(after, sortKey);
+      if (sortKey == SortKey.ID) {
+        conditions.add("id > ?");
+      } else {
+        conditions.add("%1$s >= ? and (%1$s > ? or id > ?)".formatted(sortKey.column));
+        args.add(cursor.value());
+        args.add(cursor.value());
+      }
+      args.add(cursor.id());
+    }
+
+    String sql =
+        "select id, username, email, birthday, %s from users%s order by %s limit ?"
+            .formatted(
+                sortKey.column,
+                conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions),
+                sortKey == SortKey.ID ? "id" : sortKey.column + ", id");
+    // One extra row tells whether there is a next page
+    args.add(limit + 1);
+    List<Row> rows = jdbcTemplate.query(sql, (rs, rowNum) -> Row.map(rs, sortKey), args.toArray());
+
+    List<Row> page = rows.size() > limit ? rows.subList(0, limit) : rows;
+    String nextCursor = rows.size() > limit ? Cursor.encode(page.getLast(), sortKey) : null;
+    return new UserSearchResponse(page.stream().map(Row::user).toList(), nextCursor);
+  }
+
+  private static void addRange(
+      List<String> conditions, List<Object> args, String column, Object from, Object to) {
+    if (from != null) {
+      conditions.add(column + " >= ?");
+      args.add(from);
+    }
+    if (to != null) {
+      conditions.add(column + " < ?");
+      args.add(to);
+    }
+  }
+
+  private static String likePrefix(String prefix) {
+    return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+  }
+
+  private static Date toDate(LocalDate date) {
+    return date != null ? Date.valueOf(date) : null;
+  }
+
+  private static Timestamp toTimestamp(Instant instant) {
+    return instant != null ? Timestamp.from(instant) : null;
+  }
+
+  private enum SortKey {
+    USERNAME("username", ResultSet::getString, value -> value),
+    EMAIL("email", ResultSet::getString, value -> value),
+    BIRTHDAY("birthday", ResultSet::getDate, value -> Date.valueOf(LocalDate.parse(value))),
+    CREATED_ON(
+        "created_on", ResultSet::getTimestamp, value -> Timestamp.from(Instant.parse(value))),
+    UPDATED_ON(
+        "updated_on", ResultSet::getTimestamp, value -> Timestamp.from(Instant.parse(value))),
+    ID("id", ResultSet::getLong, Long::valueOf);
+
+    private final String column;
+    private final ColumnReader reader;
+    private final Function<String, Object> parser;
+
+    SortKey(String column, ColumnReader reader, Function<String, Object> parser) {
+      this.column = column;
+      this.reader = reader;
+      this.parser = parser;
+    }
+
+    static SortKey of(UserSearchRequest request) {
+      if (request.usernamePrefix() != null) {
+        return USERNAME;
+      }
+      if (request.emailPrefix() != null) {
+        return EMAIL;
+      }
+      if (request.birthdayFrom() != null || request.birthdayTo() != null) {
+        return BIRTHDAY;
+      }
+      if (request.createdFrom() != null || request.createdTo() != null) {
+        return CREATED_ON;
+      }
+      if (request.updatedFrom() != null || request.updatedTo() != null) {
+        return UPDATED_ON;
+      }
+      return ID;
+    }
+
+    String format(Object value) {
+      return switch (value) {
+        case Date date -> date.toLocalDate().toString();
+        case Timestamp timestamp -> timestamp.toInstant().toString();
+        default -> value.toString();
+      };
+    }
+  }
+
+  @FunctionalInterface
+  private interface ColumnReader {
+    Object read(ResultSet rs, String column) throws SQLException;
+  }
+
+  private record Row(UserResponse user, Object sortValue) {
+
+    static Row map(ResultSet rs, SortKey sortKey) throws SQLException {
+      UserResponse user =
+          new UserResponse(
+              rs.getLong("id"),
+              rs.getString("username"),
+              rs.getString("email"),
+              rs.getDate("birthday").toLocalDate());
+      return new Row(user, sortKey.reader.read(rs, sortKey.column));
+    }
+  }
+
+  // "<sort key>:<id>:<value>" in URL-safe Base64, so that a cursor of another search is rejected
+  private record Cursor(long id, Object value) {
+
+    static String encode(Row row, SortKey sortKey) {
+      String cursor =
+          "%s:%d:%s".formatted(sortKey, row.user().id(), sortKey.format(row.sortValue()));
+      return Base64.getUrlEncoder()
+          .withoutPadding()
+          .encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decode(String cursor, SortKey sortKey) {
+      try {
+        String[] parts =
+            new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+        if (parts.length != 3 || !parts[0].equals(sortKey.name())) {
+          throw new InvalidCursorException();
+        }
+        return new Cursor(Long.parseLong(parts[1]), sortKey.parser.apply(parts[2]));
+      } catch (IllegalArgumentException | DateTimeParseException e) {
+        throw new InvalidCursorException();
+      }
+    }
+  }
+}
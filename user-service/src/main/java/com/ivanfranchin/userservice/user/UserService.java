@@ -1,48 +1,356 @@
 package com.ivanfranchin.userservice.user;
 
+import com.google.common.collect.Lists;
+import com.ivanfranchin.userservice.user.dto.UpdateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UserChangesResponse;
+import com.ivanfranchin.userservice.user.dto.UserLookupResponse;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.dto.UserSearchRequest;
+import com.ivanfranchin.userservice.user.dto.UserSearchResponse;
 import com.ivanfranchin.userservice.user.exception.UserDataDuplicatedException;
 import com.ivanfranchin.userservice.user.exception.UserNotFoundException;
+import com.ivanfranchin.userservice.user.exception.UserPreconditionFailedException;
 import com.ivanfranchin.userservice.user.model.User;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+@Timed(value = "user.service", histogram = true)
+@Counted(value = "user.service.failures", recordFailuresOnly = true)
 @RequiredArgsConstructor
+@EnableConfigurationProperties(UserChangesProperties.class)
 @Service
 public class UserService {
 
+  // A power of two, like the IN lists Hibernate pads to, so that a full chunk adds no padding
+  private static final int LOOKUP_CHUNK_SIZE = 512;
+
   private final UserRepository userRepository;
+  private final UserCache userCache;
+  private final UserBloomFilters userBloomFilters;
+  private final UserChangesProperties userChangesProperties;
+  private final UserOutbox userOutbox;
+  private final TransactionTemplate transactionTemplate;
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void warmUpBloomFilters() {
+    try (Stream<UserResponse> users = userRepository.streamAllBy()) {
+      userBloomFilters.warmUp(users);
+    }
+  }
 
+  @Transactional
   public User saveUser(User user) {
+    // A username and email the Bloom filters have never seen can't be duplicated, so only a
+    // probable duplicate costs a query. Re-submitted signups then fail here, without a rejected
+    // INSERT.
+    if ((userBloomFilters.mightContainUsername(user.getUsername())
+            || userBloomFilters.mightContainEmail(user.getEmail()))
+        && userRepository.existsByUsernameOrEmail(user.getUsername(), user.getEmail())) {
+      throw new UserDataDuplicatedException();
+    }
+    User savedUser;
+    try {
+      savedUser = userRepository.save(user);
+    } catch (DataIntegrityViolationException e) {
+      throw new UserDataDuplicatedException();
+    }
+    userOutbox.created(List.of(savedUser));
+    afterCommit(() -> userCache.put(savedUser));
+    userBloomFilters.put(savedUser.getUsername(), savedUser.getEmail());
+    return savedUser;
+  }
+
+  /**
+   * Inserts the users in JDBC batches. A user whose username or email already exists, in the table
+   * or earlier in the same list, is skipped. The users that were inserted get their id set, the
+   * skipped ones keep a {@code null} id.
+   */
+  public List<User> saveUsers(List<User> users) {
+    List<User> candidates = withoutDuplicates(users);
+    try {
+      insertAll(candidates);
+    } catch (DataIntegrityViolationException e) {
+      // A conflicting user was inserted concurrently, or the unique indexes compare values
+      // differently than Java does (e.g. case-insensitive collation). The batch was rolled back,
+      // so insert one by one to find out which users are the duplicated ones.
+      for (User user : candidates) {
+        try {
+          insertAll(List.of(user));
+        } catch (DataIntegrityViolationException ignored) {
+          // duplicated, its id stays null
+        }
+      }
+    }
+    List<User> inserted = candidates.stream().filter(user -> user.getId() != null).toList();
+    inserted.forEach(user -> userBloomFilters.put(user.getUsername(), user.getEmail()));
+    return inserted;
+  }
+
+  // Each attempt commits the users with their events, or rolls both back
+  private void insertAll(List<User> users) {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          userRepository.insertAll(users);
+          userOutbox.created(users);
+        });
+  }
+
+  private List<User> withoutDuplicates(List<User> users) {
+    Set<String> usernames = new HashSet<>();
+    Set<String> emails = new HashSet<>();
+    List<User> candidates = new ArrayList<>();
+    for (User user : users) {
+      if (!usernames.contains(user.getUsername()) && !emails.contains(user.getEmail())) {
+        usernames.add(user.getUsername());
+        emails.add(user.getEmail());
+        candidates.add(user);
+      }
+    }
+    if (candidates.isEmpty()) {
+      return candidates;
+    }
+    Set<String> existingUsernames =
+        findExisting(
+            usernames,
+            userBloomFilters::mightContainUsername,
+            userRepository::findExistingUsernames);
+    Set<String> existingEmails =
+        findExisting(
+            emails, userBloomFilters::mightContainEmail, userRepository::findExistingEmails);
+    return candidates.stream()
+        .filter(
+            user ->
+                !existingUsernames.contains(user.getUsername())
+                    && !existingEmails.contains(user.getEmail()))
+        .toList();
+  }
+
+  // Only the values the Bloom filter has probably seen are looked up
+  private static Set<String> findExisting(
+      Set<String> values,
+      Predicate<String> mightExist,
+      Function<Collection<String>, Set<String>> finder) {
+    List<String> candidates = values.stream().filter(mightExist).toList();
+    return candidates.isEmpty() ? Set.of() : finder.apply(candidates);
+  }
+
+  /**
+   * Applies the non-null fields of the request with a single UPDATE and reads the user back in the
+   * same transaction. A request without fields is answered like a read. When {@code
+   * expectedUpdatedOn} is given, the user is only updated if it wasn't modified since then.
+   */
+  @Transactional
+  public User updateUser(Long id, UpdateUserRequest updateUserRequest, Instant expectedUpdatedOn) {
+    if (updateUserRequest.username() == null
+        && updateUserRequest.email() == null
+        && updateUserRequest.birthday() == null) {
+      User user = validateAndGetUserById(id);
+      if (expectedUpdatedOn != null && !expectedUpdatedOn.equals(user.getUpdatedOn())) {
+        throw new UserPreconditionFailedException(id);
+      }
+      return user;
+    }
+    int updated;
     try {
-      return userRepository.save(user);
+      updated =
+          userRepository.updateUser(
+              id,
+              updateUserRequest.username(),
+              updateUserRequest.email(),
+              updateUserRequest.birthday(),
+              expectedUpdatedOn);
     } catch (DataIntegrityViolationException e) {
       throw new UserDataDuplicatedException();
     }
+    if (updated == 0) {
+      if (expectedUpdatedOn != null && userRepository.existsById(id)) {
+        throw new UserPreconditionFailedException(id);
+      }
+      throw userNotFound(id);
+    }
+    User user = userRepository.findById(id).orElseThrow(() -> userNotFound(id));
+    userOutbox.updated(user);
+    afterCommit(() -> userCache.put(user));
+    userBloomFilters.put(user.getUsername(), user.getEmail());
+    return user;
+  }
+
+  // The tombstone and the event are written in the same transaction, so neither the change feed nor
+  // the outbox can miss a delete
+  @Transactional
+  public void deleteUser(Long id) {
+    if (userRepository.deleteUserById(id) == 0) {
+      throw userNotFound(id);
+    }
+    userRepository.insertTombstone(id, Instant.now().truncatedTo(ChronoUnit.MICROS));
+    userOutbox.deleted(id);
+    afterCommit(() -> userCache.evict(id));
   }
 
-  public void deleteUser(User user) {
-    userRepository.delete(user);
+  @Transactional(readOnly = true)
+  public List<UserResponse> getUsers() {
+    return userRepository.findAllResponses();
   }
 
-  public List<User> getUsers() {
-    return userRepository.findAll();
+  @Transactional(readOnly = true)
+  public List<UserResponse> getUsers(Long after, int limit) {
+    return userRepository.findResponsesByIdGreaterThan(after != null ? after : 0L, Limit.of(limit));
   }
 
+  @Transactional(readOnly = true)
+  public UserSearchResponse searchUsers(UserSearchRequest request, String after, int limit) {
+    return userRepository.search(request, after, limit);
+  }
+
+  /**
+   * Returns the users created, updated or deleted after the {@code since} cursor. The changes of
+   * the last {@code app.user-changes.settle-time} are left for the next poll: their timestamps are
+   * taken before the transactions commit, so a change could still show up with a time before the
+   * ones already returned.
+   *
+   * <p>Read-write, so that it runs on the primary: a replica can be behind by more than the settle
+   * time, and the cursor would then move past the changes it hasn't replayed yet, which the
+   * consumers would never see.
+   */
+  @Transactional
+  public UserChangesResponse getChanges(String since, int limit) {
+    return userRepository.findChanges(
+        since, Instant.now().minus(userChangesProperties.settleTime()), limit);
+  }
+
+  @Transactional(readOnly = true)
+  public void streamUsers(Consumer<UserResponse> action) {
+    try (Stream<UserResponse> users = userRepository.streamAllBy()) {
+      users.forEach(action);
+    }
+  }
+
+  // Rows go from the cursor to the handler one by one, for as long as the handler keeps up
+  @Transactional(readOnly = true)
+  public void exportUsers(UserExportRepository.UserRowHandler handler) throws IOException {
+    userRepository.exportAll(handler);
+  }
+
+  // Always asks the database, unlike saveUser: the Bloom filters only know the users this
+  // instance has seen, and a signup form told that a name is free would then get a 409. The
+  // unique index also compares with the column collation, which treats accent and case variants
+  // as equal.
+  public boolean isUsernameAvailable(String username) {
+    return !userRepository.existsByUsername(username);
+  }
+
+  public boolean isEmailAvailable(String email) {
+    return !userRepository.existsByEmail(email);
+  }
+
+  // Not transactional, so that a cache hit doesn't open a transaction. On a miss, the repository
+  // lookup runs in its own read-only transaction, on a replica when there are. A user it reads
+  // before a write this instance made to it doesn't replace the written one in the cache, see
+  // UserCache, and the client that wrote reads from the primary for a while.
   public User validateAndGetUserById(Long id) {
-    return userRepository
-        .findById(id)
-        .orElseThrow(
-            () -> new UserNotFoundException("User with id '%s' doesn't exist.".formatted(id)));
+    return userCache.getById(id, userRepository::findById).orElseThrow(() -> userNotFound(id));
   }
 
   public User validateAndGetUserByUsername(String username) {
-    return userRepository
-        .findByUsername(username)
+    return userCache
+        .getByUsername(username, userRepository::findByUsername)
         .orElseThrow(
             () ->
-                new UserNotFoundException(
-                    "User with username '%s' doesn't exist.".formatted(username)));
+                new UserNotFoundException("User with username '" + username + "' doesn't exist."));
+  }
+
+  /**
+   * Returns the users with these ids in the order asked, each once, and the ids without user. The
+   * cached users are served from the cache and the others are read with one {@code IN} query per
+   * {@value #LOOKUP_CHUNK_SIZE} ids. Not transactional, like {@link #validateAndGetUserById}.
+   */
+  public UserLookupResponse<Long> getUsersByIds(List<Long> ids) {
+    List<Long> distinctIds = ids.stream().distinct().toList();
+    Map<Long, User> users =
+        userCache.getAllById(
+            distinctIds, missing -> findInChunks(missing, userRepository::findAllById));
+    return toLookupResponse(distinctIds, users);
+  }
+
+  /**
+   * Like {@link #getUsersByIds}, for usernames. Usernames that differ only in case or accents find
+   * the same user, so only the first of them is kept.
+   */
+  public UserLookupResponse<String> getUsersByUsernames(List<String> usernames) {
+    Set<String> seen = UsernameCollation.newSet();
+    List<String> distinctUsernames = usernames.stream().filter(seen::add).toList();
+    Map<String, User> users =
+        userCache.getAllByUsername(
+            distinctUsernames, missing -> findInChunks(missing, userRepository::findByUsernameIn));
+    return toLookupResponse(distinctUsernames, users);
+  }
+
+  private static <K> List<User> findInChunks(
+      Collection<K> keys, Function<List<K>, List<User>> finder) {
+    List<User> users = new ArrayList<>(keys.size());
+    for (List<K> chunk : Lists.partition(List.copyOf(keys), LOOKUP_CHUNK_SIZE)) {
+      users.addAll(finder.apply(chunk));
+    }
+    return users;
+  }
+
+  private static <K> UserLookupResponse<K> toLookupResponse(List<K> keys, Map<K, User> users) {
+    List<UserResponse> found = new ArrayList<>(users.size());
+    List<K> missing = new ArrayList<>();
+    for (K key : keys) {
+      User user = users.get(key);
+      if (user != null) {
+        found.add(UserResponse.from(user));
+      } else {
+        missing.add(key);
+      }
+    }
+    return new UserLookupResponse<>(found, missing);
+  }
+
+  // The cache only changes once the transaction has committed. Before that, a read that misses the
+  // cache would load and cache the row as it was, and a rollback would leave the cache ahead of
+  // the database.
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+        });
+  }
+
+  private static UserNotFoundException userNotFound(Long id) {
+    return new UserNotFoundException("User with id '" + id + "' doesn't exist.");
   }
 }
@@ -0,0 +1,19 @@
+package com.ivanfranchin.userservice.user;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public interface UserUpdateRepository {
+
+  /**
+   * Sets the given non-null fields of the user in a single UPDATE, without loading it first. The
+   * {@code updatedOn} timestamp is only moved when one of the values actually changes. At least one
+   * field must be non-null. When {@code expectedUpdatedOn} is given, the user is only updated if
+   * its {@code updatedOn} still has that value.
+   *
+   * @return the number of users matched, {@code 0} when the user doesn't exist or has a different
+   *     {@code updatedOn}
+   */
+  int updateUser(
+      Long id, String username, String email, LocalDate birthday, Instant expectedUpdatedOn);
+}
@@ -0,0 +1,66 @@
+package com.ivanfranchin.userservice.user;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// MySQL applies the assignments of a single-table UPDATE from left to right, so updated_on has to
+// come first to compare the old values. Strings are compared as binary, otherwise a case-only
+// rename would be equal under the column collation and not bump updated_on. The returned count is
+// the number of matched rows, since Connector/J reports found rows rather than changed rows.
+@RequiredArgsConstructor
+class UserUpdateRepositoryImpl implements UserUpdateRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public int updateUser(
+      Long id, String username, String email, LocalDate birthday, Instant expectedUpdatedOn) {
+    List<String> changes = new ArrayList<>();
+    List<Object> changeArgs = new ArrayList<>();
+    List<String> assignments = new ArrayList<>();
+    List<Object> assignmentArgs = new ArrayList<>();
+    if (username != null) {
+      changes.add("cast(username as binary) <> cast(? as binary)");
+      changeArgs.add(username);
+      assignments.add("username = ?");
+      assignmentArgs.add(username);
+    }
+    if (email != null) {
+      changes.add("cast(email as binary) <> cast(? as binary)");
+      changeArgs.add(email);
+      assignments.add("email = ?");
+      assignmentArgs.add(email);
+    }
+    if (birthday != null) {
+      changes.add("birthday <> ?");
+      changeArgs.add(Date.valueOf(birthday));
+      assignments.add("birthday = ?");
+      assignmentArgs.add(Date.valueOf(birthday));
+    }
+    if (assignments.isEmpty()) {
+      throw new IllegalArgumentException("At least one field must be informed");
+    }
+
+    String sql =
+        "update users set updated_on = case when %s then ? else updated_on end, %s where id = ?%s"
+            .formatted(
+                String.join(" or ", changes),
+                String.join(", ", assignments),
+                expectedUpdatedOn != null ? " and updated_on = ?" : "");
+    List<Object> args = new ArrayList<>(changeArgs);
+    args.add(Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS)));
+    args.addAll(assignmentArgs);
+    args.add(id);
+    if (expectedUpdatedOn != null) {
+      args.add(Timestamp.from(expectedUpdatedOn));
+    }
+    return jdbcTemplate.update(sql, args.toArray());
+  }
+}
@@ -5,12 +5,14 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -22,8 +24,14 @@ import lombok.NoArgsConstructor;
     uniqueConstraints = {
       @UniqueConstraint(name = "UK_email", columnNames = "email"),
       @UniqueConstraint(name = "UK_username", columnNames = "username")
+    },
+    // The searches on these columns read the index as a range ordered by (column, id)
+    indexes = {
+      @Index(name = "IDX_birthday_id", columnList = "birthday, id"),
+      @Index(name = "IDX_created_on_id", columnList = "created_on, id"),
+      @Index(name = "IDX_updated_on_id", columnList = "updated_on, id")
     })
-public class User {
+public class User implements UpdatableUser {
 
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -50,13 +58,15 @@ public class User {
     this.birthday = birthday;
   }
 
+  // Truncated to the column precision, so a saved user has the same timestamps as when it is read
+  // back, and so the same ETag
   @PrePersist
   protected void onPrePersist() {
-    createdOn = updatedOn = Instant.now();
+    createdOn = updatedOn = Instant.now().truncatedTo(ChronoUnit.MICROS);
   }
 
   @PreUpdate
   protected void onPreUpdate() {
-    updatedOn = Instant.now();
+    updatedOn = Instant.now().truncatedTo(ChronoUnit.MICROS);
   }
 }
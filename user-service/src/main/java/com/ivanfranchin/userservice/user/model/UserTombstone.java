@@ -0,0 +1,28 @@
+package com.ivanfranchin.userservice.user.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Marks a deleted user in the change feed. The id is the one of the user, which is never reused, so
+ * a deleted user has exactly one tombstone.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(
+    name = "user_tombstones",
+    indexes = @Index(name = "IDX_deleted_on_id", columnList = "deleted_on, id"))
+public class UserTombstone {
+
+  @Id private Long id;
+
+  @Column(nullable = false)
+  private Instant deletedOn;
+}
@@ -0,0 +1,11 @@
+create table users (
+  id bigint not null auto_increment,
+  username varchar(255) not null,
+  email varchar(255) not null,
+  birthday date not null,
+  created_on datetime(6) not null,
+  updated_on datetime(6) not null,
+  primary key (id),
+  constraint UK_username unique (username),
+  constraint UK_email unique (email)
+) engine=InnoDB;
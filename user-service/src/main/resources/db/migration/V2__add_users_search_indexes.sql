@@ -0,0 +1,12 @@
+-- Built online, in a single pass over the table: reads and writes go on while the indexes are
+-- built, and only the start and the end of the ALTER need a short metadata lock. The lock wait is
+-- bounded, so that the ALTER fails instead of queueing the users queries behind a long transaction.
+set session lock_wait_timeout = 10;
+
+alter table users
+  add index IDX_birthday_id (birthday, id),
+  add index IDX_created_on_id (created_on, id),
+  add index IDX_updated_on_id (updated_on, id),
+  algorithm=inplace, lock=none;
+
+set session lock_wait_timeout = default;
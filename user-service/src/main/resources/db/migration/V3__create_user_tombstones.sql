@@ -0,0 +1,6 @@
+create table user_tombstones (
+  id bigint not null,
+  deleted_on datetime(6) not null,
+  primary key (id),
+  index IDX_deleted_on_id (deleted_on, id)
+) engine=InnoDB;
@@ -0,0 +1,8 @@
+create table outbox_events (
+  id bigint not null auto_increment,
+  type varchar(255) not null,
+  aggregate_id bigint not null,
+  payload tinytext not null,
+  created_on datetime(6) not null,
+  primary key (id)
+) engine=InnoDB;
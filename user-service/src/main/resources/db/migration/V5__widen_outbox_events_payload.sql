@@ -0,0 +1,8 @@
+-- A TINYTEXT holds 255 bytes, less than the JSON of a user with long username and email. Changing
+-- the column type copies the table and blocks writes to it while it runs, which is short since the
+-- outbox only holds the events that weren't published yet.
+set session lock_wait_timeout = 10;
+
+alter table outbox_events modify payload text not null, algorithm=copy, lock=shared;
+
+set session lock_wait_timeout = default;
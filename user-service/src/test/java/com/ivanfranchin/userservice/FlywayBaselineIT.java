@@ -0,0 +1,101 @@
+package com.ivanfranchin.userservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ivanfranchin.userservice.user.UserRepository;
+import com.ivanfranchin.userservice.user.model.User;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.mysql.MySQLContainer;
+
+/**
+ * Starts the application on a database whose schema was created by {@code ddl-auto=update} before
+ * the schema was managed by Flyway, to check that it is adopted and migrated to the current schema.
+ */
+@SpringBootTest
+class FlywayBaselineIT {
+
+  private static final MySQLContainer mySQLContainer =
+      new MySQLContainer("mysql:9.7.1")
+          .withUrlParam("characterEncoding", "UTF-8")
+          .withUrlParam("serverTimezone", "UTC")
+          .withUrlParam("rewriteBatchedStatements", "true");
+
+  static {
+    mySQLContainer.start();
+    // The schema Hibernate created for the users table, with a user that was already signed up
+    execute(
+        """
+        create table users (id bigint not null auto_increment, birthday date not null,
+          created_on datetime(6) not null, email varchar(255) not null,
+          updated_on datetime(6) not null, username varchar(255) not null, primary key (id))
+          engine=InnoDB""");
+    execute("alter table users add constraint UK_email unique (email)");
+    execute("alter table users add constraint UK_username unique (username)");
+    execute(
+        """
+        insert into users (birthday, created_on, email, updated_on, username)
+          values ('2018-01-01', now(6), 'ivan@test', now(6), 'ivan')""");
+  }
+
+  @DynamicPropertySource
+  static void dataSourceProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", mySQLContainer::getJdbcUrl);
+    registry.add("spring.datasource.username", mySQLContainer::getUsername);
+    registry.add("spring.datasource.password", mySQLContainer::getPassword);
+  }
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private UserRepository userRepository;
+
+  // The application started, so Hibernate validated the entities against the migrated schema
+  @Test
+  void testSchemaCreatedByHibernateIsMigrated() {
+    assertThat(
+            jdbcTemplate.queryForList(
+                "select version from flyway_schema_history where success order by installed_rank",
+                String.class))
+        .containsExactly("1", "2", "3", "4", "5");
+    assertThat(
+            jdbcTemplate.queryForList(
+                """
+                select distinct index_name from information_schema.statistics
+                where table_schema = database() and table_name = 'users'
+                  and index_name like 'IDX\\_%'""",
+                String.class))
+        .containsExactlyInAnyOrder("IDX_birthday_id", "IDX_created_on_id", "IDX_updated_on_id");
+    assertThat(
+            jdbcTemplate.queryForObject(
+                """
+                select data_type from information_schema.columns
+                where table_schema = database() and table_name = 'outbox_events'
+                  and column_name = 'payload'""",
+                String.class))
+        .isEqualTo("text");
+    assertThat(
+            jdbcTemplate.queryForObject(
+                """
+                select count(*) from information_schema.tables
+                where table_schema = database() and table_name = 'user_tombstones'""",
+                Integer.class))
+        .isEqualTo(1);
+    assertThat(userRepository.findByUsername("ivan")).map(User::getEmail).hasValue("ivan@test");
+  }
+
+  private static void execute(String sql) {
+    try (Connection connection = mySQLContainer.createConnection("");
+        Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.ivanfranchin.userservice;
+
+import com.ivanfranchin.userservice.outbox.OutboxSink;
+import com.ivanfranchin.userservice.outbox.model.OutboxEvent;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/** Keeps the published events, so that tests can check what was published and in which order. */
+public class InMemoryOutboxSink implements OutboxSink {
+
+  private final List<OutboxEvent> events = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void publish(List<OutboxEvent> events) {
+    this.events.addAll(events);
+  }
+
+  public List<OutboxEvent> getEvents() {
+    return List.copyOf(events);
+  }
+
+  public void clear() {
+    events.clear();
+  }
+}
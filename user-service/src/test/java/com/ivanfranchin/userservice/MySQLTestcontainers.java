@@ -10,5 +10,6 @@ public interface MySQLTestcontainers {
   MySQLContainer mySQLContainer =
       new MySQLContainer("mysql:9.7.1")
           .withUrlParam("characterEncoding", "UTF-8")
-          .withUrlParam("serverTimezone", "UTC");
+          .withUrlParam("serverTimezone", "UTC")
+          .withUrlParam("rewriteBatchedStatements", "true");
 }
@@ -0,0 +1,28 @@
+package com.ivanfranchin.userservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ivanfranchin.userservice.UserApiLoadDriver.LoadResult;
+import java.net.URI;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Runs the {@link UserApiLoadDriver} read/write mix against the server at {@code
+ * loadtest.base-url}, e.g. a user-service and a user-service-reactive started on the same MySQL, to
+ * compare them under the same load. The users of each run are added to the ones already there.
+ */
+@Tag("load")
+@EnabledIfSystemProperty(named = "loadtest.base-url", matches = ".+")
+class RemoteServerLoadTests {
+
+  @Test
+  void testReadWriteMix() throws Exception {
+    LoadResult loadResult =
+        new UserApiLoadDriver(URI.create(System.getProperty("loadtest.base-url"))).seedAndRun();
+
+    assertThat(loadResult.errors()).isZero();
+    assertThat(loadResult.total().getTotalCount()).isPositive();
+  }
+}
@@ -0,0 +1,322 @@
+package com.ivanfranchin.userservice;
+
+import com.ivanfranchin.userservice.user.dto.CreateUserBatchItemResponse;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.Histogram;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Runs a read/write mix against the {@code /api/users} of a server over HTTP, and reports the
+ * latency percentiles and throughput of each operation. It only uses the API, so it measures
+ * user-service and user-service-reactive alike.
+ *
+ * <p>The load is configured with the {@code loadtest.*} system properties below. When {@code
+ * loadtest.rate} is set, latency is measured from the time each request was scheduled rather than
+ * sent, so a stalled server is not hidden by the clients waiting on it (coordinated omission). The
+ * HdrHistogram percentile distributions are written to {@code loadtest.output-dir}, one {@code
+ * .hgrm} file per operation.
+ */
+class UserApiLoadDriver {
+
+  private static final int USERS = Integer.getInteger("loadtest.users", 10_000);
+  private static final int THREADS = Integer.getInteger("loadtest.threads", 16);
+  private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup-seconds", 10);
+  private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration-seconds", 30);
+  private static final double WRITE_RATIO =
+      Double.parseDouble(System.getProperty("loadtest.write-ratio", "0.1"));
+  // Requests per second across all threads, 0 sends them as fast as the server answers
+  private static final int RATE = Integer.getInteger("loadtest.rate", 0);
+  private static final Path OUTPUT_DIR =
+      Path.of(System.getProperty("loadtest.output-dir", "target/load-test"));
+
+  private static final int SEED_BATCH_SIZE = 1000;
+
+  private final URI baseUri;
+
+  // The usernames and emails of a run start with its id, so that runs against the same database
+  // don't collide
+  private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+  private final HttpClient httpClient =
+      HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+  private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+  private final AtomicLong createdUsers = new AtomicLong();
+
+  private List<UserResponse> seededUsers;
+
+  UserApiLoadDriver(URI baseUri) {
+    this.baseUri = baseUri;
+  }
+
+  /** Seeds the users, warms up and returns the result of the measured run. */
+  LoadResult seedAndRun() throws Exception {
+    seedUsers();
+
+    run(WARMUP_SECONDS);
+    LoadResult loadResult = run(DURATION_SECONDS);
+
+    report(loadResult);
+    return loadResult;
+  }
+
+  // Through POST /api/users/batch, which both variants answer with the ids of the users created
+  private void seedUsers() throws IOException, InterruptedException {
+    seededUsers = new ArrayList<>(USERS);
+    for (int i = 0; i < USERS; i += SEED_BATCH_SIZE) {
+      List<Map<String, String>> users = new ArrayList<>();
+      for (int j = i; j < Math.min(i + SEED_BATCH_SIZE, USERS); j++) {
+        String username = "user" + runId + "-" + j;
+        users.add(
+            Map.of("username", username, "email", username + "@test", "birthday", "2000-01-01"));
+      }
+      HttpRequest request =
+          HttpRequest.newBuilder(uri("/api/users/batch"))
+              .header("Content-Type", "application/json")
+              .POST(HttpRequest.BodyPublishers.ofString(jsonMapper.writeValueAsString(users)))
+              .build();
+      HttpResponse<String> response =
+          httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+      if (response.statusCode() != 200) {
+        throw new IllegalStateException(
+            "Unable to seed the users: " + response.statusCode() + " " + response.body());
+      }
+      for (CreateUserBatchItemResponse item :
+          jsonMapper.readValue(response.body(), CreateUserBatchItemResponse[].class)) {
+        if (item.user() == null) {
+          throw new IllegalStateException("Unable to seed a user: " + item.message());
+        }
+        seededUsers.add(item.user());
+      }
+    }
+  }
+
+  private LoadResult run(int seconds) throws Exception {
+    long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    List<Future<LoadResult>> futures = new ArrayList<>();
+    try (ExecutorService executorService = Executors.newFixedThreadPool(THREADS)) {
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(executorService.submit(() -> runWorker(endNanos)));
+      }
+    }
+    LoadResult loadResult = LoadResult.empty();
+    for (Future<LoadResult> future : futures) {
+      loadResult.add(future.get());
+    }
+    loadResult.elapsedSeconds = seconds;
+    return loadResult;
+  }
+
+  private LoadResult runWorker(long endNanos) throws Exception {
+    LoadResult loadResult = LoadResult.empty();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long intervalNanos = RATE > 0 ? TimeUnit.SECONDS.toNanos(THREADS) / RATE : 0;
+    long scheduledNanos = System.nanoTime();
+    while (scheduledNanos < endNanos) {
+      if (intervalNanos > 0) {
+        LockSupport.parkNanos(scheduledNanos - System.nanoTime());
+      }
+      Operation operation = Operation.pick(random);
+      HttpRequest request = operation.request(this, random);
+
+      long startNanos = intervalNanos > 0 ? scheduledNanos : System.nanoTime();
+      HttpResponse<Void> response =
+          httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+      long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+
+      // Requests shed by the concurrency limit are answered at once, they would hide the latency
+      if (response.statusCode() == 503) {
+        loadResult.shed++;
+      } else {
+        loadResult.histograms.get(operation).recordValue(latencyMicros);
+        if (response.statusCode() != operation.expectedStatus) {
+          loadResult.errors++;
+        }
+      }
+      scheduledNanos = intervalNanos > 0 ? scheduledNanos + intervalNanos : System.nanoTime();
+    }
+    return loadResult;
+  }
+
+  private void report(LoadResult loadResult) throws IOException {
+    Files.createDirectories(OUTPUT_DIR);
+    StringBuilder summary = new StringBuilder();
+    summary.append(
+        "target=%s users=%d threads=%d duration=%ds writeRatio=%.2f rate=%s errors=%d shed=%d%n"
+            .formatted(
+                baseUri,
+                USERS,
+                THREADS,
+                DURATION_SECONDS,
+                WRITE_RATIO,
+                RATE > 0 ? RATE : "max",
+                loadResult.errors,
+                loadResult.shed));
+    summary.append(
+        "%-16s %10s %10s %10s %10s %10s %10s%n"
+            .formatted("operation", "count", "rps", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+    for (Map.Entry<Operation, Histogram> entry : loadResult.histograms.entrySet()) {
+      summary.append(summaryLine(entry.getKey().name(), entry.getValue(), loadResult));
+      writePercentiles(entry.getKey().name(), entry.getValue());
+    }
+    Histogram total = loadResult.total();
+    summary.append(summaryLine("ALL", total, loadResult));
+    writePercentiles("ALL", total);
+
+    Files.writeString(OUTPUT_DIR.resolve("summary.txt"), summary);
+    System.out.print(summary);
+  }
+
+  private static String summaryLine(String name, Histogram histogram, LoadResult loadResult) {
+    return "%-16s %10d %10.1f %10.2f %10.2f %10.2f %10.2f%n"
+        .formatted(
+            name,
+            histogram.getTotalCount(),
+            (double) histogram.getTotalCount() / loadResult.elapsedSeconds,
+            histogram.getValueAtPercentile(50) / 1000.0,
+            histogram.getValueAtPercentile(99) / 1000.0,
+            histogram.getValueAtPercentile(99.9) / 1000.0,
+            histogram.getMaxValue() / 1000.0);
+  }
+
+  private static void writePercentiles(String name, Histogram histogram) throws IOException {
+    try (PrintStream printStream =
+        new PrintStream(Files.newOutputStream(OUTPUT_DIR.resolve(name + ".hgrm")))) {
+      // recorded in microseconds, written in milliseconds
+      histogram.outputPercentileDistribution(printStream, 1000.0);
+    }
+  }
+
+  private URI uri(String pathAndQuery) {
+    return baseUri.resolve(pathAndQuery);
+  }
+
+  private UserResponse randomSeededUser(ThreadLocalRandom random) {
+    return seededUsers.get(random.nextInt(seededUsers.size()));
+  }
+
+  private enum Operation {
+    GET_BY_ID(200) {
+      @Override
+      HttpRequest request(UserApiLoadDriver driver, ThreadLocalRandom random) {
+        UserResponse user = driver.randomSeededUser(random);
+        return HttpRequest.newBuilder(driver.uri("/api/users/" + user.id())).build();
+      }
+    },
+    GET_BY_USERNAME(200) {
+      @Override
+      HttpRequest request(UserApiLoadDriver driver, ThreadLocalRandom random) {
+        UserResponse user = driver.randomSeededUser(random);
+        return HttpRequest.newBuilder(driver.uri("/api/users?username=" + user.username())).build();
+      }
+    },
+    GET_PAGE(200) {
+      @Override
+      HttpRequest request(UserApiLoadDriver driver, ThreadLocalRandom random) {
+        UserResponse user = driver.randomSeededUser(random);
+        return HttpRequest.newBuilder(driver.uri("/api/users?limit=20&after=" + user.id())).build();
+      }
+    },
+    CREATE(201) {
+      @Override
+      HttpRequest request(UserApiLoadDriver driver, ThreadLocalRandom random) {
+        String username = "load" + driver.runId + "-" + driver.createdUsers.incrementAndGet();
+        String body =
+            """
+            {"username":"%s","email":"%s@test","birthday":"2000-01-01"}"""
+                .formatted(username, username);
+        return HttpRequest.newBuilder(driver.uri("/api/users"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+      }
+    },
+    UPDATE(200) {
+      @Override
+      HttpRequest request(UserApiLoadDriver driver, ThreadLocalRandom random) {
+        UserResponse user = driver.randomSeededUser(random);
+        LocalDate birthday = LocalDate.parse("1970-01-01").plusDays(random.nextInt(15_000));
+        String body =
+            """
+            {"birthday":"%s"}"""
+                .formatted(birthday);
+        return HttpRequest.newBuilder(driver.uri("/api/users/" + user.id()))
+            .header("Content-Type", "application/json")
+            .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
+            .build();
+      }
+    };
+
+    private final int expectedStatus;
+
+    Operation(int expectedStatus) {
+      this.expectedStatus = expectedStatus;
+    }
+
+    abstract HttpRequest request(UserApiLoadDriver driver, ThreadLocalRandom random);
+
+    // Writes are split evenly between creates and updates, reads between the three lookups
+    static Operation pick(ThreadLocalRandom random) {
+      if (random.nextDouble() < WRITE_RATIO) {
+        return random.nextBoolean() ? CREATE : UPDATE;
+      }
+      return switch (random.nextInt(3)) {
+        case 0 -> GET_BY_ID;
+        case 1 -> GET_BY_USERNAME;
+        default -> GET_PAGE;
+      };
+    }
+  }
+
+  static class LoadResult {
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private long errors;
+    private long shed;
+    private double elapsedSeconds;
+
+    static LoadResult empty() {
+      LoadResult loadResult = new LoadResult();
+      for (Operation operation : Operation.values()) {
+        loadResult.histograms.put(operation, new Histogram(3));
+      }
+      return loadResult;
+    }
+
+    void add(LoadResult other) {
+      histograms.forEach((operation, histogram) -> histogram.add(other.histograms.get(operation)));
+      errors += other.errors;
+      shed += other.shed;
+    }
+
+    long errors() {
+      return errors;
+    }
+
+    Histogram total() {
+      Histogram total = new Histogram(3);
+      histograms.values().forEach(total::add);
+      return total;
+    }
+  }
+}
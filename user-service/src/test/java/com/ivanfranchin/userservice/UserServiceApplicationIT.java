@@ -1,15 +1,35 @@
 package com.ivanfranchin.userservice;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
+import com.ivanfranchin.userservice.outbox.model.OutboxEvent;
+import com.ivanfranchin.userservice.user.UserBloomFilters;
+import com.ivanfranchin.userservice.user.UserCache;
+import com.ivanfranchin.userservice.user.UserOutbox;
 import com.ivanfranchin.userservice.user.UserRepository;
+import com.ivanfranchin.userservice.user.dto.CreateUserBatchItemResponse;
 import com.ivanfranchin.userservice.user.dto.CreateUserRequest;
 import com.ivanfranchin.userservice.user.dto.UpdateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UserAvailabilityResponse;
+import com.ivanfranchin.userservice.user.dto.UserChange;
+import com.ivanfranchin.userservice.user.dto.UserChangesResponse;
+import com.ivanfranchin.userservice.user.dto.UserLookupResponse;
+import com.ivanfranchin.userservice.user.dto.UserPageResponse;
 import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.dto.UserSearchResponse;
 import com.ivanfranchin.userservice.user.model.User;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,23 +38,52 @@ import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureTestRe
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.boot.testcontainers.context.ImportTestcontainers;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
 
 @AutoConfigureTestRestTemplate
-@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+// Changes are returned as soon as they are committed, rather than a few seconds later, and the
+// outbox is drained often
+@SpringBootTest(
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {"app.user-changes.settle-time=0s", "app.outbox.poll-interval=100ms"})
 @ImportTestcontainers(MySQLTestcontainers.class)
+@Import(InMemoryOutboxSink.class)
 class UserServiceApplicationIT {
 
   @Autowired private TestRestTemplate testRestTemplate;
 
   @Autowired private UserRepository userRepository;
 
+  @Autowired private UserCache userCache;
+
+  @Autowired private UserBloomFilters userBloomFilters;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private JsonMapper jsonMapper;
+
+  @Autowired private InMemoryOutboxSink outboxSink;
+
   @BeforeEach
   void setUp() {
     userRepository.deleteAll();
+    jdbcTemplate.update("delete from user_tombstones");
+    jdbcTemplate.update("delete from outbox_events");
+    outboxSink.clear();
+    userCache.invalidateAll();
+    // The users saved straight through the repository aren't in the filters
+    userBloomFilters.invalidateAll();
   }
 
   /* GET /api/users */
@@ -65,6 +114,285 @@ class UserServiceApplicationIT {
     assertThat(responseEntity.getBody()[0].birthday()).isEqualTo(user.getBirthday());
   }
 
+  /* GET /api/users?limit=&after= */
+
+  @Test
+  void testGetUsersPageWhenThereAreMoreUsersThanTheLimit() {
+    User user1 = userRepository.save(getDefaultUser());
+    User user2 =
+        userRepository.save(new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+
+    ResponseEntity<UserPageResponse> responseEntity =
+        testRestTemplate.getForEntity(API_USERS_URL + "?limit=1", UserPageResponse.class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(responseEntity.getBody()).isNotNull();
+    assertThat(responseEntity.getBody().users()).hasSize(1);
+    assertThat(responseEntity.getBody().users().getFirst().id()).isEqualTo(user1.getId());
+    assertThat(responseEntity.getBody().nextCursor()).isEqualTo(user1.getId());
+
+    responseEntity =
+        testRestTemplate.getForEntity(
+            API_USERS_URL + "?limit=1&after=" + responseEntity.getBody().nextCursor(),
+            UserPageResponse.class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(responseEntity.getBody()).isNotNull();
+    assertThat(responseEntity.getBody().users()).hasSize(1);
+    assertThat(responseEntity.getBody().users().getFirst().id()).isEqualTo(user2.getId());
+    assertThat(responseEntity.getBody().nextCursor()).isNull();
+  }
+
+  // Read with the JDK client, which leaves the response as it was sent rather than decompressing it
+  @Test
+  void testGetUsersPageAsCborGzipped() throws Exception {
+    userRepository.saveAll(
+        IntStream.range(0, 100)
+            .mapToObj(
+                i -> new User("ivan" + i, "ivan" + i + "@test", LocalDate.parse("2018-01-01")))
+            .toList());
+
+    HttpRequest request =
+        HttpRequest.newBuilder(
+                URI.create(testRestTemplate.getRootUri() + API_USERS_URL + "?limit=100"))
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_CBOR_VALUE)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+            .build();
+    HttpResponse<InputStream> response;
+    try (HttpClient httpClient = HttpClient.newHttpClient()) {
+      response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    assertThat(response.statusCode()).isEqualTo(HttpStatus.OK.value());
+    assertThat(response.headers().firstValue(HttpHeaders.CONTENT_TYPE))
+        .hasValue(MediaType.APPLICATION_CBOR_VALUE);
+    assertThat(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+    UserPageResponse page;
+    try (InputStream inputStream = new GZIPInputStream(response.body())) {
+      page = new CBORMapper().readValue(inputStream, UserPageResponse.class);
+    }
+    assertThat(page.users()).hasSize(100);
+    assertThat(page.users().getFirst().birthday()).isEqualTo(LocalDate.parse("2018-01-01"));
+    assertThat(page.nextCursor()).isNull();
+  }
+
+  @Test
+  void testGetUsersPageInformingInvalidLimit() {
+    ResponseEntity<MessageError> responseEntity =
+        testRestTemplate.getForEntity(API_USERS_URL + "?limit=0", MessageError.class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    assertThat(responseEntity.getBody()).isNotNull();
+    assertThat(responseEntity.getBody().status()).isEqualTo(400);
+    assertThat(responseEntity.getBody().errorCode()).isEqualTo(ERROR_CODE_BAD_REQUEST);
+  }
+
+  /* GET /api/users?ids= and GET /api/users?usernames= */
+
+  @Test
+  void testGetUsersByIdsAndUsernames() {
+    User user1 = userRepository.save(getDefaultUser());
+    User user2 =
+        userRepository.save(new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+
+    ResponseEntity<UserLookupResponse<Long>> responseEntity =
+        testRestTemplate.exchange(
+            API_USERS_URL + "?ids=%s,0,%s".formatted(user2.getId(), user1.getId()),
+            HttpMethod.GET,
+            null,
+            new ParameterizedTypeReference<>() {});
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(responseEntity.getBody()).isNotNull();
+    assertThat(responseEntity.getBody().users())
+        .containsExactly(UserResponse.from(user2), UserResponse.from(user1));
+    assertThat(responseEntity.getBody().missing()).containsExactly(0L);
+
+    ResponseEntity<UserLookupResponse<String>> usernamesResponseEntity =
+        testRestTemplate.exchange(
+            API_USERS_URL + "?usernames=john,ivan",
+            HttpMethod.GET,
+            null,
+            new ParameterizedTypeReference<>() {});
+
+    assertThat(usernamesResponseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(usernamesResponseEntity.getBody()).isNotNull();
+    assertThat(usernamesResponseEntity.getBody().users()).containsExactly(UserResponse.from(user1));
+    assertThat(usernamesResponseEntity.getBody().missing()).containsExactly("john");
+  }
+
+  /* GET /api/users/search */
+
+  @Test
+  void testSearchUsersByUsernamePrefix() {
+    User user1 = userRepository.save(getDefaultUser());
+    User user2 =
+        userRepository.save(new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+    userRepository.save(new User("john", "john@test", LocalDate.parse("2018-03-03")));
+
+    ResponseEntity<UserSearchResponse> responseEntity =
+        testRestTemplate.getForEntity(
+            API_USERS_SEARCH_URL + "?usernamePrefix=iv&limit=1", UserSearchResponse.class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(responseEntity.getBody()).isNotNull();
+    assertThat(responseEntity.getBody().users()).containsExactly(UserResponse.from(user1));
+    assertThat(responseEntity.getBody().nextCursor()).isNotNull();
+
+    responseEntity =
+        testRestTemplate.getForEntity(
+            API_USERS_SEARCH_URL
+                + "?usernamePrefix=iv&limit=1&after="
+                + responseEntity.getBody().nextCursor(),
+            UserSearchResponse.class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(responseEntity.getBody()).isNotNull();
+    assertThat(responseEntity.getBody().users()).containsExactly(UserResponse.from(user2));
+    assertThat(responseEntity.getBody().nextCursor()).isNull();
+  }
+
+  @Test
+  void testSearchUsersInformingInvalidCursor() {
+    ResponseEntity<MessageError> responseEntity =
+        testRestTemplate.getForEntity(
+            API_USERS_SEARCH_URL + "?usernamePrefix=iv&after=invalid", MessageError.class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    assertThat(responseEntity.getBody()).isNotNull();
+    assertThat(responseEntity.getBody().errorCode()).isEqualTo(ERROR_CODE_INVALID_CURSOR);
+  }
+
+  /* GET /api/users/changes */
+
+  @Test
+  void testGetChangesSinceCursor() {
+    User user1 = userRepository.save(getDefaultUser());
+    User user2 =
+        userRepository.save(new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+
+    ResponseEntity<UserChangesResponse> responseEntity =
+        testRestTemplate.getForEntity(API_USERS_CHANGES_URL, UserChangesResponse.class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(responseEntity.getBody()).isNotNull();
+    assertThat(responseEntity.getBody().changes())
+        .extracting(UserChange::id, UserChange::type)
+        .containsExactly(
+            tuple(user1.getId(), UserChange.Type.CREATED),
+            tuple(user2.getId(), UserChange.Type.CREATED));
+    String cursor = responseEntity.getBody().nextCursor();
+
+    testRestTemplate.delete(String.format(API_USERS_ID_URL, user1.getId()));
+
+    responseEntity =
+        testRestTemplate.getForEntity(
+            API_USERS_CHANGES_URL + "?since=" + cursor, UserChangesResponse.class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(responseEntity.getBody()).isNotNull();
+    assertThat(responseEntity.getBody().changes())
+        .extracting(UserChange::id, UserChange::type)
+        .containsExactly(tuple(user1.getId(), UserChange.Type.DELETED));
+  }
+
+  /* Outbox */
+
+  @Test
+  void testUserLifecycleEventsArePublished() throws InterruptedException {
+    ResponseEntity<UserResponse> createResponse =
+        testRestTemplate.postForEntity(
+            API_USERS_URL,
+            new CreateUserRequest("ivan", "ivan@test", LocalDate.parse("2018-01-01")),
+            UserResponse.class);
+    assertThat(createResponse.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    Long id = createResponse.getBody().id();
+    testRestTemplate.delete(String.format(API_USERS_ID_URL, id));
+
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (outboxSink.getEvents().size() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+
+    assertThat(outboxSink.getEvents())
+        .extracting(OutboxEvent::getType, OutboxEvent::getAggregateId)
+        .containsExactly(tuple(UserOutbox.USER_CREATED, id), tuple(UserOutbox.USER_DELETED, id));
+    assertThat(jdbcTemplate.queryForObject("select count(*) from outbox_events", Long.class))
+        .isZero();
+  }
+
+  /* GET /api/users?stream=true */
+
+  @Test
+  void testStreamUsers() {
+    User user1 = userRepository.save(getDefaultUser());
+    User user2 =
+        userRepository.save(new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+
+    ResponseEntity<UserResponse[]> responseEntity =
+        testRestTemplate.getForEntity(API_USERS_URL + "?stream=true", UserResponse[].class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(responseEntity.getBody()).isNotNull();
+    assertThat(responseEntity.getBody())
+        .extracting(UserResponse::id)
+        .containsExactlyInAnyOrder(user1.getId(), user2.getId());
+  }
+
+  /* GET /api/users/export */
+
+  @Test
+  void testExportUsersAsCsv() {
+    User user1 = userRepository.save(getDefaultUser());
+    User user2 =
+        userRepository.save(new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+
+    ResponseEntity<String> responseEntity =
+        testRestTemplate.getForEntity(API_USERS_EXPORT_URL + "?format=csv", String.class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(responseEntity.getBody())
+        .isEqualTo(
+            "id,username,email,birthday\r\n"
+                + user1.getId()
+                + ",ivan,ivan@test,2018-01-01\r\n"
+                + user2.getId()
+                + ",ivan2,ivan2@test,2018-02-02\r\n");
+  }
+
+  // Read with the JDK client, which leaves the response as it was sent rather than decompressing it
+  @Test
+  void testExportUsersAsNdjsonGzipped() throws Exception {
+    userRepository.insertAll(
+        IntStream.range(0, 1000)
+            .mapToObj(
+                i -> new User("ivan" + i, "ivan" + i + "@test", LocalDate.parse("2018-01-01")))
+            .toList());
+
+    HttpRequest request =
+        HttpRequest.newBuilder(URI.create(testRestTemplate.getRootUri() + API_USERS_EXPORT_URL))
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+            .build();
+    HttpResponse<byte[]> response;
+    try (HttpClient httpClient = HttpClient.newHttpClient()) {
+      response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    assertThat(response.statusCode()).isEqualTo(HttpStatus.OK.value());
+    assertThat(response.headers().firstValue(HttpHeaders.CONTENT_TYPE))
+        .hasValue(MediaType.APPLICATION_NDJSON_VALUE);
+    assertThat(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+    List<UserResponse> users;
+    try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(response.body()));
+        MappingIterator<UserResponse> iterator =
+            jsonMapper.readerFor(UserResponse.class).readValues(inputStream)) {
+      users = iterator.readAll();
+    }
+    assertThat(users).hasSize(1000);
+    assertThat(users).extracting(UserResponse::id).isSorted();
+    assertThat(users.getFirst().birthday()).isEqualTo(LocalDate.parse("2018-01-01"));
+  }
+
   /* GET /api/users/{id} */
 
   @Test
@@ -103,6 +431,43 @@ class UserServiceApplicationIT {
     assertThat(responseEntity.getBody().birthday()).isEqualTo(user.getBirthday());
   }
 
+  @Test
+  void testGetUserByIdWhenNotModified() {
+    User user = userRepository.save(getDefaultUser());
+
+    String url = String.format(API_USERS_ID_URL, user.getId());
+    ResponseEntity<UserResponse> responseEntity =
+        testRestTemplate.getForEntity(url, UserResponse.class);
+    String eTag = responseEntity.getHeaders().getETag();
+    assertThat(eTag).isNotNull();
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setIfNoneMatch(eTag);
+    responseEntity =
+        testRestTemplate.exchange(
+            url, HttpMethod.GET, new HttpEntity<>(headers), UserResponse.class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    assertThat(responseEntity.getBody()).isNull();
+  }
+
+  /* GET /api/users/availability */
+
+  @Test
+  void testGetAvailability() {
+    userRepository.save(getDefaultUser());
+
+    ResponseEntity<UserAvailabilityResponse> responseEntity =
+        testRestTemplate.getForEntity(
+            API_USERS_URL + "/availability?username=ivan&email=ivan2@test",
+            UserAvailabilityResponse.class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(responseEntity.getBody()).isNotNull();
+    assertThat(responseEntity.getBody().usernameAvailable()).isFalse();
+    assertThat(responseEntity.getBody().emailAvailable()).isTrue();
+  }
+
   /* GET /api/users?username= */
 
   @Test
@@ -279,8 +644,76 @@ class UserServiceApplicationIT {
     assertThat(responseEntity.getBody().errors()).hasSize(1);
   }
 
+  /* POST /api/users/batch */
+
+  @Test
+  void testCreateUsersReportingResultPerItem() {
+    User user = userRepository.save(getDefaultUser());
+
+    List<CreateUserRequest> createUserRequests =
+        List.of(
+            new CreateUserRequest("ivan2", "ivan2@test", LocalDate.parse("2018-01-01")),
+            new CreateUserRequest(user.getUsername(), "ivan3@test", LocalDate.parse("2018-01-01")),
+            new CreateUserRequest("ivan4", "ivan4", LocalDate.parse("2018-01-01")),
+            new CreateUserRequest("ivan5", "ivan2@test", LocalDate.parse("2018-01-01")));
+    ResponseEntity<CreateUserBatchItemResponse[]> responseEntity =
+        testRestTemplate.postForEntity(
+            API_USERS_BATCH_URL, createUserRequests, CreateUserBatchItemResponse[].class);
+
+    assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(responseEntity.getBody()).isNotNull();
+    assertThat(responseEntity.getBody())
+        .extracting(CreateUserBatchItemResponse::status)
+        .containsExactly(201, 409, 400, 409);
+    assertThat(responseEntity.getBody()[1].errorCode()).isEqualTo(ERROR_CODE_USER_DATA_DUPLICATED);
+    assertThat(responseEntity.getBody()[2].errorCode()).isEqualTo(ERROR_CODE_BAD_REQUEST);
+
+    UserResponse userCreated = responseEntity.getBody()[0].user();
+    assertThat(userCreated.id()).isNotNull();
+    assertThat(userRepository.findById(userCreated.id()))
+        .hasValueSatisfying(
+            userFound -> {
+              assertThat(userFound.getUsername()).isEqualTo("ivan2");
+              assertThat(userFound.getEmail()).isEqualTo("ivan2@test");
+              assertThat(userFound.getCreatedOn()).isNotNull();
+              assertThat(userFound.getUpdatedOn()).isNotNull();
+            });
+    assertThat(userRepository.count()).isEqualTo(2);
+  }
+
   /* PATCH /api/users/{id} */
 
+  @Test
+  void testUpdateUserWhenIfMatchIsStale() {
+    User user = userRepository.save(getDefaultUser());
+
+    String url = String.format(API_USERS_ID_URL, user.getId());
+    String eTag = testRestTemplate.getForEntity(url, UserResponse.class).getHeaders().getETag();
+    HttpHeaders headers = new HttpHeaders();
+    headers.setIfMatch(eTag);
+
+    ResponseEntity<UserResponse> firstResponse =
+        testRestTemplate.exchange(
+            url,
+            HttpMethod.PATCH,
+            new HttpEntity<>(new UpdateUserRequest("ivan2", null, null), headers),
+            UserResponse.class);
+    assertThat(firstResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(firstResponse.getHeaders().getETag()).isNotEqualTo(eTag);
+
+    ResponseEntity<MessageError> secondResponse =
+        testRestTemplate.exchange(
+            url,
+            HttpMethod.PATCH,
+            new HttpEntity<>(new UpdateUserRequest("ivan3", null, null), headers),
+            MessageError.class);
+    assertThat(secondResponse.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    assertThat(secondResponse.getBody()).isNotNull();
+    assertThat(secondResponse.getBody().errorCode()).isEqualTo(ERROR_CODE_PRECONDITION_FAILED);
+    assertThat(userRepository.findById(user.getId()))
+        .hasValueSatisfying(userFound -> assertThat(userFound.getUsername()).isEqualTo("ivan2"));
+  }
+
   @Test
   void testUpdateUserWhenNoFieldChanges() {
     User user = getDefaultUser();
@@ -494,7 +927,11 @@ class UserServiceApplicationIT {
   }
 
   private static final String API_USERS_URL = "/api/users";
+  private static final String API_USERS_SEARCH_URL = "/api/users/search";
+  private static final String API_USERS_CHANGES_URL = "/api/users/changes";
+  private static final String API_USERS_EXPORT_URL = "/api/users/export";
   private static final String API_USERS_ID_URL = "/api/users/%s";
+  private static final String API_USERS_BATCH_URL = "/api/users/batch";
 
   private static final String ERROR_NOT_FOUND = "Not Found";
   private static final String ERROR_CODE_NOT_FOUND = "UserNotFound";
@@ -502,6 +939,8 @@ class UserServiceApplicationIT {
   private static final String ERROR_CODE_BAD_REQUEST = "BadRequest";
   private static final String ERROR_CONFLICT = "Conflict";
   private static final String ERROR_CODE_USER_DATA_DUPLICATED = "UserDataDuplicated";
+  private static final String ERROR_CODE_PRECONDITION_FAILED = "UserPreconditionFailed";
+  private static final String ERROR_CODE_INVALID_CURSOR = "InvalidCursor";
 
   private static final String MSG_USERNAME_EMAIL_ALREADY_EXISTS =
       "The username and/or email informed already exists.";
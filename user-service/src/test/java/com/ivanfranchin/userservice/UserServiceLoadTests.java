@@ -0,0 +1,49 @@
+package com.ivanfranchin.userservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ivanfranchin.userservice.UserApiLoadDriver.LoadResult;
+import com.ivanfranchin.userservice.user.UserCache;
+import com.ivanfranchin.userservice.user.UserRepository;
+import java.net.URI;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.context.ImportTestcontainers;
+
+/**
+ * Runs the {@link UserApiLoadDriver} read/write mix against this application, through the whole
+ * stack down to a MySQL Testcontainer.
+ *
+ * <p>It is tagged {@code load}, so it only runs with {@code -Pload-test}. When {@code
+ * loadtest.base-url} is set, {@link RemoteServerLoadTests} runs the mix against that server
+ * instead.
+ */
+@Tag("load")
+@DisabledIfSystemProperty(named = "loadtest.base-url", matches = ".+")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ImportTestcontainers(MySQLTestcontainers.class)
+class UserServiceLoadTests {
+
+  @LocalServerPort private int port;
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private UserCache userCache;
+
+  @Test
+  void testReadWriteMix() throws Exception {
+    userRepository.deleteAllInBatch();
+    userCache.invalidateAll();
+
+    LoadResult loadResult =
+        new UserApiLoadDriver(URI.create("http://localhost:" + port)).seedAndRun();
+
+    assertThat(loadResult.errors()).isZero();
+    assertThat(loadResult.total().getTotalCount()).isPositive();
+  }
+}
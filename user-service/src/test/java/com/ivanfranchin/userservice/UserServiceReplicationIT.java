@@ -0,0 +1,251 @@
+package com.ivanfranchin.userservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ivanfranchin.userservice.config.ReadYourWritesFilter;
+import com.ivanfranchin.userservice.config.ReplicaRoutingDataSource;
+import com.ivanfranchin.userservice.user.UserCache;
+import com.ivanfranchin.userservice.user.UserRepository;
+import com.ivanfranchin.userservice.user.dto.CreateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UserPageResponse;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.resttestclient.TestRestTemplate;
+import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureTestRestTemplate;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.Network;
+import org.testcontainers.lifecycle.Startables;
+import org.testcontainers.mysql.MySQLContainer;
+
+/**
+ * Runs the application against a MySQL primary and a replica that follows it with GTID-based
+ * replication, to check that reads are routed to the replica and fall back to the primary.
+ */
+@AutoConfigureTestRestTemplate
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class UserServiceReplicationIT {
+
+  private static final Network network = Network.newNetwork();
+
+  private static final MySQLContainer primary =
+      mySQLContainer("--server-id=1").withNetworkAliases("mysql-primary");
+
+  private static final MySQLContainer replica = mySQLContainer("--server-id=2");
+
+  static {
+    Startables.deepStart(primary, replica).join();
+    executeOnReplica(
+        """
+        CHANGE REPLICATION SOURCE TO SOURCE_HOST = 'mysql-primary', SOURCE_PORT = 3306,
+          SOURCE_USER = 'root', SOURCE_PASSWORD = 'test', SOURCE_AUTO_POSITION = 1,
+          GET_SOURCE_PUBLIC_KEY = 1""");
+    executeOnReplica("START REPLICA");
+  }
+
+  @DynamicPropertySource
+  static void dataSourceProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", primary::getJdbcUrl);
+    registry.add("spring.datasource.username", primary::getUsername);
+    registry.add("spring.datasource.password", primary::getPassword);
+    registry.add("app.datasource.replica.urls", replica::getJdbcUrl);
+    // The lag is checked at startup, afterwards only when a test asks for it
+    registry.add("app.datasource.replica.lag-check-interval", () -> "1h");
+  }
+
+  @Autowired private TestRestTemplate testRestTemplate;
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private UserCache userCache;
+
+  @Autowired private DataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    userRepository.deleteAll();
+    userCache.invalidateAll();
+    awaitReplicaCaughtUp();
+  }
+
+  @Test
+  void testReadsAreServedByTheReplica() {
+    // A row that only the replica has, so finding it proves where the read went
+    executeOnReplica(
+        """
+        insert into users (id, username, email, birthday, created_on, updated_on)
+        values (1000000, 'replica-only', 'replica-only@test', '2000-01-01', now(6), now(6))""");
+    try {
+      ResponseEntity<UserPageResponse> responseEntity =
+          testRestTemplate.getForEntity(
+              API_USERS_URL + "?limit=1&after=999999", UserPageResponse.class);
+
+      assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+      assertThat(responseEntity.getBody()).isNotNull();
+      assertThat(responseEntity.getBody().users().getFirst().id()).isEqualTo(1000000L);
+
+      // So are the lookups of a user that isn't cached yet
+      ResponseEntity<UserResponse> userResponse =
+          testRestTemplate.getForEntity(API_USERS_URL + "/1000000", UserResponse.class);
+      assertThat(userResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+      assertThat(userResponse.getBody()).isNotNull();
+      assertThat(userResponse.getBody().username()).isEqualTo("replica-only");
+    } finally {
+      executeOnReplica("delete from users where id = 1000000");
+    }
+  }
+
+  @Test
+  void testClientReadsItsOwnWritesFromThePrimary() throws SQLException {
+    // The replica stops applying changes, but is still considered up to date
+    executeOnReplica("STOP REPLICA");
+    try {
+      ResponseEntity<UserResponse> createResponse =
+          testRestTemplate.postForEntity(
+              API_USERS_URL, getDefaultUserRequest(), UserResponse.class);
+      assertThat(createResponse.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+      List<String> cookies = createResponse.getHeaders().get(HttpHeaders.SET_COOKIE);
+      assertThat(cookies)
+          .anyMatch(c -> c.startsWith(ReadYourWritesFilter.READ_FROM_PRIMARY_COOKIE));
+      // The page listing is not cached, unlike the lookups of a single user, which the create
+      // already filled
+      String pageUrl = API_USERS_URL + "?limit=1&after=" + (createResponse.getBody().id() - 1);
+
+      ResponseEntity<UserPageResponse> replicaResponse =
+          testRestTemplate.getForEntity(pageUrl, UserPageResponse.class);
+      assertThat(replicaResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+      assertThat(replicaResponse.getBody()).isNotNull();
+      assertThat(replicaResponse.getBody().users()).isEmpty();
+
+      HttpHeaders headers = new HttpHeaders();
+      headers.add(HttpHeaders.COOKIE, cookies.getFirst().split(";", 2)[0]);
+      ResponseEntity<UserPageResponse> primaryResponse =
+          testRestTemplate.exchange(
+              pageUrl, HttpMethod.GET, new HttpEntity<>(headers), UserPageResponse.class);
+      assertThat(primaryResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+      assertThat(primaryResponse.getBody()).isNotNull();
+      assertThat(primaryResponse.getBody().users().getFirst().id())
+          .isEqualTo(createResponse.getBody().id());
+    } finally {
+      startReplica();
+    }
+  }
+
+  @Test
+  void testReadsGoToThePrimaryWhenTheReplicaIsNotReplicating() throws SQLException {
+    executeOnReplica("STOP REPLICA");
+    try {
+      replicaRoutingDataSource().checkReplicaLag();
+
+      ResponseEntity<UserResponse> createResponse =
+          testRestTemplate.postForEntity(
+              API_USERS_URL, getDefaultUserRequest(), UserResponse.class);
+      assertThat(createResponse.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+      ResponseEntity<UserPageResponse> responseEntity =
+          testRestTemplate.getForEntity(
+              API_USERS_URL + "?limit=1&after=" + (createResponse.getBody().id() - 1),
+              UserPageResponse.class);
+      assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+      assertThat(responseEntity.getBody()).isNotNull();
+      assertThat(responseEntity.getBody().users()).hasSize(1);
+    } finally {
+      startReplica();
+    }
+  }
+
+  private ReplicaRoutingDataSource replicaRoutingDataSource() throws SQLException {
+    return dataSource.unwrap(ReplicaRoutingDataSource.class);
+  }
+
+  // Restarts replication and waits until the replica reports its lag again, so the next check
+  // marks it as available
+  private void startReplica() throws SQLException {
+    executeOnReplica("START REPLICA");
+    awaitReplicaCaughtUp();
+    long deadline = System.currentTimeMillis() + 30_000;
+    while (replicaLag() == null && System.currentTimeMillis() < deadline) {
+      sleep();
+    }
+    replicaRoutingDataSource().checkReplicaLag();
+  }
+
+  private static void awaitReplicaCaughtUp() {
+    String gtidExecuted = query(primary, "SELECT @@GLOBAL.gtid_executed");
+    String timedOut =
+        query(replica, "SELECT WAIT_FOR_EXECUTED_GTID_SET('%s', 30)".formatted(gtidExecuted));
+    assertThat(timedOut).isEqualTo("0");
+  }
+
+  private static String replicaLag() {
+    try (Connection connection = replica.createConnection("");
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SHOW REPLICA STATUS")) {
+      return resultSet.next() ? resultSet.getString("Seconds_Behind_Source") : null;
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String query(MySQLContainer container, String sql) {
+    try (Connection connection = container.createConnection("");
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getString(1);
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void executeOnReplica(String sql) {
+    try (Connection connection = replica.createConnection("");
+        Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(100);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static MySQLContainer mySQLContainer(String serverId) {
+    return new MySQLContainer("mysql:9.7.1")
+        .withNetwork(network)
+        .withUsername("root")
+        .withPassword("test")
+        .withCommand(serverId, "--gtid-mode=ON", "--enforce-gtid-consistency=ON")
+        .withUrlParam("characterEncoding", "UTF-8")
+        .withUrlParam("serverTimezone", "UTC")
+        .withUrlParam("rewriteBatchedStatements", "true");
+  }
+
+  private static CreateUserRequest getDefaultUserRequest() {
+    return new CreateUserRequest("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
+  }
+
+  private static final String API_USERS_URL = "/api/users";
+}
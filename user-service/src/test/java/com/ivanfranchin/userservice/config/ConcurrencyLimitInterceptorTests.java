@@ -0,0 +1,100 @@
+package com.ivanfranchin.userservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.ivanfranchin.userservice.user.exception.ConcurrencyLimitExceededException;
+import jakarta.servlet.DispatcherType;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ConcurrencyLimitInterceptorTests {
+
+  private static final ConcurrencyLimitProperties PROPERTIES =
+      new ConcurrencyLimitProperties(true, 1, 1, 10, 1.5, 0.2, Duration.ofSeconds(2));
+
+  private final ConcurrencyLimiter readLimiter = new ConcurrencyLimiter("read", PROPERTIES);
+  private final ConcurrencyLimiter writeLimiter = new ConcurrencyLimiter("write", PROPERTIES);
+
+  private final ConcurrencyLimitInterceptor concurrencyLimitInterceptor =
+      new ConcurrencyLimitInterceptor(readLimiter, writeLimiter, PROPERTIES.retryAfter());
+
+  @Test
+  void testPreHandleWhenTheLimitIsReached() {
+    assertThat(preHandle(new MockHttpServletRequest("GET", "/api/users/1"))).isTrue();
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertThatThrownBy(
+            () ->
+                concurrencyLimitInterceptor.preHandle(
+                    new MockHttpServletRequest("GET", "/api/users/2"), response, new Object()))
+        .isInstanceOf(ConcurrencyLimitExceededException.class)
+        .hasMessage("Too many read requests in progress, retry later.");
+    assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+  }
+
+  @Test
+  void testReadsAndWritesHaveTheirOwnLimit() {
+    assertThat(preHandle(new MockHttpServletRequest("GET", "/api/users/1"))).isTrue();
+
+    assertThat(preHandle(new MockHttpServletRequest("PATCH", "/api/users/1"))).isTrue();
+    assertThat(readLimiter.getInflight()).isEqualTo(1);
+    assertThat(writeLimiter.getInflight()).isEqualTo(1);
+  }
+
+  @Test
+  void testAfterCompletionReleasesTheSlot() {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users");
+    preHandle(request);
+
+    concurrencyLimitInterceptor.afterCompletion(
+        request, new MockHttpServletResponse(), new Object(), null);
+    concurrencyLimitInterceptor.afterCompletion(
+        request, new MockHttpServletResponse(), new Object(), null);
+
+    assertThat(writeLimiter.getInflight()).isZero();
+    assertThat(preHandle(new MockHttpServletRequest("POST", "/api/users"))).isTrue();
+  }
+
+  @Test
+  void testServerErrorLowersTheLimit() {
+    ConcurrencyLimiter limiter =
+        new ConcurrencyLimiter(
+            "read", new ConcurrencyLimitProperties(true, 10, 1, 10, 1.5, 0.2, Duration.ZERO));
+    ConcurrencyLimitInterceptor interceptor =
+        new ConcurrencyLimitInterceptor(limiter, writeLimiter, Duration.ZERO);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    interceptor.preHandle(request, response, new Object());
+
+    response.setStatus(500);
+    interceptor.afterCompletion(request, response, new Object(), null);
+
+    assertThat(limiter.getLimit()).isEqualTo(9);
+  }
+
+  @Test
+  void testStreamKeepsTheSlotUntilItsAsyncDispatchCompletes() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    preHandle(request);
+    concurrencyLimitInterceptor.afterConcurrentHandlingStarted(request, response, new Object());
+    concurrencyLimitInterceptor.afterCompletion(request, response, new Object(), null);
+    assertThat(readLimiter.getInflight()).isEqualTo(1);
+
+    request.setDispatcherType(DispatcherType.ASYNC);
+    assertThat(preHandle(request)).isTrue();
+    assertThat(readLimiter.getInflight()).isEqualTo(1);
+    concurrencyLimitInterceptor.afterCompletion(request, response, new Object(), null);
+
+    assertThat(readLimiter.getInflight()).isZero();
+    assertThat(readLimiter.getLimit()).isEqualTo(1);
+  }
+
+  private boolean preHandle(MockHttpServletRequest request) {
+    return concurrencyLimitInterceptor.preHandle(
+        request, new MockHttpServletResponse(), new Object());
+  }
+}
@@ -0,0 +1,96 @@
+package com.ivanfranchin.userservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTests {
+
+  private SimpleMeterRegistry meterRegistry;
+  private ConcurrencyLimiter concurrencyLimiter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    concurrencyLimiter =
+        new ConcurrencyLimiter(
+            "read",
+            new ConcurrencyLimitProperties(true, 10, 4, 50, 1.5, 0.2, Duration.ofSeconds(1)));
+    concurrencyLimiter.bindTo(meterRegistry);
+  }
+
+  @Test
+  void testTryAcquireWhenTheLimitIsReached() {
+    for (int i = 0; i < 10; i++) {
+      assertThat(concurrencyLimiter.tryAcquire()).isTrue();
+    }
+
+    assertThat(concurrencyLimiter.tryAcquire()).isFalse();
+    assertThat(meterRegistry.get("http.server.concurrency.shed").counter().count()).isEqualTo(1);
+    assertThat(
+            meterRegistry
+                .get("http.server.concurrency.inflight")
+                .tags("operation", "read")
+                .gauge()
+                .value())
+        .isEqualTo(10);
+
+    concurrencyLimiter.release();
+    assertThat(concurrencyLimiter.tryAcquire()).isTrue();
+  }
+
+  @Test
+  void testLimitGrowsWhileTheLatencyHolds() {
+    runAtFullUse(1, 100);
+
+    assertThat(concurrencyLimiter.getLimit()).isEqualTo(50);
+    assertThat(meterRegistry.get("http.server.concurrency.limit").gauge().value()).isEqualTo(50);
+  }
+
+  @Test
+  void testLimitDoesNotGrowWhenMostOfItIsUnused() {
+    for (int i = 0; i < 50; i++) {
+      concurrencyLimiter.tryAcquire();
+      concurrencyLimiter.release(TimeUnit.MILLISECONDS.toNanos(1), false);
+    }
+
+    assertThat(concurrencyLimiter.getLimit()).isEqualTo(10);
+  }
+
+  @Test
+  void testLimitGoesDownWhenTheLatencyRises() {
+    runAtFullUse(1, 100);
+
+    runAtFullUse(10, 10);
+
+    assertThat(concurrencyLimiter.getLimit()).isLessThan(40);
+  }
+
+  @Test
+  void testLimitGoesDownWhenRequestsFail() {
+    concurrencyLimiter.tryAcquire();
+    concurrencyLimiter.release(TimeUnit.MILLISECONDS.toNanos(1), true);
+
+    assertThat(concurrencyLimiter.getLimit()).isEqualTo(9);
+
+    for (int i = 0; i < 20; i++) {
+      concurrencyLimiter.tryAcquire();
+      concurrencyLimiter.release(TimeUnit.MILLISECONDS.toNanos(1), true);
+    }
+    assertThat(concurrencyLimiter.getLimit()).isEqualTo(4);
+  }
+
+  // Keeps every slot taken and gives one back per request, like a server at its limit
+  private void runAtFullUse(long rttMillis, int requests) {
+    for (int i = 0; i < requests; i++) {
+      while (concurrencyLimiter.tryAcquire()) {
+        // take the slots freed by a higher limit
+      }
+      concurrencyLimiter.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), false);
+    }
+  }
+}
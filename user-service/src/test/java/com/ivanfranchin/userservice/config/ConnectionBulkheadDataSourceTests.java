@@ -0,0 +1,83 @@
+package com.ivanfranchin.userservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+class ConnectionBulkheadDataSourceTests {
+
+  private DataSource dataSource;
+  private SimpleMeterRegistry meterRegistry;
+  private ConnectionBulkheadDataSource connectionBulkheadDataSource;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = mock(DataSource.class);
+    meterRegistry = new SimpleMeterRegistry();
+    connectionBulkheadDataSource =
+        new ConnectionBulkheadDataSource(dataSource, 1, Duration.ofMillis(50));
+    connectionBulkheadDataSource.bindTo(meterRegistry);
+  }
+
+  @Test
+  void testGetConnectionReleasesPermitOnClose() throws SQLException {
+    Connection target = mock(Connection.class);
+    given(dataSource.getConnection()).willReturn(target);
+
+    Connection connection = connectionBulkheadDataSource.getConnection();
+    assertThat(connectionBulkheadDataSource.getActive()).isEqualTo(1);
+
+    connection.close();
+    connection.close();
+    verify(target, times(2)).close();
+    assertThat(connectionBulkheadDataSource.getActive()).isZero();
+
+    connectionBulkheadDataSource.getConnection().close();
+    assertThat(meterRegistry.get("db.connection.bulkhead.wait").timer().count()).isEqualTo(2);
+  }
+
+  @Test
+  void testGetConnectionWhenAllConnectionsAreInUse() throws SQLException {
+    given(dataSource.getConnection()).willReturn(mock(Connection.class));
+    connectionBulkheadDataSource.getConnection();
+
+    assertThatThrownBy(() -> connectionBulkheadDataSource.getConnection())
+        .isInstanceOf(SQLTransientConnectionException.class)
+        .hasMessage("Timed out after 50ms waiting for a database connection");
+    assertThat(meterRegistry.get("db.connection.bulkhead.timeouts").counter().count()).isEqualTo(1);
+    assertThat(connectionBulkheadDataSource.getWaiting()).isZero();
+  }
+
+  @Test
+  void testGetConnectionReleasesPermitWhenPoolFails() throws SQLException {
+    given(dataSource.getConnection()).willThrow(new SQLTransientConnectionException("pool"));
+
+    assertThatThrownBy(() -> connectionBulkheadDataSource.getConnection())
+        .isInstanceOf(SQLTransientConnectionException.class)
+        .hasMessage("pool");
+    assertThat(connectionBulkheadDataSource.getActive()).isZero();
+  }
+
+  @Test
+  void testUnwrapReturnsTargetConnection() throws SQLException {
+    Connection target = mock(Connection.class);
+    given(dataSource.getConnection()).willReturn(target);
+
+    Connection connection = connectionBulkheadDataSource.getConnection();
+
+    assertThat(((ConnectionProxy) connection).getTargetConnection()).isSameAs(target);
+  }
+}
@@ -0,0 +1,83 @@
+package com.ivanfranchin.userservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ivanfranchin.userservice.user.exception.UserNotFoundException;
+import jakarta.servlet.RequestDispatcher;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.error.ErrorAttributeOptions;
+import org.springframework.boot.web.error.ErrorAttributeOptions.Include;
+import org.springframework.boot.webmvc.error.DefaultErrorAttributes;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+class ErrorAttributesConfigTests {
+
+  private final ErrorAttributesConfig errorAttributesConfig = new ErrorAttributesConfig();
+
+  @Test
+  void testUserApiErrorHasTheAttributesOfDefaultErrorAttributes() {
+    assertSameAttributesAsDefaultErrorAttributes(ErrorAttributeOptions.defaults());
+  }
+
+  @Test
+  void testUserApiErrorHasTheAttributesOfDefaultErrorAttributesWhenExceptionIncluded() {
+    assertSameAttributesAsDefaultErrorAttributes(
+        ErrorAttributeOptions.of(Include.EXCEPTION, Include.STATUS));
+  }
+
+  @Test
+  void testOtherErrorHasTheErrorCodeOfItsStatus() {
+    WebRequest webRequest = errorRequest(500, new IllegalStateException("Unexpected"));
+
+    Map<String, Object> errorAttributes =
+        errorAttributesConfig.getErrorAttributes(webRequest, ErrorAttributeOptions.defaults());
+
+    assertThat(errorAttributes)
+        .containsEntry("status", 500)
+        .containsEntry("error", "Internal Server Error")
+        .containsEntry("errorCode", "InternalServerError");
+  }
+
+  @Test
+  void testUnknownStatusHasTheErrorCodeOfItsError() {
+    WebRequest webRequest = errorRequest(599, new IllegalStateException("Unexpected"));
+
+    Map<String, Object> errorAttributes =
+        errorAttributesConfig.getErrorAttributes(webRequest, ErrorAttributeOptions.defaults());
+
+    assertThat(errorAttributes).containsEntry("errorCode", "HttpStatus599");
+  }
+
+  @Test
+  void testUserApiExceptionHasNoStackTrace() {
+    assertThat(new UserNotFoundException("User with id '1' doesn't exist.").getStackTrace())
+        .isEmpty();
+  }
+
+  private void assertSameAttributesAsDefaultErrorAttributes(ErrorAttributeOptions options) {
+    WebRequest webRequest =
+        errorRequest(404, new UserNotFoundException("User with id '1' doesn't exist."));
+
+    Map<String, Object> errorAttributes =
+        errorAttributesConfig.getErrorAttributes(webRequest, options);
+
+    Map<String, Object> defaultErrorAttributes =
+        new DefaultErrorAttributes()
+            .getErrorAttributes(
+                webRequest, options.including(Include.MESSAGE, Include.BINDING_ERRORS));
+    defaultErrorAttributes.put("timestamp", errorAttributes.get("timestamp"));
+    defaultErrorAttributes.put("errorCode", "UserNotFound");
+    assertThat(errorAttributes).containsExactlyEntriesOf(defaultErrorAttributes);
+  }
+
+  private static WebRequest errorRequest(int status, Exception exception) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+    request.setAttribute(RequestDispatcher.ERROR_STATUS_CODE, status);
+    request.setAttribute(RequestDispatcher.ERROR_EXCEPTION, exception);
+    request.setAttribute(RequestDispatcher.ERROR_REQUEST_URI, "/api/users/1");
+    return new ServletWebRequest(request);
+  }
+}
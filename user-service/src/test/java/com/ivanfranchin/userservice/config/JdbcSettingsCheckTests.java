@@ -0,0 +1,68 @@
+package com.ivanfranchin.userservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.jupiter.api.Test;
+
+class JdbcSettingsCheckTests {
+
+  private static final String DATA_SOURCE_PROPERTIES =
+      "spring.datasource.hikari.data-source-properties.";
+
+  private static final String JDBC_URL =
+      "jdbc:mysql://localhost:3306/userdb?rewriteBatchedStatements=true";
+
+  @Test
+  void testDriverSettingsMergeUrlPropertiesAndDefaults() throws SQLException {
+    Properties dataSourceProperties = new Properties();
+    dataSourceProperties.setProperty("cachePrepStmts", "true");
+    dataSourceProperties.setProperty("prepStmtCacheSize", "250");
+
+    Map<String, String> settings = JdbcSettingsCheck.driverSettings(JDBC_URL, dataSourceProperties);
+
+    assertThat(settings)
+        .containsEntry("rewriteBatchedStatements", "true")
+        .containsEntry("cachePrepStmts", "true")
+        .containsEntry("prepStmtCacheSize", "250")
+        .containsEntry("useServerPrepStmts", "false")
+        .containsOnlyKeys(JdbcSettingsCheck.DRIVER_SETTINGS);
+  }
+
+  @Test
+  void testFindConflictsWhenBatchingWithoutRewriteAndWithIdentityIds() {
+    Map<String, String> settings =
+        Map.of("rewriteBatchedStatements", "false", "useServerPrepStmts", "false");
+
+    List<String> conflicts = JdbcSettingsCheck.findConflicts(settings, 50, List.of("User"));
+
+    assertThat(conflicts)
+        .hasSize(2)
+        .anyMatch(conflict -> conflict.contains("rewriteBatchedStatements is off"))
+        .anyMatch(conflict -> conflict.contains("IDENTITY ids: [User]"));
+  }
+
+  @Test
+  void testFindConflictsWhenServerPreparedStatementsAreNotCached() {
+    Map<String, String> settings = Map.of("useServerPrepStmts", "true", "cachePrepStmts", "false");
+
+    assertThat(JdbcSettingsCheck.findConflicts(settings, 0, List.of("User")))
+        .singleElement()
+        .asString()
+        .contains("useServerPrepStmts is on without cachePrepStmts");
+  }
+
+  @Test
+  void testFindConflictsWithProductionSettings() throws SQLException {
+    Properties dataSourceProperties = new Properties();
+    dataSourceProperties.setProperty("useServerPrepStmts", "true");
+    dataSourceProperties.setProperty("cachePrepStmts", "true");
+
+    Map<String, String> settings = JdbcSettingsCheck.driverSettings(JDBC_URL, dataSourceProperties);
+
+    assertThat(JdbcSettingsCheck.findConflicts(settings, 0, List.of("User"))).isEmpty();
+  }
+}
@@ -0,0 +1,55 @@
+package com.ivanfranchin.userservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+class ReplicaPropertiesTests {
+
+  @Test
+  void testStickyDurationDefaultsToTheMostAReplicaCanBeBehind() {
+    ReplicaProperties replicaProperties = bind(Map.of());
+
+    assertThat(replicaProperties.stickyDuration()).isEqualTo(Duration.ofSeconds(7));
+  }
+
+  @Test
+  void testStickyDurationFollowsMaxLagAndLagCheckInterval() {
+    ReplicaProperties replicaProperties =
+        bind(
+            Map.of(
+                "app.datasource.replica.max-lag", "10s",
+                "app.datasource.replica.lag-check-interval", "500ms"));
+
+    assertThat(replicaProperties.stickyDuration()).isEqualTo(Duration.ofMillis(11500));
+  }
+
+  @Test
+  void testStickyDurationShorterThanReplicaLagIsRejected() {
+    assertThatThrownBy(() -> bind(Map.of("app.datasource.replica.sticky-duration", "5s")))
+        .isInstanceOf(BindException.class)
+        .rootCause()
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("shorter than the PT7S a replica can be behind");
+  }
+
+  @Test
+  void testStickyDurationLongerThanReplicaLag() {
+    ReplicaProperties replicaProperties =
+        bind(Map.of("app.datasource.replica.sticky-duration", "30s"));
+
+    assertThat(replicaProperties.stickyDuration()).isEqualTo(Duration.ofSeconds(30));
+  }
+
+  // The way the application binds them, see ReplicaRoutingConfig
+  private static ReplicaProperties bind(Map<String, String> properties) {
+    return new Binder(new MapConfigurationPropertySource(properties))
+        .bindOrCreate("app.datasource.replica", ReplicaProperties.class);
+  }
+}
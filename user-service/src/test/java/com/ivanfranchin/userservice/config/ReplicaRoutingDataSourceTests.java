@@ -0,0 +1,119 @@
+package com.ivanfranchin.userservice.config;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReplicaRoutingDataSourceTests {
+
+  private DataSource primary;
+  private Connection primaryConnection;
+  private HikariDataSource replica;
+  private Connection replicaConnection;
+  private ResultSet replicaStatus;
+  private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    primary = mock(DataSource.class);
+    primaryConnection = mock(Connection.class);
+    given(primary.getConnection()).willReturn(primaryConnection);
+    given(primaryConnection.getAutoCommit()).willReturn(true);
+
+    replica = mock(HikariDataSource.class);
+    replicaConnection = mock(Connection.class);
+    Connection lagCheckConnection = mock(Connection.class);
+    Statement lagCheckStatement = mock(Statement.class);
+    replicaStatus = mock(ResultSet.class);
+    // the first connection is taken by the lag check
+    given(replica.getConnection()).willReturn(lagCheckConnection, replicaConnection);
+    given(replica.getPoolName()).willReturn("replica-1");
+    given(lagCheckConnection.createStatement()).willReturn(lagCheckStatement);
+    given(lagCheckStatement.executeQuery("SHOW REPLICA STATUS")).willReturn(replicaStatus);
+
+    replicaRoutingDataSource =
+        new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5));
+  }
+
+  @AfterEach
+  void tearDown() {
+    ReplicaRoutingDataSource.readFromPrimary(false);
+  }
+
+  @Test
+  void testReadOnlyConnectionGoesToReplicaWhenItIsUpToDate() throws SQLException {
+    givenReplicaLag(0L);
+
+    readOnlyStatement();
+
+    verify(replicaConnection).createStatement();
+  }
+
+  @Test
+  void testReadOnlyConnectionGoesToPrimaryWhenReplicaLags() throws SQLException {
+    givenReplicaLag(60L);
+
+    readOnlyStatement();
+
+    verify(primaryConnection).createStatement();
+  }
+
+  @Test
+  void testReadOnlyConnectionGoesToPrimaryWhenReplicationIsStopped() throws SQLException {
+    givenReplicaLag(null);
+
+    readOnlyStatement();
+
+    verify(primaryConnection).createStatement();
+  }
+
+  @Test
+  void testReadOnlyConnectionGoesToPrimaryWhenReadingFromPrimary() throws SQLException {
+    givenReplicaLag(0L);
+    ReplicaRoutingDataSource.readFromPrimary(true);
+
+    readOnlyStatement();
+
+    verify(primaryConnection).createStatement();
+  }
+
+  @Test
+  void testWriteConnectionGoesToPrimary() throws SQLException {
+    givenReplicaLag(0L);
+
+    try (Connection connection = replicaRoutingDataSource.getConnection()) {
+      connection.createStatement();
+    }
+
+    verify(primaryConnection).createStatement();
+    verify(replicaConnection, never()).setReadOnly(true);
+  }
+
+  private void givenReplicaLag(Long lagSeconds) throws SQLException {
+    given(replicaStatus.next()).willReturn(true);
+    given(replicaStatus.getLong("Seconds_Behind_Source"))
+        .willReturn(lagSeconds != null ? lagSeconds : 0L);
+    given(replicaStatus.wasNull()).willReturn(lagSeconds == null);
+    replicaRoutingDataSource.checkReplicaLag();
+  }
+
+  private void readOnlyStatement() throws SQLException {
+    try (Connection connection = replicaRoutingDataSource.getConnection()) {
+      connection.setReadOnly(true);
+      connection.createStatement();
+    }
+  }
+}
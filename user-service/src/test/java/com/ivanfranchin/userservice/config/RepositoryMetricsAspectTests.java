@@ -0,0 +1,72 @@
+package com.ivanfranchin.userservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.ivanfranchin.userservice.user.UserRepository;
+import com.ivanfranchin.userservice.user.model.User;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+class RepositoryMetricsAspectTests {
+
+  private UserRepository target;
+  private SimpleMeterRegistry meterRegistry;
+  private UserRepository userRepository;
+
+  @BeforeEach
+  void setUp() {
+    target = mock(UserRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+    AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+    proxyFactory.addAspect(new RepositoryMetricsAspect(meterRegistry));
+    userRepository = proxyFactory.getProxy();
+  }
+
+  @Test
+  void testRecordsRowsOfListResult() {
+    User user = new User("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
+    given(target.findAll()).willReturn(List.of(user, user));
+
+    userRepository.findAll();
+
+    DistributionSummary rows = rows("findAll");
+    assertThat(rows.count()).isEqualTo(1);
+    assertThat(rows.totalAmount()).isEqualTo(2);
+  }
+
+  @Test
+  void testRecordsRowsOfOptionalAndModifyingResults() {
+    given(target.findByUsername("ivan")).willReturn(Optional.empty());
+    given(target.deleteUserById(1L)).willReturn(1);
+
+    userRepository.findByUsername("ivan");
+    userRepository.deleteUserById(1L);
+
+    assertThat(rows("findByUsername").totalAmount()).isZero();
+    assertThat(rows("deleteUserById").totalAmount()).isEqualTo(1);
+  }
+
+  @Test
+  void testDoesNotRecordRowsOfCount() {
+    given(target.count()).willReturn(5L);
+
+    userRepository.count();
+
+    assertThat(meterRegistry.find("spring.data.repository.rows").summary()).isNull();
+  }
+
+  private DistributionSummary rows(String method) {
+    return meterRegistry
+        .get("spring.data.repository.rows")
+        .tags("repository", "UserRepository", "method", method)
+        .summary();
+  }
+}
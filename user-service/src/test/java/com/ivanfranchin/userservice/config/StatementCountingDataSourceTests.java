@@ -0,0 +1,87 @@
+package com.ivanfranchin.userservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+class StatementCountingDataSourceTests {
+
+  private Connection target;
+  private StatementCountingDataSource statementCountingDataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    DataSource dataSource = mock(DataSource.class);
+    target = mock(Connection.class);
+    given(dataSource.getConnection()).willReturn(target);
+    statementCountingDataSource = new StatementCountingDataSource(dataSource);
+  }
+
+  @AfterEach
+  void tearDown() {
+    StatementCounter.stop();
+  }
+
+  @Test
+  void testCountsEveryExecutedStatement() throws SQLException {
+    given(target.prepareStatement("select 1")).willReturn(mock(PreparedStatement.class));
+    given(target.createStatement()).willReturn(mock(Statement.class));
+    StatementCounter.start();
+
+    try (Connection connection = statementCountingDataSource.getConnection()) {
+      PreparedStatement preparedStatement = connection.prepareStatement("select 1");
+      preparedStatement.executeQuery();
+      preparedStatement.executeQuery();
+      connection.createStatement().executeUpdate("delete from users");
+    }
+
+    assertThat(StatementCounter.stop()).isEqualTo(3);
+    verify(target).close();
+  }
+
+  @Test
+  void testCountsBatchOnce() throws SQLException {
+    PreparedStatement preparedStatement = mock(PreparedStatement.class);
+    given(target.prepareStatement("insert into users values (?)")).willReturn(preparedStatement);
+    StatementCounter.start();
+
+    try (Connection connection = statementCountingDataSource.getConnection()) {
+      PreparedStatement statement = connection.prepareStatement("insert into users values (?)");
+      statement.addBatch();
+      statement.addBatch();
+      statement.executeBatch();
+    }
+
+    assertThat(StatementCounter.stop()).isEqualTo(1);
+    verify(preparedStatement).executeBatch();
+  }
+
+  @Test
+  void testStatementsOutsideCountingAreNotCounted() throws SQLException {
+    given(target.prepareStatement("select 1")).willReturn(mock(PreparedStatement.class));
+
+    try (Connection connection = statementCountingDataSource.getConnection()) {
+      connection.prepareStatement("select 1").executeQuery();
+    }
+
+    assertThat(StatementCounter.stop()).isZero();
+  }
+
+  @Test
+  void testConnectionExposesItsTarget() throws SQLException {
+    Connection connection = statementCountingDataSource.getConnection();
+
+    assertThat(((ConnectionProxy) connection).getTargetConnection()).isSameAs(target);
+  }
+}
@@ -0,0 +1,55 @@
+package com.ivanfranchin.userservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+class StatementMetricsFilterTests {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final StatementMetricsFilter statementMetricsFilter =
+      new StatementMetricsFilter(meterRegistry);
+
+  @Test
+  void testRecordsStatementsOfTheRequest() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/users/{id}");
+
+    statementMetricsFilter.doFilter(
+        request,
+        new MockHttpServletResponse(),
+        new MockFilterChain(
+            new HttpServlet() {
+              @Override
+              protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                StatementCounter.increment();
+                StatementCounter.increment();
+              }
+            }));
+
+    DistributionSummary statements =
+        meterRegistry
+            .get("http.server.requests.statements")
+            .tags("method", "GET", "uri", "/api/users/{id}")
+            .summary();
+    assertThat(statements.count()).isEqualTo(1);
+    assertThat(statements.totalAmount()).isEqualTo(2);
+  }
+
+  @Test
+  void testStatementsOutsideRequestsAreNotCounted() {
+    StatementCounter.increment();
+
+    assertThat(StatementCounter.stop()).isZero();
+  }
+}
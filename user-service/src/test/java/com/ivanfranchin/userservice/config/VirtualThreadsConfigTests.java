@@ -0,0 +1,70 @@
+package com.ivanfranchin.userservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+class VirtualThreadsConfigTests {
+
+  private final ApplicationContextRunner contextRunner =
+      new ApplicationContextRunner()
+          .withUserConfiguration(VirtualThreadsConfig.class)
+          .withBean("dataSource", DataSource.class, VirtualThreadsConfigTests::hikariDataSource);
+
+  @Test
+  void testDataSourceIsWrappedWhenVirtualThreadsAreEnabled() {
+    contextRunner
+        .withPropertyValues("spring.threads.virtual.enabled=true")
+        .run(
+            context -> {
+              assertThat(context.getBean(DataSource.class))
+                  .isInstanceOf(ConnectionBulkheadDataSource.class);
+              assertThat(context.getBean(DataSource.class).unwrap(HikariDataSource.class))
+                  .isNotNull();
+
+              MeterRegistry meterRegistry = new SimpleMeterRegistry();
+              context
+                  .getBeansOfType(MeterBinder.class)
+                  .values()
+                  .forEach(b -> b.bindTo(meterRegistry));
+              assertThat(meterRegistry.find("db.connection.bulkhead.waiting").gauge()).isNotNull();
+            });
+  }
+
+  // Only the primary pool is behind the bulkhead, the one it is sized to
+  @Test
+  void testOtherHikariDataSourceIsNotWrapped() {
+    contextRunner
+        .withPropertyValues("spring.threads.virtual.enabled=true")
+        .withBean(
+            "otherDataSource", HikariDataSource.class, VirtualThreadsConfigTests::hikariDataSource)
+        .run(
+            context -> {
+              assertThat(context.getBean("dataSource"))
+                  .isInstanceOf(ConnectionBulkheadDataSource.class);
+              assertThat(context.getBean("otherDataSource")).isInstanceOf(HikariDataSource.class);
+            });
+  }
+
+  @Test
+  void testDataSourceIsNotWrappedWhenVirtualThreadsAreDisabled() {
+    contextRunner.run(
+        context -> {
+          assertThat(context.getBean(DataSource.class)).isInstanceOf(HikariDataSource.class);
+          assertThat(context).doesNotHaveBean(MeterBinder.class);
+        });
+  }
+
+  private static HikariDataSource hikariDataSource() {
+    HikariDataSource hikariDataSource = new HikariDataSource();
+    hikariDataSource.setJdbcUrl("jdbc:mysql://localhost:3306/userdb");
+    hikariDataSource.setMaximumPoolSize(5);
+    return hikariDataSource;
+  }
+}
@@ -1,41 +1,74 @@
 package com.ivanfranchin.userservice.controller;
 
 import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.ivanfranchin.userservice.user.UserController;
+import com.ivanfranchin.userservice.user.UserExportRepository.UserRowHandler;
+import com.ivanfranchin.userservice.user.UserJsonCache;
 import com.ivanfranchin.userservice.user.UserService;
 import com.ivanfranchin.userservice.user.dto.CreateUserRequest;
 import com.ivanfranchin.userservice.user.dto.UpdateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UserChange;
+import com.ivanfranchin.userservice.user.dto.UserChangesResponse;
+import com.ivanfranchin.userservice.user.dto.UserLookupResponse;
+import com.ivanfranchin.userservice.user.dto.UserPageResponse;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.dto.UserSearchRequest;
+import com.ivanfranchin.userservice.user.dto.UserSearchResponse;
+import com.ivanfranchin.userservice.user.exception.InvalidCursorException;
 import com.ivanfranchin.userservice.user.exception.UserDataDuplicatedException;
 import com.ivanfranchin.userservice.user.exception.UserNotFoundException;
+import com.ivanfranchin.userservice.user.exception.UserPreconditionFailedException;
 import com.ivanfranchin.userservice.user.model.User;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
 
 @WebMvcTest(UserController.class)
+@Import(UserJsonCache.class)
 class UserControllerTests {
 
   @Autowired private MockMvc mockMvc;
@@ -44,6 +77,10 @@ class UserControllerTests {
 
   @MockitoBean private UserService userService;
 
+  private final CBORMapper cborMapper = new CBORMapper();
+
+  private final SmileMapper smileMapper = new SmileMapper();
+
   @Test
   void testGetUsersWhenThereIsNone() throws Exception {
     given(userService.getUsers()).willReturn(List.of());
@@ -59,7 +96,7 @@ class UserControllerTests {
   @Test
   void testGetUsersWhenThereIsOne() throws Exception {
     User user = getDefaultUser();
-    List<User> users = List.of(user);
+    List<UserResponse> users = List.of(UserResponse.from(user));
 
     given(userService.getUsers()).willReturn(users);
 
@@ -75,6 +112,433 @@ class UserControllerTests {
         .andExpect(jsonPath(JSON_$_0_BIRTHDAY, is(user.getBirthday().format(ISO_LOCAL_DATE))));
   }
 
+  @Test
+  void testGetUsersPageWhenThereIsNextPage() throws Exception {
+    User user1 = getDefaultUser();
+    User user2 = new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02"));
+    user2.setId(2L);
+
+    given(userService.getUsers(isNull(), eq(2)))
+        .willReturn(List.of(UserResponse.from(user1), UserResponse.from(user2)));
+
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_URL).param("limit", "1")).andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath(JSON_$_USERS, hasSize(1)))
+        .andExpect(jsonPath(JSON_$_USERS_0_ID, is(user1.getId().intValue())))
+        .andExpect(jsonPath(JSON_$_NEXT_CURSOR, is(user1.getId().intValue())));
+  }
+
+  @Test
+  void testGetUsersPageAsSmile() throws Exception {
+    User user1 = getDefaultUser();
+    User user2 = new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02"));
+    user2.setId(2L);
+
+    given(userService.getUsers(isNull(), eq(2)))
+        .willReturn(List.of(UserResponse.from(user1), UserResponse.from(user2)));
+
+    MvcResult mvcResult =
+        mockMvc
+            .perform(get(API_USERS_URL).param("limit", "1").accept(APPLICATION_SMILE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(APPLICATION_SMILE))
+            .andReturn();
+
+    UserPageResponse page =
+        smileMapper.readValue(
+            mvcResult.getResponse().getContentAsByteArray(), UserPageResponse.class);
+    assertThat(page).isEqualTo(new UserPageResponse(List.of(UserResponse.from(user1)), 1L));
+  }
+
+  @Test
+  void testGetUsersPageWhenItIsTheLastPage() throws Exception {
+    User user = getDefaultUser();
+
+    given(userService.getUsers(eq(0L), eq(3))).willReturn(List.of(UserResponse.from(user)));
+
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_URL).param("limit", "2").param("after", "0")).andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath(JSON_$_USERS, hasSize(1)))
+        .andExpect(jsonPath(JSON_$_USERS_0_ID, is(user.getId().intValue())))
+        .andExpect(jsonPath(JSON_$_NEXT_CURSOR, nullValue()));
+  }
+
+  @Test
+  void testGetUsersPageInformingInvalidLimit() throws Exception {
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_URL).param("limit", "0")).andDo(print());
+
+    resultActions.andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testGetUsersByIds() throws Exception {
+    User user = getDefaultUser();
+
+    given(userService.getUsersByIds(List.of(1L, 2L)))
+        .willReturn(new UserLookupResponse<>(List.of(UserResponse.from(user)), List.of(2L)));
+
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_URL).param("ids", "1,2")).andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath(JSON_$_USERS, hasSize(1)))
+        .andExpect(jsonPath(JSON_$_USERS_0_ID, is(user.getId().intValue())))
+        .andExpect(jsonPath(JSON_$_MISSING, hasSize(1)))
+        .andExpect(jsonPath(JSON_$_MISSING_0, is(2)));
+  }
+
+  @Test
+  void testGetUsersByUsernames() throws Exception {
+    User user = getDefaultUser();
+
+    given(userService.getUsersByUsernames(List.of("ivan", "ivan2")))
+        .willReturn(new UserLookupResponse<>(List.of(UserResponse.from(user)), List.of("ivan2")));
+
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_URL).param("usernames", "ivan,ivan2")).andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(jsonPath(JSON_$_USERS, hasSize(1)))
+        .andExpect(jsonPath(JSON_$_USERS_0_ID, is(user.getId().intValue())))
+        .andExpect(jsonPath(JSON_$_MISSING_0, is("ivan2")));
+  }
+
+  @Test
+  void testGetUsersByIdsInformingNoId() throws Exception {
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_URL).param("ids", "")).andDo(print());
+
+    resultActions.andExpect(status().isBadRequest());
+    verify(userService, never()).getUsersByIds(anyList());
+  }
+
+  @Test
+  void testGetUsersByIdsInformingInvalidId() throws Exception {
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_URL).param("ids", "1,a")).andDo(print());
+
+    resultActions.andExpect(status().isBadRequest());
+    verify(userService, never()).getUsersByIds(anyList());
+  }
+
+  @Test
+  void testGetUsersByIdsAndLimit() throws Exception {
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_URL).param("ids", "1").param("limit", "5")).andDo(print());
+
+    resultActions.andExpect(status().isBadRequest());
+    verify(userService, never()).getUsersByIds(anyList());
+    verify(userService, never()).getUsers(any(), anyInt());
+  }
+
+  @Test
+  void testGetUsersByUsernameAndUsernames() throws Exception {
+    ResultActions resultActions =
+        mockMvc
+            .perform(get(API_USERS_URL).param("username", "ivan").param("usernames", "ivan2"))
+            .andDo(print());
+
+    resultActions.andExpect(status().isBadRequest());
+    verify(userService, never()).validateAndGetUserByUsername(any());
+    verify(userService, never()).getUsersByUsernames(anyList());
+  }
+
+  @Test
+  void testSearchUsers() throws Exception {
+    User user = getDefaultUser();
+    UserSearchRequest searchRequest =
+        new UserSearchRequest(
+            "iv", null, LocalDate.parse("2018-01-01"), null, null, null, null, null);
+
+    given(userService.searchUsers(eq(searchRequest), isNull(), eq(20)))
+        .willReturn(new UserSearchResponse(List.of(UserResponse.from(user)), "Y3Vyc29y"));
+
+    ResultActions resultActions =
+        mockMvc
+            .perform(
+                get(API_USERS_SEARCH_URL)
+                    .param("usernamePrefix", "iv")
+                    .param("birthdayFrom", "2018-01-01"))
+            .andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath(JSON_$_USERS, hasSize(1)))
+        .andExpect(jsonPath(JSON_$_USERS_0_ID, is(user.getId().intValue())))
+        .andExpect(jsonPath(JSON_$_NEXT_CURSOR, is("Y3Vyc29y")));
+  }
+
+  @Test
+  void testSearchUsersWhenItIsTheLastPage() throws Exception {
+    given(userService.searchUsers(any(UserSearchRequest.class), eq("Y3Vyc29y"), eq(5)))
+        .willReturn(new UserSearchResponse(List.of(), null));
+
+    ResultActions resultActions =
+        mockMvc
+            .perform(get(API_USERS_SEARCH_URL).param("after", "Y3Vyc29y").param("limit", "5"))
+            .andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(jsonPath(JSON_$_USERS, hasSize(0)))
+        .andExpect(jsonPath(JSON_$_NEXT_CURSOR, nullValue()));
+  }
+
+  @Test
+  void testSearchUsersInformingInvalidCursor() throws Exception {
+    given(userService.searchUsers(any(UserSearchRequest.class), eq("other"), eq(20)))
+        .willThrow(new InvalidCursorException());
+
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_SEARCH_URL).param("after", "other")).andDo(print());
+
+    resultActions.andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testSearchUsersInformingInvalidLimit() throws Exception {
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_SEARCH_URL).param("limit", "0")).andDo(print());
+
+    resultActions.andExpect(status().isBadRequest());
+    verify(userService, never()).searchUsers(any(), any(), anyInt());
+  }
+
+  @Test
+  void testGetChanges() throws Exception {
+    User user = getDefaultUser();
+    Instant deletedOn = Instant.parse("2018-01-02T10:00:00Z");
+    List<UserChange> changes =
+        List.of(
+            new UserChange(
+                user.getId(),
+                UserChange.Type.UPDATED,
+                user.getUpdatedOn(),
+                UserResponse.from(user)),
+            new UserChange(2L, UserChange.Type.DELETED, deletedOn, null));
+
+    given(userService.getChanges(isNull(), eq(100)))
+        .willReturn(new UserChangesResponse(changes, "Y3Vyc29y"));
+
+    ResultActions resultActions = mockMvc.perform(get(API_USERS_CHANGES_URL)).andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(jsonPath(JSON_$_CHANGES, hasSize(2)))
+        .andExpect(jsonPath("$.changes[0].type", is("UPDATED")))
+        .andExpect(jsonPath("$.changes[0].user.username", is(user.getUsername())))
+        .andExpect(jsonPath("$.changes[1].id", is(2)))
+        .andExpect(jsonPath("$.changes[1].type", is("DELETED")))
+        .andExpect(jsonPath("$.changes[1].user", nullValue()))
+        .andExpect(jsonPath(JSON_$_NEXT_CURSOR, is("Y3Vyc29y")));
+  }
+
+  @Test
+  void testGetChangesInformingInvalidLimit() throws Exception {
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_CHANGES_URL).param("limit", "1001")).andDo(print());
+
+    resultActions.andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testStreamUsers() throws Exception {
+    User user = getDefaultUser();
+    willAnswer(
+            invocation -> {
+              Consumer<UserResponse> action = invocation.getArgument(0);
+              action.accept(UserResponse.from(user));
+              return null;
+            })
+        .given(userService)
+        .streamUsers(any());
+
+    MvcResult mvcResult =
+        mockMvc
+            .perform(get(API_USERS_URL).param("stream", "true"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    ResultActions resultActions = mockMvc.perform(asyncDispatch(mvcResult)).andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath(JSON_$, hasSize(1)))
+        .andExpect(jsonPath(JSON_$_0_ID, is(user.getId().intValue())))
+        .andExpect(jsonPath(JSON_$_0_USERNAME, is(user.getUsername())))
+        .andExpect(jsonPath(JSON_$_0_EMAIL, is(user.getEmail())))
+        .andExpect(jsonPath(JSON_$_0_BIRTHDAY, is(user.getBirthday().format(ISO_LOCAL_DATE))));
+  }
+
+  @Test
+  void testStreamUsersAsCborWritesTheWholeList() throws Exception {
+    User user = getDefaultUser();
+    given(userService.getUsers()).willReturn(List.of(UserResponse.from(user)));
+
+    MvcResult mvcResult =
+        mockMvc
+            .perform(get(API_USERS_URL).param("stream", "true").accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn();
+
+    UserResponse[] users =
+        cborMapper.readValue(mvcResult.getResponse().getContentAsByteArray(), UserResponse[].class);
+    assertThat(users).containsExactly(UserResponse.from(user));
+    verify(userService, never()).streamUsers(any());
+  }
+
+  @Test
+  void testStreamUsersWithLimit() throws Exception {
+    ResultActions resultActions =
+        mockMvc
+            .perform(get(API_USERS_URL).param("limit", "10").param("stream", "true"))
+            .andDo(print());
+
+    resultActions.andExpect(status().isBadRequest());
+    verify(userService, never()).streamUsers(any());
+    verify(userService, never()).getUsers(any(), anyInt());
+  }
+
+  @Test
+  void testExportUsersAsNdjson() throws Exception {
+    willAnswer(
+            invocation -> {
+              UserRowHandler handler = invocation.getArgument(0);
+              handler.handle(1L, "ivan", "ivan@test", "2018-01-01");
+              handler.handle(2L, "ivan \"2\"", "ivan2@test", "2018-02-02");
+              return null;
+            })
+        .given(userService)
+        .exportUsers(any());
+
+    MvcResult mvcResult =
+        mockMvc.perform(get(API_USERS_EXPORT_URL)).andExpect(request().asyncStarted()).andReturn();
+    ResultActions resultActions = mockMvc.perform(asyncDispatch(mvcResult));
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(
+            header()
+                .string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\""))
+        .andExpect(
+            content()
+                .string(
+                    """
+                    {"id":1,"username":"ivan","email":"ivan@test","birthday":"2018-01-01"}
+                    {"id":2,"username":"ivan \\"2\\"","email":"ivan2@test","birthday":"2018-02-02"}
+                    """));
+  }
+
+  @Test
+  void testExportUsersAsCsv() throws Exception {
+    willAnswer(
+            invocation -> {
+              UserRowHandler handler = invocation.getArgument(0);
+              handler.handle(1L, "ivan", "ivan@test", "2018-01-01");
+              handler.handle(2L, "ivan, \"2\"", "ivan2@test", "2018-02-02");
+              return null;
+            })
+        .given(userService)
+        .exportUsers(any());
+
+    MvcResult mvcResult =
+        mockMvc
+            .perform(get(API_USERS_EXPORT_URL).param("format", "csv"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    ResultActions resultActions = mockMvc.perform(asyncDispatch(mvcResult));
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("text/csv;charset=UTF-8"))
+        .andExpect(
+            header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.csv\""))
+        .andExpect(
+            content()
+                .string(
+                    "id,username,email,birthday\r\n"
+                        + "1,ivan,ivan@test,2018-01-01\r\n"
+                        + "2,\"ivan, \"\"2\"\"\",ivan2@test,2018-02-02\r\n"));
+  }
+
+  @Test
+  void testExportUsersOfEmptyTableAsCsvWritesTheHeader() throws Exception {
+    MvcResult mvcResult =
+        mockMvc
+            .perform(get(API_USERS_EXPORT_URL).param("format", "csv"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    ResultActions resultActions = mockMvc.perform(asyncDispatch(mvcResult));
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(content().string("id,username,email,birthday\r\n"));
+  }
+
+  @Test
+  void testExportUsersInformingInvalidFormat() throws Exception {
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_EXPORT_URL).param("format", "xml")).andDo(print());
+
+    resultActions.andExpect(status().isBadRequest());
+    verify(userService, never()).exportUsers(any());
+  }
+
+  @Test
+  void testGetAvailabilityOfUsernameAndEmail() throws Exception {
+    given(userService.isUsernameAvailable("ivan")).willReturn(false);
+    given(userService.isEmailAvailable("ivan2@test")).willReturn(true);
+
+    ResultActions resultActions =
+        mockMvc
+            .perform(
+                get(API_USERS_AVAILABILITY_URL)
+                    .param("username", "ivan")
+                    .param("email", "ivan2@test"))
+            .andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(jsonPath(JSON_$_USERNAME_AVAILABLE, is(false)))
+        .andExpect(jsonPath(JSON_$_EMAIL_AVAILABLE, is(true)));
+  }
+
+  @Test
+  void testGetAvailabilityOfUsernameOnly() throws Exception {
+    given(userService.isUsernameAvailable("ivan")).willReturn(true);
+
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_AVAILABILITY_URL).param("username", "ivan")).andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(jsonPath(JSON_$_USERNAME_AVAILABLE, is(true)))
+        .andExpect(jsonPath(JSON_$_EMAIL_AVAILABLE, nullValue()));
+    verify(userService, never()).isEmailAvailable(any());
+  }
+
+  @Test
+  void testGetAvailabilityInformingNothing() throws Exception {
+    ResultActions resultActions = mockMvc.perform(get(API_USERS_AVAILABILITY_URL)).andDo(print());
+
+    resultActions.andExpect(status().isBadRequest());
+  }
+
   @Test
   void testGetUserByIdWhenExistent() throws Exception {
     User user = getDefaultUser();
@@ -93,6 +557,109 @@ class UserControllerTests {
         .andExpect(jsonPath(JSON_$_BIRTHDAY, is(user.getBirthday().format(ISO_LOCAL_DATE))));
   }
 
+  @Test
+  void testGetUserByIdAsCbor() throws Exception {
+    User user = getDefaultUser();
+
+    given(userService.validateAndGetUserById(anyLong())).willReturn(user);
+
+    MvcResult mvcResult =
+        mockMvc
+            .perform(get(API_USERS_ID_URL, user.getId()).accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andExpect(header().string(HttpHeaders.ETAG, DEFAULT_USER_ETAG))
+            .andReturn();
+
+    JsonNode userNode = cborMapper.readTree(mvcResult.getResponse().getContentAsByteArray());
+    assertThat(userNode.get("id").asLong()).isEqualTo(user.getId());
+    assertThat(userNode.get("username").asString()).isEqualTo(user.getUsername());
+    assertThat(userNode.get("email").asString()).isEqualTo(user.getEmail());
+    // the same yyyy-MM-dd string as in JSON, not an epoch day or a date tag
+    assertThat(userNode.get("birthday").isString()).isTrue();
+    assertThat(userNode.get("birthday").asString())
+        .isEqualTo(user.getBirthday().format(ISO_LOCAL_DATE));
+  }
+
+  @Test
+  void testGetUserByIdWhenNoFormatIsAcceptable() throws Exception {
+    given(userService.validateAndGetUserById(anyLong())).willReturn(getDefaultUser());
+
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_ID_URL, 1L).accept(MediaType.APPLICATION_PDF)).andDo(print());
+
+    resultActions.andExpect(status().isNotAcceptable());
+  }
+
+  @Test
+  void testGetUserByIdReturnsETagAndLastModified() throws Exception {
+    User user = getDefaultUser();
+
+    given(userService.validateAndGetUserById(anyLong())).willReturn(user);
+
+    ResultActions resultActions =
+        mockMvc.perform(get(API_USERS_ID_URL, user.getId())).andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, DEFAULT_USER_ETAG))
+        .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Mon, 01 Jan 2018 10:00:00 GMT"))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+  }
+
+  @Test
+  void testGetUserByIdWhenETagMatches() throws Exception {
+    User user = getDefaultUser();
+
+    given(userService.validateAndGetUserById(anyLong())).willReturn(user);
+
+    ResultActions resultActions =
+        mockMvc
+            .perform(
+                get(API_USERS_ID_URL, user.getId())
+                    .header(HttpHeaders.IF_NONE_MATCH, DEFAULT_USER_ETAG))
+            .andDo(print());
+
+    resultActions
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, DEFAULT_USER_ETAG))
+        .andExpect(content().string(""));
+  }
+
+  @Test
+  void testGetUserByIdWhenETagDoesNotMatch() throws Exception {
+    User user = getDefaultUser();
+
+    given(userService.validateAndGetUserById(anyLong())).willReturn(user);
+
+    ResultActions resultActions =
+        mockMvc
+            .perform(
+                get(API_USERS_ID_URL, user.getId())
+                    .header(HttpHeaders.IF_NONE_MATCH, "\"1-1514800800000000\""))
+            .andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(jsonPath(JSON_$_ID, is(user.getId().intValue())));
+  }
+
+  @Test
+  void testGetUserByIdWhenNotModifiedSince() throws Exception {
+    User user = getDefaultUser();
+
+    given(userService.validateAndGetUserById(anyLong())).willReturn(user);
+
+    ResultActions resultActions =
+        mockMvc
+            .perform(
+                get(API_USERS_ID_URL, user.getId())
+                    .header(HttpHeaders.IF_MODIFIED_SINCE, "Mon, 01 Jan 2018 10:00:00 GMT"))
+            .andDo(print());
+
+    resultActions.andExpect(status().isNotModified());
+  }
+
   @Test
   void testGetUserByIdWhenNonExistent() throws Exception {
     given(userService.validateAndGetUserById(anyLong())).willThrow(UserNotFoundException.class);
@@ -125,6 +692,34 @@ class UserControllerTests {
         .andExpect(jsonPath(JSON_$_BIRTHDAY, is(user.getBirthday().format(ISO_LOCAL_DATE))));
   }
 
+  @Test
+  void testCreateUserInformingValidInfoAsCbor() throws Exception {
+    User user = getDefaultUser();
+    given(userService.saveUser(any(User.class))).willReturn(user);
+
+    CreateUserRequest createUserRequest = getDefaultCreateUserRequest();
+    MvcResult mvcResult =
+        mockMvc
+            .perform(
+                post(API_USERS_URL)
+                    .contentType(MediaType.APPLICATION_CBOR)
+                    .accept(MediaType.APPLICATION_CBOR)
+                    .content(cborMapper.writeValueAsBytes(createUserRequest)))
+            .andExpect(status().isCreated())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn();
+
+    UserResponse userResponse =
+        cborMapper.readValue(mvcResult.getResponse().getContentAsByteArray(), UserResponse.class);
+    assertThat(userResponse).isEqualTo(UserResponse.from(user));
+    verify(userService)
+        .saveUser(
+            argThat(
+                saved ->
+                    saved.getUsername().equals(createUserRequest.username())
+                        && saved.getBirthday().equals(createUserRequest.birthday())));
+  }
+
   @Test
   void testCreateUserWhenInformingExistentUsername() throws Exception {
     CreateUserRequest createUserRequest = getDefaultCreateUserRequest();
@@ -189,12 +784,63 @@ class UserControllerTests {
     resultActions.andExpect(status().isBadRequest());
   }
 
+  @Test
+  void testCreateUsersReportingResultPerItem() throws Exception {
+    willAnswer(
+            invocation -> {
+              List<User> users = invocation.getArgument(0);
+              users.getFirst().setId(1L);
+              return List.of(users.getFirst());
+            })
+        .given(userService)
+        .saveUsers(anyList());
+
+    List<CreateUserRequest> createUserRequests =
+        List.of(
+            getDefaultCreateUserRequest(),
+            new CreateUserRequest("ivan2", "not-an-email", LocalDate.parse("2018-01-01")),
+            new CreateUserRequest("ivan", "ivan3@test", LocalDate.parse("2018-01-01")));
+    ResultActions resultActions =
+        mockMvc
+            .perform(
+                post(API_USERS_BATCH_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(jsonMapper.writeValueAsString(createUserRequests)))
+            .andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath(JSON_$, hasSize(3)))
+        .andExpect(jsonPath("$[0].status", is(201)))
+        .andExpect(jsonPath("$[0].user.id", is(1)))
+        .andExpect(jsonPath("$[0].user.username", is("ivan")))
+        .andExpect(jsonPath("$[1].status", is(400)))
+        .andExpect(jsonPath("$[1].errorCode", is("BadRequest")))
+        .andExpect(jsonPath("$[1].message", is("email: must be a well-formed email address")))
+        .andExpect(jsonPath("$[2].status", is(409)))
+        .andExpect(jsonPath("$[2].errorCode", is("UserDataDuplicated")))
+        .andExpect(jsonPath("$[2].user", nullValue()));
+  }
+
+  @Test
+  void testCreateUsersInformingEmptyList() throws Exception {
+    ResultActions resultActions =
+        mockMvc
+            .perform(
+                post(API_USERS_BATCH_URL).contentType(MediaType.APPLICATION_JSON).content("[]"))
+            .andDo(print());
+
+    resultActions.andExpect(status().isBadRequest());
+  }
+
   @Test
   void testUpdateUserWhenNoFieldChanges() throws Exception {
     User user = getDefaultUser();
     UpdateUserRequest updateUserRequest = new UpdateUserRequest(user.getUsername(), null, null);
 
-    given(userService.validateAndGetUserById(anyLong())).willReturn(user);
+    given(userService.updateUser(anyLong(), any(UpdateUserRequest.class), isNull()))
+        .willReturn(user);
 
     ResultActions resultActions =
         mockMvc
@@ -215,7 +861,8 @@ class UserControllerTests {
 
   @Test
   void testUpdateUserWhenNonExisting() throws Exception {
-    given(userService.validateAndGetUserById(anyLong())).willThrow(UserNotFoundException.class);
+    given(userService.updateUser(anyLong(), any(UpdateUserRequest.class), isNull()))
+        .willThrow(UserNotFoundException.class);
 
     UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", null, null);
     ResultActions resultActions =
@@ -234,8 +881,8 @@ class UserControllerTests {
     User user = getDefaultUser();
     UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", null, null);
 
-    given(userService.validateAndGetUserById(anyLong())).willReturn(user);
-    willThrow(UserDataDuplicatedException.class).given(userService).saveUser(any(User.class));
+    given(userService.updateUser(anyLong(), any(UpdateUserRequest.class), isNull()))
+        .willThrow(UserDataDuplicatedException.class);
 
     ResultActions resultActions =
         mockMvc
@@ -253,8 +900,8 @@ class UserControllerTests {
     User user = getDefaultUser();
     UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", "ivan2@test", null);
 
-    given(userService.validateAndGetUserById(anyLong())).willReturn(user);
-    willThrow(UserDataDuplicatedException.class).given(userService).saveUser(any(User.class));
+    given(userService.updateUser(anyLong(), any(UpdateUserRequest.class), isNull()))
+        .willThrow(UserDataDuplicatedException.class);
 
     ResultActions resultActions =
         mockMvc
@@ -273,8 +920,8 @@ class UserControllerTests {
     UpdateUserRequest updateUserRequest =
         new UpdateUserRequest("ivan2", "ivan2@test", LocalDate.parse("2018-02-02"));
 
-    given(userService.validateAndGetUserById(anyLong())).willReturn(user);
-    given(userService.saveUser(any(User.class))).willReturn(user);
+    given(userService.updateUser(anyLong(), any(UpdateUserRequest.class), isNull()))
+        .willAnswer(invocation -> updated(user, invocation.getArgument(1)));
 
     ResultActions resultActions =
         mockMvc
@@ -299,8 +946,8 @@ class UserControllerTests {
     User user = getDefaultUser();
     UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", null, null);
 
-    given(userService.validateAndGetUserById(anyLong())).willReturn(user);
-    given(userService.saveUser(any(User.class))).willReturn(user);
+    given(userService.updateUser(anyLong(), any(UpdateUserRequest.class), isNull()))
+        .willAnswer(invocation -> updated(user, invocation.getArgument(1)));
 
     ResultActions resultActions =
         mockMvc
@@ -325,8 +972,8 @@ class UserControllerTests {
     UpdateUserRequest updateUserRequest =
         new UpdateUserRequest("ivan2", null, LocalDate.parse("2018-02-02"));
 
-    given(userService.validateAndGetUserById(anyLong())).willReturn(user);
-    given(userService.saveUser(any(User.class))).willReturn(user);
+    given(userService.updateUser(anyLong(), any(UpdateUserRequest.class), isNull()))
+        .willAnswer(invocation -> updated(user, invocation.getArgument(1)));
 
     ResultActions resultActions =
         mockMvc
@@ -346,12 +993,111 @@ class UserControllerTests {
             jsonPath(JSON_$_BIRTHDAY, is(updateUserRequest.birthday().format(ISO_LOCAL_DATE))));
   }
 
+  @Test
+  void testUpdateUserWhenIfMatchIsCurrent() throws Exception {
+    User user = getDefaultUser();
+    UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", null, null);
+
+    given(userService.updateUser(anyLong(), any(UpdateUserRequest.class), eq(user.getUpdatedOn())))
+        .willAnswer(invocation -> updated(user, invocation.getArgument(1)));
+
+    ResultActions resultActions =
+        mockMvc
+            .perform(
+                patch(API_USERS_ID_URL, user.getId())
+                    .header(HttpHeaders.IF_MATCH, DEFAULT_USER_ETAG)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(jsonMapper.writeValueAsString(updateUserRequest)))
+            .andDo(print());
+
+    resultActions
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, DEFAULT_USER_ETAG))
+        .andExpect(jsonPath(JSON_$_USERNAME, is(updateUserRequest.username())));
+  }
+
+  @Test
+  void testUpdateUserWhenIfMatchIsWildcard() throws Exception {
+    User user = getDefaultUser();
+    UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", null, null);
+
+    given(userService.updateUser(anyLong(), any(UpdateUserRequest.class), isNull()))
+        .willAnswer(invocation -> updated(user, invocation.getArgument(1)));
+
+    ResultActions resultActions =
+        mockMvc
+            .perform(
+                patch(API_USERS_ID_URL, user.getId())
+                    .header(HttpHeaders.IF_MATCH, "*")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(jsonMapper.writeValueAsString(updateUserRequest)))
+            .andDo(print());
+
+    resultActions.andExpect(status().isOk());
+  }
+
+  @Test
+  void testUpdateUserWhenIfMatchIsWildcardAndUserNotExistent() throws Exception {
+    UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", null, null);
+
+    given(userService.updateUser(anyLong(), any(UpdateUserRequest.class), isNull()))
+        .willThrow(UserNotFoundException.class);
+
+    ResultActions resultActions =
+        mockMvc
+            .perform(
+                patch(API_USERS_ID_URL, 1L)
+                    .header(HttpHeaders.IF_MATCH, "*")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(jsonMapper.writeValueAsString(updateUserRequest)))
+            .andDo(print());
+
+    resultActions.andExpect(status().isPreconditionFailed());
+  }
+
+  @Test
+  void testUpdateUserWhenIfMatchIsStale() throws Exception {
+    User user = getDefaultUser();
+    UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", null, null);
+
+    given(userService.updateUser(anyLong(), any(UpdateUserRequest.class), any(Instant.class)))
+        .willThrow(new UserPreconditionFailedException(user.getId()));
+
+    ResultActions resultActions =
+        mockMvc
+            .perform(
+                patch(API_USERS_ID_URL, user.getId())
+                    .header(HttpHeaders.IF_MATCH, DEFAULT_USER_ETAG)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(jsonMapper.writeValueAsString(updateUserRequest)))
+            .andDo(print());
+
+    resultActions.andExpect(status().isPreconditionFailed());
+  }
+
+  @Test
+  void testUpdateUserWhenIfMatchIsNotOfThisUser() throws Exception {
+    UpdateUserRequest updateUserRequest = new UpdateUserRequest("ivan2", null, null);
+
+    ResultActions resultActions =
+        mockMvc
+            .perform(
+                patch(API_USERS_ID_URL, 1L)
+                    .header(
+                        HttpHeaders.IF_MATCH, "\"2-1514800800123456\", W/\"1-1514800800123456\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(jsonMapper.writeValueAsString(updateUserRequest)))
+            .andDo(print());
+
+    resultActions.andExpect(status().isPreconditionFailed());
+    verify(userService, never()).updateUser(anyLong(), any(), any());
+  }
+
   @Test
   void testDeleteUserWhenExistent() throws Exception {
     User user = getDefaultUser();
 
-    given(userService.validateAndGetUserById(anyLong())).willReturn(user);
-    willDoNothing().given(userService).deleteUser(any(User.class));
+    willDoNothing().given(userService).deleteUser(anyLong());
 
     ResultActions resultActions =
         mockMvc.perform(delete(API_USERS_ID_URL, user.getId())).andDo(print());
@@ -361,16 +1107,23 @@ class UserControllerTests {
 
   @Test
   void testDeleteUserWhenNonExistent() throws Exception {
-    given(userService.validateAndGetUserById(anyLong())).willThrow(UserNotFoundException.class);
+    willThrow(UserNotFoundException.class).given(userService).deleteUser(anyLong());
 
     ResultActions resultActions = mockMvc.perform(delete(API_USERS_ID_URL, 1L)).andDo(print());
 
     resultActions.andExpect(status().isNotFound());
   }
 
+  private User updated(User user, UpdateUserRequest updateUserRequest) {
+    updateUserRequest.applyTo(user);
+    return user;
+  }
+
   private User getDefaultUser() {
     User user = new User("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
     user.setId(1L);
+    user.setCreatedOn(Instant.parse("2018-01-01T10:00:00.123456Z"));
+    user.setUpdatedOn(Instant.parse("2018-01-01T10:00:00.123456Z"));
     return user;
   }
 
@@ -378,8 +1131,19 @@ class UserControllerTests {
     return new CreateUserRequest("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
   }
 
+  // id 1, updatedOn 2018-01-01T10:00:00.123456Z in microseconds
+  private static final String DEFAULT_USER_ETAG = "\"1-1514800800123456\"";
+
+  private static final MediaType APPLICATION_SMILE =
+      MediaType.parseMediaType("application/x-jackson-smile");
+
   private static final String API_USERS_URL = "/api/users";
   private static final String API_USERS_ID_URL = "/api/users/{id}";
+  private static final String API_USERS_BATCH_URL = "/api/users/batch";
+  private static final String API_USERS_AVAILABILITY_URL = "/api/users/availability";
+  private static final String API_USERS_SEARCH_URL = "/api/users/search";
+  private static final String API_USERS_CHANGES_URL = "/api/users/changes";
+  private static final String API_USERS_EXPORT_URL = "/api/users/export";
 
   private static final String JSON_$ = "$";
 
@@ -392,4 +1156,14 @@ class UserControllerTests {
   private static final String JSON_$_0_USERNAME = "$[0].username";
   private static final String JSON_$_0_EMAIL = "$[0].email";
   private static final String JSON_$_0_BIRTHDAY = "$[0].birthday";
+
+  private static final String JSON_$_USERS = "$.users";
+  private static final String JSON_$_USERS_0_ID = "$.users[0].id";
+  private static final String JSON_$_NEXT_CURSOR = "$.nextCursor";
+  private static final String JSON_$_CHANGES = "$.changes";
+  private static final String JSON_$_MISSING = "$.missing";
+  private static final String JSON_$_MISSING_0 = "$.missing[0]";
+
+  private static final String JSON_$_USERNAME_AVAILABLE = "$.usernameAvailable";
+  private static final String JSON_$_EMAIL_AVAILABLE = "$.emailAvailable";
 }
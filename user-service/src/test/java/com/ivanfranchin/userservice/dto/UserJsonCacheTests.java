@@ -0,0 +1,110 @@
+package com.ivanfranchin.userservice.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ivanfranchin.userservice.user.UserJsonCache;
+import com.ivanfranchin.userservice.user.dto.UserLookupResponse;
+import com.ivanfranchin.userservice.user.dto.UserPageResponse;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.context.annotation.Import;
+import tools.jackson.databind.json.JsonMapper;
+
+@JsonTest
+@Import(UserJsonCache.class)
+class UserJsonCacheTests {
+
+  @Autowired private UserJsonCache userJsonCache;
+
+  @Autowired private JsonMapper jsonMapper;
+
+  @BeforeEach
+  void setUp() {
+    userJsonCache.invalidateAll();
+  }
+
+  @Test
+  void testToJsonReusesTheSerializedUser() {
+    UserResponse user = getDefaultUserResponse();
+
+    byte[] json = userJsonCache.toJson(user);
+
+    assertThat(json).isEqualTo(jsonMapper.writeValueAsBytes(user));
+    assertThat(userJsonCache.toJson(getDefaultUserResponse())).isSameAs(json);
+  }
+
+  @Test
+  void testToJsonWhenUserChanged() {
+    byte[] json = userJsonCache.toJson(getDefaultUserResponse());
+    UserResponse renamedUser =
+        new UserResponse(1L, "ivan2", "ivan@test", LocalDate.parse("2018-01-01"));
+
+    byte[] renamedJson = userJsonCache.toJson(renamedUser);
+
+    assertThat(renamedJson).isNotEqualTo(json).isEqualTo(jsonMapper.writeValueAsBytes(renamedUser));
+  }
+
+  @Test
+  void testToJsonArray() {
+    List<UserResponse> users =
+        List.of(
+            getDefaultUserResponse(),
+            new UserResponse(2L, "ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+
+    assertThat(asString(userJsonCache.toJsonArray(users)))
+        .isEqualTo(jsonMapper.writeValueAsString(users));
+    assertThat(asString(userJsonCache.toJsonArray(List.of()))).isEqualTo("[]");
+  }
+
+  // A list reuses the JSON the reads of single users cached, but doesn't cache its other users
+  @Test
+  void testToJsonArrayOnlyReadsTheCache() {
+    byte[] json = userJsonCache.toJson(getDefaultUserResponse());
+    UserResponse user2 = new UserResponse(2L, "ivan2", "ivan2@test", LocalDate.parse("2018-02-02"));
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    userJsonCache.bindTo(meterRegistry);
+
+    userJsonCache.toJsonArray(List.of(getDefaultUserResponse(), user2));
+
+    assertThat(userJsonCache.toJson(getDefaultUserResponse())).isSameAs(json);
+    assertThat(meterRegistry.get("cache.size").gauge().value()).isEqualTo(1);
+  }
+
+  @Test
+  void testToJsonPage() {
+    List<UserResponse> users = List.of(getDefaultUserResponse());
+
+    assertThat(asString(userJsonCache.toJsonPage(users, 1L)))
+        .isEqualTo(jsonMapper.writeValueAsString(new UserPageResponse(users, 1L)));
+    assertThat(asString(userJsonCache.toJsonPage(List.of(), null)))
+        .isEqualTo(jsonMapper.writeValueAsString(new UserPageResponse(List.of(), null)));
+  }
+
+  @Test
+  void testToJsonLookup() {
+    List<UserResponse> users = List.of(getDefaultUserResponse());
+
+    assertThat(asString(userJsonCache.toJsonLookup(users, List.of("ivan\"2"))))
+        .isEqualTo(
+            jsonMapper.writeValueAsString(new UserLookupResponse<>(users, List.of("ivan\"2"))));
+    assertThat(asString(userJsonCache.toJsonLookup(List.of(), List.of(2L))))
+        .isEqualTo(jsonMapper.writeValueAsString(new UserLookupResponse<>(List.of(), List.of(2L))));
+  }
+
+  private static String asString(byte[] json) {
+    return new String(json, StandardCharsets.UTF_8);
+  }
+
+  private static UserResponse getDefaultUserResponse() {
+    return new UserResponse(1L, "ivan", "ivan@test", LocalDate.parse("2018-01-01"));
+  }
+}
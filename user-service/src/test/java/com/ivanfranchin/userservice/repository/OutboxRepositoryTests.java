@@ -0,0 +1,60 @@
+package com.ivanfranchin.userservice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ivanfranchin.userservice.MySQLTestcontainers;
+import com.ivanfranchin.userservice.outbox.OutboxRepository;
+import com.ivanfranchin.userservice.outbox.model.OutboxEvent;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.testcontainers.context.ImportTestcontainers;
+
+@DataJpaTest
+@ImportTestcontainers(MySQLTestcontainers.class)
+class OutboxRepositoryTests {
+
+  @Autowired private OutboxRepository outboxRepository;
+
+  @Test
+  void testFindBatchForUpdateReturnsTheOldestEvents() {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    outboxRepository.insertAll(
+        List.of(
+            new OutboxEvent("UserCreated", 1L, "{\"id\":1}", now),
+            new OutboxEvent("UserUpdated", 1L, "{\"id\":1}", now),
+            new OutboxEvent("UserDeleted", 1L, "{\"id\":1}", now)));
+
+    List<OutboxEvent> batch = outboxRepository.findBatchForUpdate(2);
+
+    assertThat(batch)
+        .extracting(OutboxEvent::getType)
+        .containsExactly("UserCreated", "UserUpdated");
+    assertThat(batch.getFirst().getCreatedOn()).isEqualTo(now);
+
+    outboxRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEvent::getId).toList());
+
+    assertThat(outboxRepository.findBatchForUpdate(2))
+        .extracting(OutboxEvent::getType)
+        .containsExactly("UserDeleted");
+  }
+
+  // The JSON of a user with the longest username and email doesn't fit in a TINYTEXT
+  @Test
+  void testInsertEventWithPayloadLongerThan255Bytes() {
+    String payload =
+        "{\"id\":1,\"username\":\"%s\",\"email\":\"%s@test\",\"birthday\":\"2018-01-01\"}"
+            .formatted("u".repeat(100), "e".repeat(145));
+    outboxRepository.insertAll(
+        List.of(
+            new OutboxEvent(
+                "UserCreated", 1L, payload, Instant.now().truncatedTo(ChronoUnit.MICROS))));
+
+    assertThat(outboxRepository.findAll())
+        .extracting(OutboxEvent::getPayload)
+        .containsExactly(payload);
+  }
+}
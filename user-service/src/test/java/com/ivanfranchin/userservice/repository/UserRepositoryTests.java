@@ -5,15 +5,28 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.ivanfranchin.userservice.MySQLTestcontainers;
 import com.ivanfranchin.userservice.user.UserRepository;
+import com.ivanfranchin.userservice.user.dto.UserChange;
+import com.ivanfranchin.userservice.user.dto.UserChangesResponse;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.dto.UserSearchRequest;
+import com.ivanfranchin.userservice.user.dto.UserSearchResponse;
+import com.ivanfranchin.userservice.user.exception.InvalidCursorException;
 import com.ivanfranchin.userservice.user.model.User;
+import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
 import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
 import org.springframework.boot.testcontainers.context.ImportTestcontainers;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
 @DataJpaTest
 @ImportTestcontainers(MySQLTestcontainers.class)
@@ -38,6 +51,306 @@ class UserRepositoryTests {
     assertThat(userOptional).isNotPresent();
   }
 
+  @Test
+  void testFindUsersAfterCursor() {
+    User user1 = entityManager.persist(getDefaultUser());
+    User user2 =
+        entityManager.persist(new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+    User user3 =
+        entityManager.persist(new User("ivan3", "ivan3@test", LocalDate.parse("2018-03-03")));
+
+    List<UserResponse> firstPage = userRepository.findResponsesByIdGreaterThan(0L, Limit.of(2));
+    assertThat(firstPage).containsExactly(UserResponse.from(user1), UserResponse.from(user2));
+
+    List<UserResponse> secondPage =
+        userRepository.findResponsesByIdGreaterThan(user2.getId(), Limit.of(2));
+    assertThat(secondPage).containsExactly(UserResponse.from(user3));
+  }
+
+  @Test
+  void testSearchUsersByUsernamePrefixAcrossPages() {
+    User user1 = entityManager.persist(getDefaultUser());
+    User user2 =
+        entityManager.persist(new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+    User user3 =
+        entityManager.persist(new User("ivan3", "ivan3@test", LocalDate.parse("2018-03-03")));
+    entityManager.persistAndFlush(new User("john", "john@test", LocalDate.parse("2018-04-04")));
+    UserSearchRequest request =
+        new UserSearchRequest("iva", null, null, null, null, null, null, null);
+
+    UserSearchResponse firstPage = userRepository.search(request, null, 2);
+    assertThat(firstPage.users())
+        .containsExactly(UserResponse.from(user1), UserResponse.from(user2));
+    assertThat(firstPage.nextCursor()).isNotNull();
+
+    UserSearchResponse secondPage = userRepository.search(request, firstPage.nextCursor(), 2);
+    assertThat(secondPage.users()).containsExactly(UserResponse.from(user3));
+    assertThat(secondPage.nextCursor()).isNull();
+  }
+
+  @Test
+  void testSearchUsersByUsernamePrefixEscapesWildcards() {
+    entityManager.persistAndFlush(getDefaultUser());
+    UserSearchRequest request =
+        new UserSearchRequest("i_", null, null, null, null, null, null, null);
+
+    assertThat(userRepository.search(request, null, 10).users()).isEmpty();
+  }
+
+  @Test
+  void testSearchUsersByBirthdayRangeAndEmailPrefix() {
+    entityManager.persist(getDefaultUser());
+    User user2 =
+        entityManager.persist(new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+    User user3 =
+        entityManager.persist(new User("ivan3", "ivan3@test", LocalDate.parse("2018-02-02")));
+    entityManager.persistAndFlush(new User("john", "john@test", LocalDate.parse("2018-02-03")));
+    UserSearchRequest request =
+        new UserSearchRequest(
+            null,
+            "ivan",
+            LocalDate.parse("2018-02-01"),
+            LocalDate.parse("2018-03-01"),
+            null,
+            null,
+            null,
+            null);
+
+    UserSearchResponse firstPage = userRepository.search(request, null, 1);
+    assertThat(firstPage.users()).containsExactly(UserResponse.from(user2));
+
+    // Both users have the same birthday, the id tells where the next page starts
+    UserSearchResponse secondPage = userRepository.search(request, firstPage.nextCursor(), 1);
+    assertThat(secondPage.users()).containsExactly(UserResponse.from(user3));
+    assertThat(secondPage.nextCursor()).isNull();
+  }
+
+  @Test
+  void testSearchUsersByCreatedOnRange() {
+    User user = entityManager.persistFlushFind(getDefaultUser());
+    UserSearchRequest request =
+        new UserSearchRequest(null, null, null, null, user.getCreatedOn(), null, null, null);
+
+    assertThat(userRepository.search(request, null, 10).users())
+        .containsExactly(UserResponse.from(user));
+
+    UserSearchRequest before =
+        new UserSearchRequest(null, null, null, null, null, user.getCreatedOn(), null, null);
+    assertThat(userRepository.search(before, null, 10).users()).isEmpty();
+  }
+
+  @Test
+  void testSearchUsersWithCursorOfAnotherSearch() {
+    entityManager.persist(getDefaultUser());
+    entityManager.persistAndFlush(new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+    UserSearchRequest byUsername =
+        new UserSearchRequest("ivan", null, null, null, null, null, null, null);
+    String cursor = userRepository.search(byUsername, null, 1).nextCursor();
+
+    UserSearchRequest byEmail =
+        new UserSearchRequest(null, "ivan", null, null, null, null, null, null);
+    assertThatThrownBy(() -> userRepository.search(byEmail, cursor, 1))
+        .isInstanceOf(InvalidCursorException.class);
+    assertThatThrownBy(() -> userRepository.search(byUsername, "not a cursor", 1))
+        .isInstanceOf(InvalidCursorException.class);
+  }
+
+  @Test
+  void testFindAllUsersAsResponses() {
+    User user = entityManager.persistFlushFind(getDefaultUser());
+    entityManager.clear();
+
+    List<UserResponse> users = userRepository.findAllResponses();
+
+    assertThat(users).containsExactly(UserResponse.from(user));
+    assertThat(
+            entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount())
+        .isZero();
+  }
+
+  @Test
+  void testStreamAllUsers() {
+    User user = entityManager.persistFlushFind(getDefaultUser());
+
+    try (Stream<UserResponse> users = userRepository.streamAllBy()) {
+      assertThat(users).containsExactly(UserResponse.from(user));
+    }
+  }
+
+  @Test
+  void testExportAllUsersInIdOrder() throws IOException {
+    User user1 = entityManager.persist(getDefaultUser());
+    User user2 =
+        entityManager.persist(new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+    entityManager.flush();
+
+    List<String> rows = new ArrayList<>();
+    userRepository.exportAll(
+        (id, username, email, birthday) ->
+            rows.add(id + "," + username + "," + email + "," + birthday));
+
+    assertThat(rows)
+        .containsExactly(
+            user1.getId() + ",ivan,ivan@test,2018-01-01",
+            user2.getId() + ",ivan2,ivan2@test,2018-02-02");
+  }
+
+  @Test
+  void testInsertAllUsers() {
+    User user1 = getDefaultUser();
+    User user2 = new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02"));
+
+    userRepository.insertAll(List.of(user1, user2));
+
+    assertThat(user1.getId()).isNotNull();
+    assertThat(user2.getId()).isGreaterThan(user1.getId());
+    assertThat(userRepository.findById(user1.getId()))
+        .hasValueSatisfying(user -> assertThat(user.getUsername()).isEqualTo("ivan"));
+    assertThat(userRepository.findById(user2.getId()))
+        .hasValueSatisfying(user -> assertThat(user.getCreatedOn()).isNotNull());
+  }
+
+  @Test
+  void testFindExistingUsernamesAndEmails() {
+    entityManager.persist(getDefaultUser());
+
+    assertThat(userRepository.findExistingUsernames(List.of("ivan", "ivan2")))
+        .containsExactly("ivan");
+    assertThat(userRepository.findExistingEmails(List.of("ivan@test", "ivan2@test")))
+        .containsExactly("ivan@test");
+  }
+
+  @Test
+  void testFindUsersByUsernameIn() {
+    User user = entityManager.persist(getDefaultUser());
+
+    assertThat(userRepository.findByUsernameIn(List.of("ivan", "ivan2"))).containsExactly(user);
+  }
+
+  @Test
+  void testExistsUserByUsernameOrEmail() {
+    entityManager.persist(getDefaultUser());
+
+    assertThat(userRepository.existsByUsernameOrEmail("ivan", "ivan2@test")).isTrue();
+    assertThat(userRepository.existsByUsernameOrEmail("ivan2", "ivan@test")).isTrue();
+    assertThat(userRepository.existsByUsernameOrEmail("ivan2", "ivan2@test")).isFalse();
+  }
+
+  @Test
+  void testExistsUserByUsernameAndByEmail() {
+    entityManager.persist(getDefaultUser());
+
+    assertThat(userRepository.existsByUsername("ivan")).isTrue();
+    assertThat(userRepository.existsByUsername("ivan2")).isFalse();
+    assertThat(userRepository.existsByEmail("ivan@test")).isTrue();
+    assertThat(userRepository.existsByEmail("ivan2@test")).isFalse();
+  }
+
+  @Test
+  void testUpdateUserSetsOnlyInformedFields() {
+    User user = persistAndReload(getDefaultUser());
+
+    int updated = userRepository.updateUser(user.getId(), "ivan2", null, null, null);
+    entityManager.clear();
+
+    assertThat(updated).isEqualTo(1);
+    assertThat(userRepository.findById(user.getId()))
+        .hasValueSatisfying(
+            userUpdated -> {
+              assertThat(userUpdated.getUsername()).isEqualTo("ivan2");
+              assertThat(userUpdated.getEmail()).isEqualTo(user.getEmail());
+              assertThat(userUpdated.getBirthday()).isEqualTo(user.getBirthday());
+              assertThat(userUpdated.getUpdatedOn()).isAfter(user.getUpdatedOn());
+            });
+  }
+
+  @Test
+  void testUpdateUserWhenValuesDoNotChange() {
+    User user = persistAndReload(getDefaultUser());
+
+    int updated = userRepository.updateUser(user.getId(), "ivan", "ivan@test", null, null);
+    entityManager.clear();
+
+    assertThat(updated).isEqualTo(1);
+    assertThat(userRepository.findById(user.getId()))
+        .hasValueSatisfying(
+            userUpdated -> assertThat(userUpdated.getUpdatedOn()).isEqualTo(user.getUpdatedOn()));
+  }
+
+  @Test
+  void testUpdateUserWhenUpdatedOnMatches() {
+    User user = persistAndReload(getDefaultUser());
+
+    int updated = userRepository.updateUser(user.getId(), "ivan2", null, null, user.getUpdatedOn());
+
+    assertThat(updated).isEqualTo(1);
+  }
+
+  @Test
+  void testUpdateUserWhenUpdatedOnDoesNotMatch() {
+    User user = persistAndReload(getDefaultUser());
+
+    int updated =
+        userRepository.updateUser(
+            user.getId(), "ivan2", null, null, user.getUpdatedOn().minusSeconds(1));
+    entityManager.clear();
+
+    assertThat(updated).isZero();
+    assertThat(userRepository.findById(user.getId()))
+        .hasValueSatisfying(userFound -> assertThat(userFound.getUsername()).isEqualTo("ivan"));
+  }
+
+  @Test
+  void testUpdateUserWhenNonExistent() {
+    assertThat(userRepository.updateUser(1L, "ivan2", null, null, null)).isZero();
+  }
+
+  @Test
+  void testDeleteUserById() {
+    User user = entityManager.persistFlushFind(getDefaultUser());
+
+    assertThat(userRepository.deleteUserById(user.getId())).isEqualTo(1);
+    assertThat(userRepository.deleteUserById(user.getId())).isZero();
+  }
+
+  @Test
+  void testFindChangesAfterCursor() {
+    User user1 = entityManager.persist(getDefaultUser());
+    User user2 =
+        entityManager.persistFlushFind(
+            new User("ivan2", "ivan2@test", LocalDate.parse("2018-02-02")));
+    userRepository.deleteUserById(user1.getId());
+    Instant deletedOn = user2.getUpdatedOn().plusSeconds(1);
+    userRepository.insertTombstone(user1.getId(), deletedOn);
+    Instant until = deletedOn.plusSeconds(1);
+
+    UserChangesResponse firstPage = userRepository.findChanges(null, until, 1);
+    assertThat(firstPage.changes())
+        .containsExactly(
+            new UserChange(
+                user2.getId(),
+                UserChange.Type.CREATED,
+                user2.getUpdatedOn(),
+                UserResponse.from(user2)));
+
+    UserChangesResponse secondPage = userRepository.findChanges(firstPage.nextCursor(), until, 1);
+    assertThat(secondPage.changes())
+        .containsExactly(new UserChange(user1.getId(), UserChange.Type.DELETED, deletedOn, null));
+
+    UserChangesResponse lastPage = userRepository.findChanges(secondPage.nextCursor(), until, 1);
+    assertThat(lastPage.changes()).isEmpty();
+    assertThat(lastPage.nextCursor()).isEqualTo(secondPage.nextCursor());
+  }
+
+  @Test
+  void testFindChangesBeforeUntil() {
+    User user = entityManager.persistFlushFind(getDefaultUser());
+
+    assertThat(userRepository.findChanges(null, user.getUpdatedOn(), 10).changes()).isEmpty();
+    assertThatThrownBy(() -> userRepository.findChanges("not a cursor", Instant.now(), 10))
+        .isInstanceOf(InvalidCursorException.class);
+  }
+
   @Test
   void testSaveUserWithDuplicateUsername() {
     entityManager.persist(getDefaultUser());
@@ -68,6 +381,13 @@ class UserRepositoryTests {
         .isInstanceOf(DataIntegrityViolationException.class);
   }
 
+  // Reads the user back from the table, so the timestamps have the column precision
+  private User persistAndReload(User user) {
+    entityManager.persistAndFlush(user);
+    entityManager.clear();
+    return entityManager.find(User.class, user.getId());
+  }
+
   private User getDefaultUser() {
     return new User("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
   }
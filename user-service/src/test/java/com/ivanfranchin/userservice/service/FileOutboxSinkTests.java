@@ -0,0 +1,40 @@
+package com.ivanfranchin.userservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ivanfranchin.userservice.outbox.FileOutboxSink;
+import com.ivanfranchin.userservice.outbox.model.OutboxEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+class FileOutboxSinkTests {
+
+  @TempDir private Path directory;
+
+  @Test
+  void testPublishAppendsOneLinePerEvent() throws IOException {
+    Path file = directory.resolve("events.ndjson");
+    FileOutboxSink sink = new FileOutboxSink(file, JsonMapper.builder().build());
+
+    sink.publish(List.of(event(1L, "UserCreated")));
+    sink.publish(List.of(event(2L, "UserDeleted")));
+
+    assertThat(Files.readAllLines(file))
+        .containsExactly(
+            "{\"id\":1,\"type\":\"UserCreated\",\"aggregateId\":10,\"payload\":{\"id\":10},\"createdOn\":\"2018-01-01T10:00:00Z\"}",
+            "{\"id\":2,\"type\":\"UserDeleted\",\"aggregateId\":10,\"payload\":{\"id\":10},\"createdOn\":\"2018-01-01T10:00:00Z\"}");
+  }
+
+  private static OutboxEvent event(long id, String type) {
+    OutboxEvent event =
+        new OutboxEvent(type, 10L, "{\"id\":10}", Instant.parse("2018-01-01T10:00:00Z"));
+    event.setId(id);
+    return event;
+  }
+}
@@ -0,0 +1,105 @@
+package com.ivanfranchin.userservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.ivanfranchin.userservice.InMemoryOutboxSink;
+import com.ivanfranchin.userservice.outbox.OutboxProperties;
+import com.ivanfranchin.userservice.outbox.OutboxPublisher;
+import com.ivanfranchin.userservice.outbox.OutboxRepository;
+import com.ivanfranchin.userservice.outbox.OutboxSink;
+import com.ivanfranchin.userservice.outbox.model.OutboxEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class OutboxPublisherTests {
+
+  private OutboxRepository outboxRepository;
+  private InMemoryOutboxSink sink;
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    outboxRepository = mock(OutboxRepository.class);
+    sink = new InMemoryOutboxSink();
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void testDrainPublishesAndDeletesTheBatch() {
+    OutboxEvent event1 = event(1L);
+    OutboxEvent event2 = event(2L);
+    given(outboxRepository.findBatchForUpdate(10)).willReturn(List.of(event1, event2));
+
+    int published = outboxPublisher(sink).drain();
+
+    assertThat(published).isEqualTo(2);
+    assertThat(sink.getEvents()).containsExactly(event1, event2);
+    verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+    assertThat(meterRegistry.get("outbox.batch.size").summary().totalAmount()).isEqualTo(2);
+    assertThat(meterRegistry.get("outbox.drain.lag").timer().count()).isEqualTo(2);
+  }
+
+  @Test
+  void testDrainAllKeepsGoingWhileBatchesAreFull() {
+    List<OutboxEvent> fullBatch =
+        LongStream.rangeClosed(1, 10).mapToObj(OutboxPublisherTests::event).toList();
+    given(outboxRepository.findBatchForUpdate(10))
+        .willReturn(fullBatch, List.of(event(11L)), List.of());
+
+    outboxPublisher(sink).drainAll();
+
+    assertThat(sink.getEvents()).hasSize(11);
+    verify(outboxRepository, times(2)).findBatchForUpdate(10);
+  }
+
+  @Test
+  void testDrainAllWhenSinkFailsKeepsTheBatch() {
+    given(outboxRepository.findBatchForUpdate(anyInt())).willReturn(List.of(event(1L)));
+    OutboxSink failingSink =
+        events -> {
+          throw new IllegalStateException("unavailable");
+        };
+
+    outboxPublisher(failingSink).drainAll();
+
+    verify(outboxRepository, never()).deleteAllByIdInBatch(anyList());
+    assertThat(meterRegistry.get("outbox.publish.failures").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void testDrainWhenOutboxIsEmpty() {
+    given(outboxRepository.findBatchForUpdate(10)).willReturn(List.of());
+
+    assertThat(outboxPublisher(sink).drain()).isZero();
+    verify(outboxRepository, never()).deleteAllByIdInBatch(anyList());
+  }
+
+  private OutboxPublisher outboxPublisher(OutboxSink outboxSink) {
+    return new OutboxPublisher(
+        outboxRepository,
+        List.of(outboxSink),
+        new TransactionTemplate(mock(PlatformTransactionManager.class)),
+        new OutboxProperties(10, Duration.ofSeconds(1)),
+        meterRegistry);
+  }
+
+  private static OutboxEvent event(long id) {
+    OutboxEvent event = new OutboxEvent("UserCreated", id, "{\"id\":" + id + "}", Instant.now());
+    event.setId(id);
+    return event;
+  }
+}
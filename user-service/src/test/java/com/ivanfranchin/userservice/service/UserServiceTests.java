@@ -3,36 +3,88 @@ package com.ivanfranchin.userservice.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
+import com.ivanfranchin.userservice.user.UserBloomFilters;
+import com.ivanfranchin.userservice.user.UserCache;
+import com.ivanfranchin.userservice.user.UserOutbox;
 import com.ivanfranchin.userservice.user.UserRepository;
 import com.ivanfranchin.userservice.user.UserService;
+import com.ivanfranchin.userservice.user.dto.UpdateUserRequest;
+import com.ivanfranchin.userservice.user.dto.UserChangesResponse;
+import com.ivanfranchin.userservice.user.dto.UserLookupResponse;
+import com.ivanfranchin.userservice.user.dto.UserResponse;
+import com.ivanfranchin.userservice.user.dto.UserSearchRequest;
+import com.ivanfranchin.userservice.user.dto.UserSearchResponse;
 import com.ivanfranchin.userservice.user.exception.UserDataDuplicatedException;
 import com.ivanfranchin.userservice.user.exception.UserNotFoundException;
+import com.ivanfranchin.userservice.user.exception.UserPreconditionFailedException;
 import com.ivanfranchin.userservice.user.model.User;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ExtendWith(SpringExtension.class)
-@Import(UserService.class)
+@Import({UserService.class, UserCache.class, UserBloomFilters.class})
 class UserServiceTests {
 
   @Autowired private UserService userService;
 
+  @Autowired private UserCache userCache;
+
+  @Autowired private UserBloomFilters userBloomFilters;
+
   @MockitoBean private UserRepository userRepository;
 
+  @MockitoBean private UserOutbox userOutbox;
+
+  @MockitoBean private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void setUp() {
+    userCache.invalidateAll();
+    userBloomFilters.invalidateAll();
+    willAnswer(
+            invocation -> {
+              invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+              return null;
+            })
+        .given(transactionTemplate)
+        .executeWithoutResult(any());
+  }
+
   @Test
   void testSaveUser() {
     User user = getDefaultUser();
@@ -40,6 +92,70 @@ class UserServiceTests {
 
     User userSaved = userService.saveUser(user);
     assertThat(userSaved).isEqualTo(user);
+    verify(userOutbox).created(List.of(user));
+  }
+
+  @Test
+  void testSaveUserWhenBloomFiltersHaveNotSeenIt() {
+    userBloomFilters.warmUp(Stream.of(new UserResponse(2L, "ivan2", "ivan2@test", null)));
+    User user = getDefaultUser();
+    given(userRepository.save(any(User.class))).willReturn(user);
+
+    userService.saveUser(user);
+
+    verify(userRepository, times(0)).existsByUsernameOrEmail(anyString(), anyString());
+    assertThat(userBloomFilters.mightContainUsername("ivan")).isTrue();
+    assertThat(userBloomFilters.mightContainEmail("ivan@test")).isTrue();
+  }
+
+  @Test
+  void testSaveUserWhenProbablyDuplicated() {
+    userBloomFilters.warmUp(Stream.of(new UserResponse(2L, "Ivan", "ivan2@test", null)));
+    given(userRepository.existsByUsernameOrEmail("ivan", "ivan@test")).willReturn(true);
+
+    assertThatThrownBy(() -> userService.saveUser(getDefaultUser()))
+        .isInstanceOf(UserDataDuplicatedException.class);
+    verify(userRepository, times(0)).save(any(User.class));
+  }
+
+  @Test
+  void testSaveUsersLooksUpOnlyProbableDuplicates() {
+    userBloomFilters.warmUp(Stream.of(new UserResponse(2L, "ivan2", "ivan2@test", null)));
+    User user1 = new User("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
+    User user2 = new User("ivan2", "ivan2@test", LocalDate.parse("2018-01-01"));
+    given(userRepository.findExistingUsernames(anyCollection())).willReturn(Set.of("ivan2"));
+    given(userRepository.findExistingEmails(anyCollection())).willReturn(Set.of("ivan2@test"));
+
+    List<User> usersSaved = userService.saveUsers(List.of(user1, user2));
+
+    assertThat(usersSaved).isEmpty();
+    verify(userRepository).findExistingUsernames(List.of("ivan2"));
+    verify(userRepository).findExistingEmails(List.of("ivan2@test"));
+    verify(userRepository).insertAll(List.of(user1));
+  }
+
+  // e.g. a user created by another instance, after this one warmed its filters up
+  @Test
+  void testIsUsernameAvailableWhenTakenButBloomFilterHasNotSeenIt() {
+    userBloomFilters.warmUp(Stream.of(new UserResponse(2L, "ivan2", "ivan2@test", null)));
+    given(userRepository.existsByUsername("ivan")).willReturn(true);
+
+    assertThat(userService.isUsernameAvailable("ivan")).isFalse();
+  }
+
+  @Test
+  void testIsUsernameAvailableWhenFree() {
+    given(userRepository.existsByUsername("ivan")).willReturn(false);
+
+    assertThat(userService.isUsernameAvailable("ivan")).isTrue();
+  }
+
+  @Test
+  void testIsEmailAvailableWhenProbablyTaken() {
+    userBloomFilters.warmUp(Stream.of(new UserResponse(1L, "ivan", "ivan@test", null)));
+    given(userRepository.existsByEmail("ivan@test")).willReturn(true);
+
+    assertThat(userService.isEmailAvailable("ivan@test")).isFalse();
   }
 
   @Test
@@ -50,38 +166,242 @@ class UserServiceTests {
     assertThatThrownBy(() -> userService.saveUser(user))
         .isInstanceOf(UserDataDuplicatedException.class)
         .hasMessage("The username and/or email informed already exists.");
+    verify(userOutbox, never()).created(anyList());
   }
 
+  // Only the users unique indexes mean a duplicate: a failing outbox insert isn't one
   @Test
-  void testDeleteUser() {
+  void testSaveUserWhenOutboxInsertFails() {
     User user = getDefaultUser();
-    willDoNothing().given(userRepository).delete(any(User.class));
+    given(userRepository.save(any(User.class))).willReturn(user);
+    willThrow(DataIntegrityViolationException.class).given(userOutbox).created(anyList());
+
+    assertThatThrownBy(() -> userService.saveUser(user))
+        .isInstanceOf(DataIntegrityViolationException.class);
+  }
+
+  @Test
+  void testSaveUsersSkipsDuplicatesInTheListAndInTheDatabase() {
+    User user1 = new User("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
+    User user2 = new User("ivan", "ivan2@test", LocalDate.parse("2018-01-01"));
+    User user3 = new User("ivan3", "ivan3@test", LocalDate.parse("2018-01-01"));
+    given(userRepository.findExistingUsernames(anyCollection())).willReturn(Set.of("ivan3"));
+    given(userRepository.findExistingEmails(anyCollection())).willReturn(Set.of());
+    willAnswer(
+            invocation -> {
+              List<User> users = invocation.getArgument(0);
+              users.forEach(user -> user.setId(1L));
+              return null;
+            })
+        .given(userRepository)
+        .insertAll(anyList());
 
-    userService.deleteUser(user);
+    List<User> usersSaved = userService.saveUsers(List.of(user1, user2, user3));
 
-    verify(userRepository).delete(user);
+    assertThat(usersSaved).containsExactly(user1);
+    assertThat(user2.getId()).isNull();
+    assertThat(user3.getId()).isNull();
+    verify(userRepository).insertAll(List.of(user1));
+    verify(userOutbox).created(List.of(user1));
+  }
+
+  @Test
+  void testSaveUsersWhenBatchViolatesDataIntegrity() {
+    User user1 = new User("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
+    User user2 = new User("ivan2", "ivan2@test", LocalDate.parse("2018-01-01"));
+    given(userRepository.findExistingUsernames(anyCollection())).willReturn(Set.of());
+    given(userRepository.findExistingEmails(anyCollection())).willReturn(Set.of());
+    willThrow(DataIntegrityViolationException.class)
+        .given(userRepository)
+        .insertAll(List.of(user1, user2));
+    willThrow(DataIntegrityViolationException.class)
+        .given(userRepository)
+        .insertAll(List.of(user1));
+    willAnswer(
+            invocation -> {
+              user2.setId(2L);
+              return null;
+            })
+        .given(userRepository)
+        .insertAll(List.of(user2));
+
+    List<User> usersSaved = userService.saveUsers(List.of(user1, user2));
+
+    assertThat(usersSaved).containsExactly(user2);
+    assertThat(user1.getId()).isNull();
+    // Only the insert that succeeded got to write its events
+    verify(userOutbox, times(1)).created(anyList());
+    verify(userOutbox).created(List.of(user2));
+  }
+
+  @Test
+  void testUpdateUser() {
+    User user = getDefaultUser();
+    user.setUsername("ivan2");
+    given(userRepository.updateUser(1L, "ivan2", null, null, null)).willReturn(1);
+    given(userRepository.findById(1L)).willReturn(Optional.of(user));
+
+    User userUpdated = userService.updateUser(1L, new UpdateUserRequest("ivan2", null, null), null);
+    assertThat(userUpdated).isEqualTo(user);
+    verify(userOutbox).updated(user);
+  }
+
+  @Test
+  void testUpdateUserWhenNoFieldIsInformed() {
+    User user = getDefaultUser();
+    given(userRepository.findById(1L)).willReturn(Optional.of(user));
+
+    User userUpdated = userService.updateUser(1L, new UpdateUserRequest(null, null, null), null);
+    assertThat(userUpdated).isEqualTo(user);
+    verify(userRepository, times(0)).updateUser(anyLong(), any(), any(), any(), any());
+  }
+
+  @Test
+  void testUpdateUserWhenNonExisting() {
+    given(userRepository.updateUser(1L, "ivan2", null, null, null)).willReturn(0);
+
+    assertThatThrownBy(
+            () -> userService.updateUser(1L, new UpdateUserRequest("ivan2", null, null), null))
+        .isInstanceOf(UserNotFoundException.class)
+        .hasMessage("User with id '1' doesn't exist.");
+    verify(userRepository, times(0)).findById(anyLong());
+  }
+
+  @Test
+  void testUpdateUserWhenModifiedSinceExpected() {
+    Instant expectedUpdatedOn = Instant.parse("2018-01-01T10:00:00Z");
+    given(userRepository.updateUser(1L, "ivan2", null, null, expectedUpdatedOn)).willReturn(0);
+    given(userRepository.existsById(1L)).willReturn(true);
+
+    assertThatThrownBy(
+            () ->
+                userService.updateUser(
+                    1L, new UpdateUserRequest("ivan2", null, null), expectedUpdatedOn))
+        .isInstanceOf(UserPreconditionFailedException.class);
+    verify(userRepository, times(0)).findById(anyLong());
+  }
+
+  @Test
+  void testUpdateUserWhenNoFieldIsInformedAndModifiedSinceExpected() {
+    User user = getDefaultUser();
+    user.setUpdatedOn(Instant.parse("2018-01-02T10:00:00Z"));
+    given(userRepository.findById(1L)).willReturn(Optional.of(user));
+
+    assertThatThrownBy(
+            () ->
+                userService.updateUser(
+                    1L,
+                    new UpdateUserRequest(null, null, null),
+                    Instant.parse("2018-01-01T10:00:00Z")))
+        .isInstanceOf(UserPreconditionFailedException.class);
+  }
+
+  @Test
+  void testUpdateUserWhenDataIntegrityViolationOccurs() {
+    given(userRepository.updateUser(1L, "ivan2", null, null, null))
+        .willThrow(DataIntegrityViolationException.class);
+
+    assertThatThrownBy(
+            () -> userService.updateUser(1L, new UpdateUserRequest("ivan2", null, null), null))
+        .isInstanceOf(UserDataDuplicatedException.class);
+  }
+
+  @Test
+  void testDeleteUser() {
+    given(userRepository.deleteUserById(1L)).willReturn(1);
+
+    userService.deleteUser(1L);
+
+    verify(userRepository).deleteUserById(1L);
+    verify(userRepository).insertTombstone(eq(1L), any(Instant.class));
+    verify(userOutbox).deleted(1L);
+  }
+
+  @Test
+  void testDeleteUserWhenNonExisting() {
+    given(userRepository.deleteUserById(1L)).willReturn(0);
+
+    assertThatThrownBy(() -> userService.deleteUser(1L))
+        .isInstanceOf(UserNotFoundException.class)
+        .hasMessage("User with id '1' doesn't exist.");
+    verify(userRepository, never()).insertTombstone(anyLong(), any(Instant.class));
+  }
+
+  @Test
+  void testGetChangesLeavesTheLastSecondsForTheNextPoll() {
+    UserChangesResponse response = new UserChangesResponse(List.of(), "Y3Vyc29y");
+    given(userRepository.findChanges(eq("Y3Vyc29y"), any(Instant.class), eq(10)))
+        .willReturn(response);
+
+    Instant now = Instant.now();
+    assertThat(userService.getChanges("Y3Vyc29y", 10)).isEqualTo(response);
+
+    ArgumentCaptor<Instant> until = ArgumentCaptor.forClass(Instant.class);
+    verify(userRepository).findChanges(eq("Y3Vyc29y"), until.capture(), eq(10));
+    assertThat(until.getValue()).isBefore(now.minusSeconds(4));
   }
 
   @Test
   void testGetUsersWhenThereIsNone() {
-    given(userRepository.findAll()).willReturn(List.of());
+    given(userRepository.findAllResponses()).willReturn(List.of());
 
-    List<User> usersFound = userService.getUsers();
+    List<UserResponse> usersFound = userService.getUsers();
     assertThat(usersFound).isEmpty();
   }
 
   @Test
   void testGetUsersWhenThereIsOne() {
-    User user = getDefaultUser();
-    List<User> users = List.of(user);
+    UserResponse user = UserResponse.from(getDefaultUser());
+    List<UserResponse> users = List.of(user);
 
-    given(userRepository.findAll()).willReturn(users);
+    given(userRepository.findAllResponses()).willReturn(users);
 
-    List<User> usersFound = userService.getUsers();
+    List<UserResponse> usersFound = userService.getUsers();
     assertThat(usersFound).hasSize(1);
     assertThat(usersFound.getFirst()).isEqualTo(user);
   }
 
+  @Test
+  void testGetUsersPageWhenNotInformingCursor() {
+    UserResponse user = UserResponse.from(getDefaultUser());
+    given(userRepository.findResponsesByIdGreaterThan(eq(0L), eq(Limit.of(10))))
+        .willReturn(List.of(user));
+
+    List<UserResponse> usersFound = userService.getUsers(null, 10);
+    assertThat(usersFound).containsExactly(user);
+  }
+
+  @Test
+  void testGetUsersPageWhenInformingCursor() {
+    given(userRepository.findResponsesByIdGreaterThan(eq(1L), eq(Limit.of(10))))
+        .willReturn(List.of());
+
+    List<UserResponse> usersFound = userService.getUsers(1L, 10);
+    assertThat(usersFound).isEmpty();
+  }
+
+  @Test
+  void testSearchUsers() {
+    UserSearchRequest request =
+        new UserSearchRequest("iv", null, null, null, null, null, null, null);
+    UserSearchResponse response =
+        new UserSearchResponse(List.of(UserResponse.from(getDefaultUser())), null);
+    given(userRepository.search(request, "Y3Vyc29y", 10)).willReturn(response);
+
+    assertThat(userService.searchUsers(request, "Y3Vyc29y", 10)).isEqualTo(response);
+  }
+
+  @Test
+  void testStreamUsers() {
+    User user = getDefaultUser();
+    given(userRepository.streamAllBy()).willReturn(Stream.of(UserResponse.from(user)));
+
+    List<UserResponse> usersStreamed = new ArrayList<>();
+    userService.streamUsers(usersStreamed::add);
+
+    assertThat(usersStreamed).containsExactly(UserResponse.from(user));
+  }
+
   @Test
   void testValidateAndGetUserByIdWhenExisting() {
     User user = getDefaultUser();
@@ -118,6 +438,245 @@ class UserServiceTests {
         .hasMessage("User with username 'ivan' doesn't exist.");
   }
 
+  @Test
+  void testValidateAndGetUserByIdIsServedFromCache() {
+    User user = getDefaultUser();
+    given(userRepository.findById(anyLong())).willReturn(Optional.of(user));
+
+    userService.validateAndGetUserById(user.getId());
+    User userFound = userService.validateAndGetUserById(user.getId());
+
+    assertThat(userFound).isEqualTo(user).isNotSameAs(user);
+    verify(userRepository, times(1)).findById(user.getId());
+  }
+
+  @Test
+  void testValidateAndGetUserByUsernameIsServedFromCache() {
+    User user = getDefaultUser();
+    given(userRepository.findByUsername(anyString())).willReturn(Optional.of(user));
+
+    userService.validateAndGetUserByUsername(user.getUsername());
+    User userFound = userService.validateAndGetUserById(user.getId());
+    User userFoundAgain = userService.validateAndGetUserByUsername(user.getUsername());
+
+    assertThat(userFound).isEqualTo(user);
+    assertThat(userFoundAgain).isEqualTo(user);
+    verify(userRepository, times(1)).findByUsername(user.getUsername());
+    verify(userRepository, times(0)).findById(anyLong());
+  }
+
+  @Test
+  void testGetUsersByIdsKeepsTheOrderAskedAndListsMissingIds() {
+    User user1 = getDefaultUser();
+    User user3 = new User("ivan3", "ivan3@test", LocalDate.parse("2018-03-03"));
+    user3.setId(3L);
+    given(userRepository.findAllById(List.of(3L, 2L, 1L))).willReturn(List.of(user1, user3));
+
+    UserLookupResponse<Long> result = userService.getUsersByIds(List.of(3L, 2L, 1L, 3L));
+
+    assertThat(result.users()).containsExactly(UserResponse.from(user3), UserResponse.from(user1));
+    assertThat(result.missing()).containsExactly(2L);
+  }
+
+  @Test
+  void testGetUsersByIdsQueriesOnlyUncachedIdsInChunks() {
+    User user = getDefaultUser();
+    given(userRepository.findById(1L)).willReturn(Optional.of(user));
+    userService.validateAndGetUserById(1L);
+    List<Long> ids = LongStream.rangeClosed(1, 600).boxed().toList();
+
+    UserLookupResponse<Long> result = userService.getUsersByIds(ids);
+
+    assertThat(result.users()).containsExactly(UserResponse.from(user));
+    assertThat(result.missing()).hasSize(599).startsWith(2L);
+    verify(userRepository).findAllById(ids.subList(1, 513));
+    verify(userRepository).findAllById(ids.subList(513, 600));
+  }
+
+  @Test
+  void testGetUsersByUsernamesIsServedFromCache() {
+    User user = getDefaultUser();
+    given(userRepository.findByUsernameIn(List.of("ivan", "ivan2"))).willReturn(List.of(user));
+
+    userService.getUsersByUsernames(List.of("ivan", "ivan2"));
+    UserLookupResponse<String> result = userService.getUsersByUsernames(List.of("ivan2", "ivan"));
+
+    assertThat(result.users()).containsExactly(UserResponse.from(user));
+    assertThat(result.missing()).containsExactly("ivan2");
+    verify(userRepository).findByUsernameIn(List.of("ivan2"));
+    assertThat(userService.validateAndGetUserById(1L)).isEqualTo(user);
+    verify(userRepository, never()).findById(anyLong());
+  }
+
+  @Test
+  void testGetUsersByUsernamesMatchesUsersFoundUnderTheCollation() {
+    User user = getDefaultUser();
+    given(userRepository.findByUsernameIn(List.of("IVAN", "ivan2"))).willReturn(List.of(user));
+
+    UserLookupResponse<String> result =
+        userService.getUsersByUsernames(List.of("IVAN", "ivan2", "Ívan"));
+
+    assertThat(result.users()).containsExactly(UserResponse.from(user));
+    assertThat(result.missing()).containsExactly("ivan2");
+  }
+
+  @Test
+  void testGetUsersByUsernamesServesUsernameInOtherCaseFromCache() {
+    User user = getDefaultUser();
+    given(userRepository.findByUsernameIn(List.of("IVAN"))).willReturn(List.of(user));
+
+    userService.getUsersByUsernames(List.of("IVAN"));
+    UserLookupResponse<String> result = userService.getUsersByUsernames(List.of("IVAN"));
+
+    assertThat(result.users()).containsExactly(UserResponse.from(user));
+    assertThat(result.missing()).isEmpty();
+    verify(userRepository, times(1)).findByUsernameIn(anyCollection());
+  }
+
+  @Test
+  void testSaveUserWhenRenamingDoesNotServeOldUsernameFromCache() {
+    User user = getDefaultUser();
+    given(userRepository.findByUsername("ivan")).willReturn(Optional.of(user));
+    userService.validateAndGetUserByUsername("ivan");
+
+    User renamedUser = getDefaultUser();
+    renamedUser.setUsername("ivan2");
+    given(userRepository.save(any(User.class))).willReturn(renamedUser);
+    given(userRepository.findByUsername("ivan")).willReturn(Optional.empty());
+    userService.saveUser(renamedUser);
+
+    assertThatThrownBy(() -> userService.validateAndGetUserByUsername("ivan"))
+        .isInstanceOf(UserNotFoundException.class);
+    assertThat(userService.validateAndGetUserByUsername("ivan2")).isEqualTo(renamedUser);
+    assertThat(userService.validateAndGetUserById(1L)).isEqualTo(renamedUser);
+  }
+
+  @Test
+  void testUpdateUserRefreshesCachedUser() {
+    User user = getDefaultUser();
+    given(userRepository.findByUsername("ivan")).willReturn(Optional.of(user));
+    userService.validateAndGetUserByUsername("ivan");
+
+    User renamedUser = getDefaultUser();
+    renamedUser.setUsername("ivan2");
+    given(userRepository.updateUser(1L, "ivan2", null, null, null)).willReturn(1);
+    given(userRepository.findById(1L)).willReturn(Optional.of(renamedUser));
+    given(userRepository.findByUsername("ivan")).willReturn(Optional.empty());
+    userService.updateUser(1L, new UpdateUserRequest("ivan2", null, null), null);
+
+    assertThatThrownBy(() -> userService.validateAndGetUserByUsername("ivan"))
+        .isInstanceOf(UserNotFoundException.class);
+    assertThat(userService.validateAndGetUserByUsername("ivan2")).isEqualTo(renamedUser);
+  }
+
+  @Test
+  void testDeleteUserEvictsUserFromCache() {
+    User user = getDefaultUser();
+    given(userRepository.findById(anyLong())).willReturn(Optional.of(user));
+    userService.validateAndGetUserById(user.getId());
+
+    given(userRepository.deleteUserById(anyLong())).willReturn(1);
+    given(userRepository.findById(anyLong())).willReturn(Optional.empty());
+    userService.deleteUser(user.getId());
+
+    assertThatThrownBy(() -> userService.validateAndGetUserById(user.getId()))
+        .isInstanceOf(UserNotFoundException.class);
+  }
+
+  // The repository's own read-only transaction, so that a miss can be read from a replica
+  @Test
+  void testValidateAndGetUserByIdLoadsCacheMissInReadOnlyTransaction() {
+    User user = getDefaultUser();
+    given(userRepository.findById(user.getId())).willReturn(Optional.of(user));
+
+    userService.validateAndGetUserById(user.getId());
+    userService.validateAndGetUserById(user.getId());
+
+    verifyNoInteractions(transactionTemplate);
+    verify(userRepository, times(1)).findById(user.getId());
+  }
+
+  @Test
+  void testDeleteUserEvictsUserFromCacheOnlyAfterCommit() {
+    User user = getDefaultUser();
+    given(userRepository.findById(anyLong())).willReturn(Optional.of(user));
+    userService.validateAndGetUserById(user.getId());
+    given(userRepository.deleteUserById(anyLong())).willReturn(1);
+
+    List<TransactionSynchronization> synchronizations =
+        inTransaction(() -> userService.deleteUser(user.getId()));
+    given(userRepository.findById(anyLong())).willReturn(Optional.empty());
+
+    assertThat(userCache.getById(user.getId(), id -> Optional.empty())).isPresent();
+    TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+    assertThat(userCache.getById(user.getId(), id -> Optional.empty())).isEmpty();
+  }
+
+  // The lookup read the user just before the delete committed, and fills the cache after the
+  // delete evicted it
+  @Test
+  void testGetUserByUsernameDoesNotCacheUserDeletedWhileLoading() {
+    User user = getDefaultUser();
+    given(userRepository.findByUsername("ivan"))
+        .willAnswer(
+            invocation -> {
+              userCache.evict(user.getId());
+              return Optional.of(user);
+            });
+
+    assertThatThrownBy(() -> userService.validateAndGetUserByUsername("ivan"))
+        .isInstanceOf(UserNotFoundException.class);
+    assertThat(userCache.getById(user.getId(), id -> Optional.of(user))).isEmpty();
+  }
+
+  @Test
+  void testGetUsersByIdsDoesNotReplaceUserUpdatedWhileLoading() {
+    User user = getDefaultUser();
+    user.setUpdatedOn(Instant.parse("2018-01-01T00:00:00Z"));
+    User renamedUser = getDefaultUser();
+    renamedUser.setUsername("ivan2");
+    renamedUser.setUpdatedOn(Instant.parse("2018-01-02T00:00:00Z"));
+    given(userRepository.findAllById(List.of(1L)))
+        .willAnswer(
+            invocation -> {
+              userCache.put(renamedUser);
+              return List.of(user);
+            });
+
+    UserLookupResponse<Long> result = userService.getUsersByIds(List.of(1L));
+
+    assertThat(result.users()).containsExactly(UserResponse.from(renamedUser));
+    assertThat(userService.validateAndGetUserById(1L)).isEqualTo(renamedUser);
+  }
+
+  @Test
+  void testUpdateUserDoesNotCacheUserWhenRolledBack() {
+    User renamedUser = getDefaultUser();
+    renamedUser.setUsername("ivan2");
+    given(userRepository.updateUser(1L, "ivan2", null, null, null)).willReturn(1);
+    given(userRepository.findById(1L)).willReturn(Optional.of(renamedUser));
+
+    List<TransactionSynchronization> synchronizations =
+        inTransaction(
+            () -> userService.updateUser(1L, new UpdateUserRequest("ivan2", null, null), null));
+
+    TransactionSynchronizationUtils.invokeAfterCompletion(
+        synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+    assertThat(userCache.getById(1L, id -> Optional.empty())).isEmpty();
+  }
+
+  // Runs the action with transaction synchronization active, the way @Transactional does, and
+  // returns the synchronizations it registered, for the test to complete
+  private static List<TransactionSynchronization> inTransaction(Runnable action) {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      action.run();
+      return TransactionSynchronizationManager.getSynchronizations();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
   private User getDefaultUser() {
     User user = new User("ivan", "ivan@test", LocalDate.parse("2018-01-01"));
     user.setId(1L);